@@ -0,0 +1,86 @@
+package org.project.game_objects;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda completa desde la raíz, secuencial y paralela, a varias profundidades y números de
+ * hilos. La tabla de transposición y la caché de evaluaciones se vacían antes de cada búsqueda para
+ * que cada una empiece de cero.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BusquedaBenchmark {
+
+    @State(Scope.Thread)
+    public static class Busqueda {
+        @Param({Posiciones.INICIAL, Posiciones.MEDIO_JUEGO})
+        public String posicion;
+        @Param({"4", "6", "8"})
+        public int profundidad;
+
+        Tabla tabla;
+        AIPlayer ia;
+
+        @Setup
+        public void preparar() {
+            tabla = Posiciones.crear(posicion);
+            ia = new AIPlayer(true, profundidad);
+        }
+
+        @Setup(Level.Invocation)
+        public void vaciarTablas() {
+            ia.tablaTransposicion.limpiar();
+            ia.limpiarCacheEvaluacion();
+        }
+    }
+
+    /**
+     * Grupo de hilos en el que se lanza la búsqueda paralela: {@code getBestMove} reparte la raíz
+     * con un stream paralelo, que usa el grupo desde el que se invoca.
+     */
+    @State(Scope.Benchmark)
+    public static class Hilos {
+        @Param({"1", "2", "4"})
+        public int hilos;
+
+        ForkJoinPool grupo;
+
+        @Setup
+        public void preparar() {
+            grupo = new ForkJoinPool(hilos);
+        }
+
+        @TearDown
+        public void cerrar() {
+            grupo.shutdown();
+        }
+    }
+
+    @Benchmark
+    public Movimiento getBestMoveSequential(Busqueda busqueda) {
+        return busqueda.ia.getBestMoveSequential(busqueda.tabla);
+    }
+
+    @Benchmark
+    public Movimiento getBestMove(Busqueda busqueda, Hilos hilos) {
+        return hilos.grupo.submit(() -> busqueda.ia.getBestMove(busqueda.tabla)).join();
+    }
+}
@@ -0,0 +1,62 @@
+package org.project.game_objects;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Posiciones fijas sobre las que se miden los benchmarks, siempre con turno de las blancas.
+ */
+final class Posiciones {
+    /**
+     * Nombres de las posiciones, para los {@code @Param} de los benchmarks.
+     */
+    static final String INICIAL = "inicial";
+    static final String MEDIO_JUEGO = "medio";
+    static final String FINAL = "final";
+
+    private Posiciones() {
+    }
+
+    /**
+     * Construye una posición de la batería.
+     *
+     * @param nombre {@link #INICIAL}, {@link #MEDIO_JUEGO} o {@link #FINAL}.
+     * @return Un tablero nuevo con la posición.
+     */
+    static Tabla crear(String nombre) {
+        return switch (nombre) {
+            case INICIAL -> new Tabla();
+            case MEDIO_JUEGO -> medioJuego();
+            case FINAL -> finalDeReyes();
+            default -> throw new IllegalArgumentException("Posición desconocida: " + nombre);
+        };
+    }
+
+    /**
+     * Partida aleatoria con semilla fija de 20 plies desde la posición inicial. Acaba en una
+     * posición tranquila (sin capturas) con 17 piezas y 9 movimientos para las blancas.
+     */
+    private static Tabla medioJuego() {
+        Tabla tabla = new Tabla();
+        SplittableRandom aleatorio = new SplittableRandom(2030);
+        boolean turnoDeBlancas = true;
+        for (int ply = 0; ply < 20; ply++) {
+            List<Movimiento> movimientos = tabla.getMovimientosDisponibles(turnoDeBlancas);
+            tabla.ejecutarMovimiento(movimientos.get(aleatorio.nextInt(movimientos.size())), turnoDeBlancas);
+            turnoDeBlancas = !turnoDeBlancas;
+        }
+        return tabla;
+    }
+
+    /**
+     * Dos reyes y una pieza blanca contra dos reyes negros.
+     */
+    private static Tabla finalDeReyes() {
+        long reyesBlancos = (1L << Tabla.bitDe(7, 0)) | (1L << Tabla.bitDe(5, 2));
+        long reyesNegros = (1L << Tabla.bitDe(0, 7)) | (1L << Tabla.bitDe(2, 3));
+        long piezaBlanca = 1L << Tabla.bitDe(4, 5);
+        Tabla tabla = new Tabla();
+        tabla.colocarPiezas(reyesBlancos | piezaBlanca, reyesNegros, reyesBlancos | reyesNegros);
+        return tabla;
+    }
+}
@@ -0,0 +1,63 @@
+package org.project.game_objects;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operaciones básicas del tablero: copia, generación de movimientos y evaluación.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TablaBenchmark {
+    @Param({Posiciones.INICIAL, Posiciones.MEDIO_JUEGO, Posiciones.FINAL})
+    public String posicion;
+
+    private Tabla tabla;
+    private AIPlayer ia;
+    private final long[] movimientos = new long[Tabla.MAX_MOVIMIENTOS];
+
+    @Setup
+    public void preparar() {
+        tabla = Posiciones.crear(posicion);
+        ia = new AIPlayer(true, 1, 1, 1);
+    }
+
+    @Benchmark
+    public Tabla copiar() {
+        return new Tabla(tabla);
+    }
+
+    @Benchmark
+    public List<Movimiento> getMovimientosDisponibles() {
+        return tabla.getMovimientosDisponibles(true);
+    }
+
+    /**
+     * Generación sin asignar memoria, la que usa la búsqueda.
+     */
+    @Benchmark
+    public int generarMovimientos() {
+        return tabla.generarMovimientos(true, movimientos, 0);
+    }
+
+    @Benchmark
+    public int evaluarTablero() {
+        return ia.evaluarTablero(tabla);
+    }
+}
@@ -1,19 +1,336 @@
 package org.project;
 
 import org.project.game_objects.AIPlayer;
+import org.project.game_objects.AlmacenPartidas;
+import org.project.game_objects.AnalizadorPosiciones;
+import org.project.game_objects.BaseFinales;
+import org.project.game_objects.ClienteCarga;
+import org.project.game_objects.GeneradorFinales;
+import org.project.game_objects.GeneradorLibro;
+import org.project.game_objects.LibroAperturas;
 import org.project.game_objects.Movimiento;
+import org.project.game_objects.Perft;
+import org.project.game_objects.Reflexion;
+import org.project.game_objects.ServidorJuegos;
 import org.project.game_objects.Tabla;
-
+import org.project.game_objects.Torneo;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
  * Clase principal que contiene el bucle del juego y gestiona la interacción con el usuario.
  */
 public class Main {
+    /**
+     * Directorio de la base de finales que se carga al jugar contra la IA, si existe.
+     */
+    private static final String DIRECTORIO_FINALES = "finales";
+    /**
+     * Archivo del libro de aperturas que se carga al jugar contra la IA, si existe.
+     */
+    private static final String ARCHIVO_LIBRO = "aperturas.bin";
+    /**
+     * Directorio del almacén donde se guardan las partidas terminadas.
+     */
+    private static final String DIRECTORIO_PARTIDAS = "partidas";
 
     public static void main(String[] args) {
-        iniciarJuego();
+        if (args.length == 0) {
+            iniciarJuego();
+            return;
+        }
+        switch (args[0]) {
+            case "finales" -> generarFinales(args);
+            case "libro" -> generarLibro(args);
+            case "perft" -> ejecutarPerft(args);
+            case "torneo" -> jugarTorneo(args);
+            case "servidor" -> iniciarServidor(args);
+            case "carga" -> generarCarga(args);
+            case "analizar" -> analizarPosiciones(args);
+            case "partidas" -> gestionarPartidas(args);
+            default -> System.out.println("Comando desconocido: " + args[0]
+                    + ". Uso: sin argumentos para jugar, finales [directorio] [piezas],"
+                    + " libro [archivo] [plies] [profundidad], perft <profundidad> [tablaMB],"
+                    + " torneo <configuracionA> <configuracionB> [partidas] [hilos],"
+                    + " servidor [puerto] [profundidad] [hilosCPU] [plazoMs]"
+                    + " carga [host:]puerto [conexiones] [segundos],"
+                    + " analizar <entrada|-> [salida|-] [profundidad] [tiempoMs] [hilos]"
+                    + " o partidas importar|exportar|estadisticas ...");
+        }
+    }
+
+    /**
+     * Genera la base de finales: {@code finales [directorio] [piezas]}.
+     */
+    private static void generarFinales(String[] args) {
+        Path directorio = Path.of(args.length > 1 ? args[1] : DIRECTORIO_FINALES);
+        int piezas = args.length > 2 ? Integer.parseInt(args[2]) : GeneradorFinales.PIEZAS_POR_DEFECTO;
+        try {
+            GeneradorFinales.generar(directorio, piezas);
+            System.out.println("Base de finales generada en " + directorio.toAbsolutePath());
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("No se pudo generar la base de finales: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Genera el libro de aperturas: {@code libro [archivo] [plies] [profundidad]}.
+     */
+    private static void generarLibro(String[] args) {
+        Path archivo = Path.of(args.length > 1 ? args[1] : ARCHIVO_LIBRO);
+        int plies = args.length > 2 ? Integer.parseInt(args[2]) : GeneradorLibro.PLIES_POR_DEFECTO;
+        int profundidad = args.length > 3 ? Integer.parseInt(args[3]) : GeneradorLibro.PROFUNDIDAD_POR_DEFECTO;
+        try {
+            GeneradorLibro.generar(archivo, plies, profundidad);
+            System.out.println("Libro de aperturas generado en " + archivo.toAbsolutePath());
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("No se pudo generar el libro de aperturas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Carga en la IA el libro de aperturas por defecto, si existe.
+     */
+    private static void cargarLibro(AIPlayer ia) {
+        Path archivo = Path.of(ARCHIVO_LIBRO);
+        if (!Files.isRegularFile(archivo)) {
+            return;
+        }
+        try {
+            LibroAperturas libro = LibroAperturas.abrir(archivo);
+            ia.setLibroAperturas(libro);
+            System.out.println("Libro de aperturas cargado (" + libro.getNumeroPosiciones() + " posiciones).");
+        } catch (IOException e) {
+            System.out.println("No se pudo cargar el libro de aperturas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Ejecuta perft desde la posición inicial: {@code perft <profundidad> [tablaMB]}. Muestra el
+     * recuento de cada movimiento de la raíz, el total y las posiciones hoja por segundo. Con una
+     * tabla de 0 MB no se reutilizan recuentos, lo que mide el generador de movimientos en bruto.
+     */
+    private static void ejecutarPerft(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Uso: perft <profundidad> [tablaMB]");
+            return;
+        }
+        int profundidad = Integer.parseInt(args[1]);
+        int tamanoTabla = args.length > 2 ? Integer.parseInt(args[2]) : Perft.TAMANO_TABLA_MB;
+        Perft perft = new Perft(tamanoTabla);
+
+        long inicio = System.nanoTime();
+        Map<Movimiento, Long> recuentos = perft.dividir(new Tabla(), true, profundidad);
+        long nanos = System.nanoTime() - inicio;
+
+        long total = 0;
+        for (Map.Entry<Movimiento, Long> recuento : recuentos.entrySet()) {
+            System.out.println(recuento.getKey() + ": " + recuento.getValue());
+            total += recuento.getValue();
+        }
+        System.out.println("Total: " + total);
+        System.out.printf("Tiempo: %d ms (%.0f nodos/s)%n", nanos / 1_000_000, total * 1e9 / Math.max(1, nanos));
+    }
+
+    /**
+     * Juega un torneo entre dos configuraciones de la IA:
+     * {@code torneo <configuracionA> <configuracionB> [partidas] [hilos]}, con configuraciones como
+     * {@code secuencial:6} o {@code ybw:8:material}.
+     */
+    private static void jugarTorneo(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Uso: torneo <configuracionA> <configuracionB> [partidas] [hilos]"
+                    + " (configuración: secuencial|paralelo|ybw:profundidad[:completa|material])");
+            return;
+        }
+        try {
+            Torneo.Configuracion a = Torneo.Configuracion.leer(args[1]);
+            Torneo.Configuracion b = Torneo.Configuracion.leer(args[2]);
+            int partidas = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+            int hilos = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+            long inicio = System.currentTimeMillis();
+            Torneo.Resultado resultado = Torneo.jugar(a, b, partidas, hilos, 1);
+            System.out.print(resultado.resumen(a, b));
+            System.out.println("Tiempo total: " + (System.currentTimeMillis() - inicio) + " ms");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Atiende partidas por TCP hasta que se termina el proceso:
+     * {@code servidor [puerto] [profundidad] [hilosCPU] [plazoMs]}. Los hilos de CPU son por defecto
+     * uno por procesador.
+     */
+    private static void iniciarServidor(String[] args) {
+        try {
+            int puerto = args.length > 1 ? Integer.parseInt(args[1]) : ServidorJuegos.PUERTO_POR_DEFECTO;
+            int profundidad = args.length > 2 ? Integer.parseInt(args[2]) : ServidorJuegos.PROFUNDIDAD_POR_DEFECTO;
+            int hilosCPU = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            long plazoMs = args.length > 4 ? Long.parseLong(args[4]) : ServidorJuegos.PLAZO_POR_DEFECTO_MS;
+            try (ServidorJuegos servidor = new ServidorJuegos(puerto, profundidad, hilosCPU, plazoMs)) {
+                servidor.getEstadisticas(true).registrar("servidor-blancas");
+                servidor.getEstadisticas(false).registrar("servidor-negras");
+                System.out.println("Servidor escuchando en el puerto " + servidor.getPuerto()
+                        + " (profundidad " + profundidad + ", " + hilosCPU + " hilos de búsqueda)");
+                servidor.ejecutar();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("No se pudo iniciar el servidor: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Mide un servidor en marcha con el cliente de carga:
+     * {@code carga [host:]puerto [conexiones] [segundos]}.
+     */
+    private static void generarCarga(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Uso: carga [host:]puerto [conexiones] [segundos]");
+            return;
+        }
+        try {
+            int separador = args[1].lastIndexOf(':');
+            String host = separador < 0 ? "localhost" : args[1].substring(0, separador);
+            int puerto = Integer.parseInt(args[1].substring(separador + 1));
+            int conexiones = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+            int segundos = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+            ClienteCarga.Resultado resultado = ClienteCarga.ejecutar(new InetSocketAddress(host, puerto), conexiones,
+                    segundos * 1000L, 1);
+            System.out.print(resultado.resumen());
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("La carga falló: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Analiza por lotes un archivo de posiciones:
+     * {@code analizar <entrada|-> [salida|-] [profundidad] [tiempoMs] [hilos]}, con {@code -} para la
+     * entrada o la salida estándar. Por defecto busca a profundidad 8 sin límite de tiempo, con un hilo
+     * por procesador.
+     */
+    private static void analizarPosiciones(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Uso: analizar <entrada|-> [salida|-] [profundidad] [tiempoMs] [hilos]");
+            return;
+        }
+        try {
+            String salida = args.length > 2 ? args[2] : "-";
+            int profundidad = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+            long tiempoMs = args.length > 4 ? Long.parseLong(args[4]) : 0;
+            int hilos = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+            AnalizadorPosiciones analizador = new AnalizadorPosiciones(profundidad, tiempoMs, hilos);
+
+            long inicio = System.currentTimeMillis();
+            long posiciones;
+            try (BufferedReader entrada = args[1].equals("-")
+                    ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                    : Files.newBufferedReader(Path.of(args[1]));
+                 Writer escritor = salida.equals("-")
+                         ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                         : Files.newBufferedWriter(Path.of(salida))) {
+                posiciones = analizador.analizar(entrada, escritor);
+            }
+            System.err.println(posiciones + " posiciones analizadas en " + (System.currentTimeMillis() - inicio) + " ms");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("El análisis falló: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gestiona el almacén de partidas:
+     * {@code partidas importar <archivo.pdn|-> [directorio]},
+     * {@code partidas exportar <archivo.pdn|-> [directorio]} o
+     * {@code partidas estadisticas [directorio] [pliesApertura]}, con {@code -} para la entrada o la
+     * salida estándar.
+     */
+    private static void gestionarPartidas(String[] args) {
+        String uso = "Uso: partidas importar <archivo.pdn|-> [directorio], partidas exportar <archivo.pdn|-> [directorio]"
+                + " o partidas estadisticas [directorio] [pliesApertura]";
+        if (args.length < 2 || (!args[1].equals("estadisticas") && args.length < 3)) {
+            System.out.println(uso);
+            return;
+        }
+        boolean conArchivo = !args[1].equals("estadisticas");
+        Path directorio = Path.of(args.length > (conArchivo ? 3 : 2) ? args[conArchivo ? 3 : 2] : DIRECTORIO_PARTIDAS);
+        long inicio = System.currentTimeMillis();
+        try (AlmacenPartidas almacen = AlmacenPartidas.abrir(directorio)) {
+            switch (args[1]) {
+                case "importar" -> {
+                    AlmacenPartidas.Importacion importacion;
+                    try (BufferedReader entrada = args[2].equals("-")
+                            ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                            : Files.newBufferedReader(Path.of(args[2]))) {
+                        importacion = almacen.importarPdn(entrada);
+                    }
+                    System.err.println(importacion.getImportadas() + " partidas importadas y "
+                            + importacion.getDescartadas() + " descartadas en " + (System.currentTimeMillis() - inicio) + " ms");
+                }
+                case "exportar" -> {
+                    int partidas;
+                    try (Writer salida = args[2].equals("-")
+                            ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                            : Files.newBufferedWriter(Path.of(args[2]))) {
+                        partidas = almacen.exportarPdn(salida);
+                    }
+                    System.err.println(partidas + " partidas exportadas en " + (System.currentTimeMillis() - inicio) + " ms");
+                }
+                case "estadisticas" -> {
+                    int plies = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+                    System.out.print(almacen.calcularEstadisticas(plies).resumen(10));
+                    System.out.println("Tiempo: " + (System.currentTimeMillis() - inicio) + " ms");
+                }
+                default -> System.out.println(uso);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("No se pudo completar la operación: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Guarda una partida terminada en el almacén de partidas.
+     */
+    private static void guardarPartida(List<Movimiento> jugadas) {
+        try (AlmacenPartidas almacen = AlmacenPartidas.abrir(Path.of(DIRECTORIO_PARTIDAS))) {
+            int numero = almacen.agregar(jugadas);
+            System.out.println("Partida guardada en el almacén de partidas (n.º " + (numero + 1) + ").");
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("No se pudo guardar la partida: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Carga en la IA la base de finales del directorio por defecto, si existe.
+     */
+    private static void cargarFinales(AIPlayer ia) {
+        Path directorio = Path.of(DIRECTORIO_FINALES);
+        if (!Files.isDirectory(directorio)) {
+            return;
+        }
+        try {
+            BaseFinales base = BaseFinales.abrir(directorio);
+            if (base.getPiezasMaximas() > 0) {
+                ia.setBaseFinales(base);
+                System.out.println("Base de finales cargada (hasta " + base.getPiezasMaximas() + " piezas).");
+            }
+        } catch (IOException e) {
+            System.out.println("No se pudo cargar la base de finales: " + e.getMessage());
+        }
     }
 
     /**
@@ -74,31 +391,43 @@ public class Main {
      */
     public static void jugarHumanoVsIA(Scanner sc, boolean jugadorEsBlanco, boolean aiEsParalelo) {
         AIPlayer ia = new AIPlayer(!jugadorEsBlanco, 6);
+        cargarLibro(ia);
+        cargarFinales(ia);
+        // Las estadísticas de búsqueda se pueden seguir con jconsole mientras dura la partida
+        ia.getEstadisticas().registrar("ia");
+        // Mientras el humano piensa, la IA busca de antemano sus respuestas
+        Reflexion reflexion = new Reflexion(ia, aiEsParalelo);
         Tabla tabla = new Tabla();
+        List<Movimiento> jugadas = new ArrayList<>();
         imprimirBannerJuego(true, jugadorEsBlanco);
 
         boolean turnoDeBlancas = true;
 
-        while (!tabla.haTerminado()) {
-            System.out.println(tabla);
-            boolean esTurnoHumano = (turnoDeBlancas == jugadorEsBlanco);
+        try {
+            while (!tabla.haTerminado()) {
+                System.out.println(tabla);
+                boolean esTurnoHumano = (turnoDeBlancas == jugadorEsBlanco);
 
-            boolean seEjecutoCaptura = false;
-            if (esTurnoHumano) {
-                seEjecutoCaptura = gestionTurnoHumano(sc, tabla, turnoDeBlancas);
-            } else {
-                seEjecutoCaptura = gestionTurnoIA(ia, tabla, turnoDeBlancas, aiEsParalelo);
-            }
+                Movimiento jugada;
+                if (esTurnoHumano) {
+                    reflexion.iniciar(tabla);
+                    jugada = gestionTurnoHumano(sc, tabla, turnoDeBlancas);
+                } else {
+                    jugada = gestionTurnoIA(ia, reflexion, tabla, turnoDeBlancas, aiEsParalelo);
+                }
+                if (jugada != null) {
+                    jugadas.add(jugada);
+                }
 
-            // Solo cambia de turno si no hay capturas adicionales disponibles después de una captura
-            if (seEjecutoCaptura && nohayCapturasAdicionales(tabla, turnoDeBlancas)) {
-                turnoDeBlancas = !turnoDeBlancas;
-            } else if (!seEjecutoCaptura) {
+                // Las capturas múltiples son un único movimiento, así que el turno siempre cambia
                 turnoDeBlancas = !turnoDeBlancas;
             }
+        } finally {
+            reflexion.detener();
+            ia.getEstadisticas().desregistrar();
         }
 
-        finalizarPartida(tabla);
+        finalizarPartida(tabla, jugadas);
     }
 
     /**
@@ -108,27 +437,30 @@ public class Main {
      */
     public static void jugarHumanoVsHumano(Scanner sc) {
         Tabla tabla = new Tabla();
+        List<Movimiento> jugadas = new ArrayList<>();
         imprimirBannerJuego(false, true);
         boolean turnoDeBlancas = true;
 
         while (!tabla.haTerminado()) {
             System.out.println(tabla);
-            boolean seEjecutoCaptura = gestionTurnoHumano(sc, tabla, turnoDeBlancas);
-
-            // Solo cambia de turno si no hay capturas adicionales disponibles después de una captura
-            if (seEjecutoCaptura && nohayCapturasAdicionales(tabla, turnoDeBlancas)) {
-                turnoDeBlancas = !turnoDeBlancas;
-            } else if (!seEjecutoCaptura) {
-                turnoDeBlancas = !turnoDeBlancas;
+            Movimiento jugada = gestionTurnoHumano(sc, tabla, turnoDeBlancas);
+            if (jugada != null) {
+                jugadas.add(jugada);
             }
+            turnoDeBlancas = !turnoDeBlancas;
         }
-        finalizarPartida(tabla);
+        finalizarPartida(tabla, jugadas);
     }
 
-    private static boolean gestionTurnoHumano(Scanner sc, Tabla tabla, boolean esTurnoDeBlancas)
+    /**
+     * Pide al humano su movimiento y lo ejecuta.
+     *
+     * @return El movimiento ejecutado, o null si no tenía movimientos.
+     */
+    private static Movimiento gestionTurnoHumano(Scanner sc, Tabla tabla, boolean esTurnoDeBlancas)
     {
         List<Movimiento> movimientosDisponibles = tabla.getMovimientosDisponibles(esTurnoDeBlancas);
-        if (movimientosDisponibles.isEmpty()) return false;
+        if (movimientosDisponibles.isEmpty()) return null;
 
         mostrarCapturasObligatorias(movimientosDisponibles);
 
@@ -138,56 +470,58 @@ public class Main {
 
             try {
                 String input = sc.next().toLowerCase();
-                Movimiento movimiento = new Movimiento(input);
+                Movimiento movimiento = buscarEnLista(new Movimiento(input), movimientosDisponibles);
 
-                if (esMovimientoValidoEnLista(movimiento, movimientosDisponibles)) {
-                    boolean esCaptura = movimiento.esCaptura();
+                if (movimiento != null) {
                     tabla.ejecutarMovimiento(movimiento, esTurnoDeBlancas);
                     System.out.println("Movimiento ejecutado: " + movimiento);
-                    return esCaptura;
+                    return movimiento;
                 } else {
                     System.out.println("¡Movimiento inválido! Inténtelo de nuevo.");
                     mostrarMovimientosDisponibles(movimientosDisponibles);
                     // Continúa el bucle para pedir otro movimiento
                 }
             } catch (IllegalArgumentException e) {
-                System.out.println("Formato de movimiento inválido. Use el formato: a1-b2");
+                System.out.println("Formato de movimiento inválido. Use el formato: a1-b2 (capturas múltiples: a1-c3-e5)");
                 // Continúa el bucle para pedir otro movimiento
             }
         }
     }
 
-    private static boolean gestionTurnoIA(AIPlayer ia, Tabla tabla, boolean esTurnoDeBlancas, boolean esParalelo) {
+    /**
+     * Calcula y ejecuta el movimiento de la IA.
+     *
+     * @return El movimiento ejecutado, o null si la IA no tenía movimientos.
+     */
+    private static Movimiento gestionTurnoIA(AIPlayer ia, Reflexion reflexion, Tabla tabla, boolean esTurnoDeBlancas,
+                                             boolean esParalelo) {
         System.out.println("\nTurno de la IA (" + (esTurnoDeBlancas ? "BLANCAS (●/◆)" : "NEGRAS (○/◇)") + ")...");
         System.out.println("La IA está pensando (usando procesamiento " + (esParalelo ? "paralelo" : "secuencial") + ")...");
 
         long startTime = System.currentTimeMillis();
-        Movimiento aiMove = esParalelo ? ia.getBestMove(tabla) : ia.getBestMoveSequential(tabla);
+        Movimiento aiMove = reflexion.obtener(tabla);
+        boolean reflexionado = aiMove != null;
+        if (!reflexionado) {
+            aiMove = esParalelo ? ia.getBestMove(tabla) : ia.getBestMoveSequential(tabla);
+        }
         long endTime = System.currentTimeMillis();
 
         if (aiMove != null) {
-            boolean esCaptura = aiMove.esCaptura();
             tabla.ejecutarMovimiento(aiMove, esTurnoDeBlancas);
             System.out.println("La IA mueve: " + aiMove + " (Tiempo: " + (endTime - startTime) + "ms)");
-            return esCaptura;
+            String resumen = ia.getResumenUltimaBusqueda();
+            if (reflexionado) {
+                System.out.println("Respuesta calculada durante el turno del rival");
+            } else if (resumen != null) {
+                System.out.println("Búsqueda: " + resumen);
+            }
         } else {
             System.out.println("La IA no tiene movimientos disponibles.");
-            return false;
         }
+        return aiMove;
     }
 
-    private static boolean nohayCapturasAdicionales(Tabla tabla, boolean esTurnoDeBlancas) {
-        List<Movimiento> movimientos = tabla.getMovimientosDisponibles(esTurnoDeBlancas);
-        // Si el primer movimiento disponible es una captura, significa que hay más capturas obligatorias.
-        if (!movimientos.isEmpty() && movimientos.getFirst().esCaptura()) {
-            System.out.println("¡Puedes hacer capturas adicionales con la misma pieza!");
-            mostrarMovimientosDisponibles(movimientos);
-            return false;
-        }
-        return true;
-    }
-
-    private static void finalizarPartida(Tabla tabla) {
+    private static void finalizarPartida(Tabla tabla, List<Movimiento> jugadas) {
         System.out.println("\n" + "=".repeat(50));
         System.out.println(tabla);
         System.out.println("=".repeat(50));
@@ -196,14 +530,15 @@ public class Main {
         if (ganador != null) {
             System.out.println("🏆 GANADOR: " + ganador + " 🏆");
         }
+        guardarPartida(jugadas);
     }
 
     // --- Métodos de ayuda para la interfaz de usuario ---
 
     private static void imprimirBannerJuego(boolean contraIA, boolean jugadorEsBlanco) {
         System.out.println("\n¡Qué comience el juego!");
-        System.out.println("Formato de movimiento: a1-b2");
-        System.out.println("Reglas: Las capturas son obligatorias.");
+        System.out.println("Formato de movimiento: a1-b2 (capturas múltiples: a1-c3-e5)");
+        System.out.println("Reglas: Las capturas son obligatorias y deben completarse.");
         if (contraIA) {
             System.out.println("Usted juega como: " + (jugadorEsBlanco ? "BLANCAS (●/◆)" : "NEGRAS (○/◇)"));
             System.out.println("La IA juega como: " + (!jugadorEsBlanco ? "BLANCAS (●/◆)" : "NEGRAS (○/◇)"));
@@ -227,13 +562,27 @@ public class Main {
         }
     }
 
-    private static boolean esMovimientoValidoEnLista(Movimiento mov, List<Movimiento> lista) {
+    /**
+     * Busca en la lista el movimiento que indicó el usuario. Una captura múltiple se puede escribir
+     * completa o solo con su origen y destino, si no hay otra cadena con los mismos extremos.
+     *
+     * @return El movimiento de la lista, o null si no está o es ambiguo.
+     */
+    private static Movimiento buscarEnLista(Movimiento mov, List<Movimiento> lista) {
+        Movimiento encontrado = null;
         for (Movimiento valido : lista) {
-            if (valido.filaOrigen == mov.filaOrigen && valido.columnaOrigen == mov.columnaOrigen &&
+            if (valido.equals(mov)) {
+                return valido;
+            }
+            if (mov.getNumeroCasillas() == 2 &&
+                valido.filaOrigen == mov.filaOrigen && valido.columnaOrigen == mov.columnaOrigen &&
                 valido.filaDestino == mov.filaDestino && valido.columnaDestino == mov.columnaDestino) {
-                return true;
+                if (encontrado != null) {
+                    return null;
+                }
+                encontrado = valido;
             }
         }
-        return false;
+        return encontrado;
     }
 }
@@ -1,39 +1,249 @@
 package org.project.game_objects;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Representa al jugador de inteligencia artificial (IA).
  * Utiliza el algoritmo Minimax con poda Alfa-Beta para determinar el mejor movimiento.
+ * <p>
+ * Una IA está pensada para una búsqueda desde la raíz a la vez, aunque esa búsqueda use varios
+ * hilos. Cada búsqueda avanza la generación de la tabla de transposición y pasa a ser la última
+ * búsqueda, así que varias búsquedas simultáneas con la misma IA se quitan la generación unas a
+ * otras y el resumen de la última corresponde a cualquiera de ellas. Quien las lance a la vez debe
+ * llamar a {@link #setGeneracionExterna} y avanzar la generación él mismo con
+ * {@link #nuevaGeneracion()}.
  */
 public class AIPlayer {
-    // Constantes para la evaluación del tablero
-    private static final int VALOR_REY = 30;
-    private static final int VALOR_PIEZA = 10;
-    private static final int PUNTUACION_VICTORIA = 10000;
-    private static final int BONIFICACION_CENTRO = 5;
+    // Constantes para la evaluación del tablero. Material, avance y centro los suma Tabla al mover
+    static final int VALOR_REY = 30;
+    static final int VALOR_PIEZA = 10;
+    static final int PUNTUACION_VICTORIA = 10000;
+    static final int BONIFICACION_CENTRO = 5;
     private static final int BONIFICACION_MOVILIDAD = 2;
+    private static final int BONIFICACION_APOYO = 3;
+    /**
+     * Tamaño por defecto de la tabla de transposición, en megabytes.
+     */
+    public static final int TAMANO_TABLA_TRANSPOSICION_MB = 32;
+    /**
+     * Tamaño por defecto de la caché de evaluaciones, en kilobytes: lo bastante pequeña para
+     * quedarse en la caché L2 del procesador.
+     */
+    public static final int TAMANO_CACHE_EVALUACION_KB = 256;
+    /**
+     * Profundidad máxima que puede alcanzar la profundización iterativa, aunque quede tiempo.
+     */
+    private static final int PROFUNDIDAD_LIMITE = 64;
+    /**
+     * Valor de {@link #puntuacionFinales} cuando la posición no está en la base de finales.
+     */
+    static final int SIN_FINALES = Integer.MIN_VALUE;
     /**
      * El color de las piezas que controla la IA (true si son blancas, false si son negras).
      */
-    private final boolean esBlanca;
+    final boolean esBlanca;
     /**
      * La profundidad máxima de búsqueda en el árbol de Minimax.
      * Un valor más alto implica una IA más fuerte pero más lenta.
      */
     private final int profundidadMaxima;
+    /**
+     * Tabla de transposición compartida por todos los hilos de búsqueda de esta IA.
+     * Se conserva entre turnos para reutilizar el trabajo de búsquedas anteriores.
+     */
+    final TablaTransposicion tablaTransposicion;
+    /**
+     * Número de hilos que usa la búsqueda Lazy SMP, incluido el que la invoca.
+     */
+    final int numHilos;
+    /**
+     * Hilos auxiliares de Lazy SMP; se crean la primera vez que se usan.
+     */
+    private ExecutorService hilosAuxiliares;
+    /**
+     * Base de finales que se consulta durante la búsqueda, o null si no se usa.
+     */
+    private volatile BaseFinales baseFinales;
+    /**
+     * Libro de aperturas que se consulta antes de buscar, o null si no se usa.
+     */
+    private volatile LibroAperturas libroAperturas;
+    /**
+     * Si es false, la evaluación solo usa los términos que Tabla mantiene al mover (material,
+     * avance y centro), sin movilidad ni estructura.
+     */
+    private volatile boolean evaluacionPosicional = true;
+    /**
+     * Caché de evaluaciones de hojas compartida por todos los hilos de búsqueda de esta IA, o null
+     * si no se usa. Se conserva entre turnos, como la tabla de transposición.
+     */
+    private volatile CacheEvaluacion cacheEvaluacion = new CacheEvaluacion(TAMANO_CACHE_EVALUACION_KB);
+    /**
+     * Control de la última búsqueda desde la raíz, o null si el último movimiento se eligió sin
+     * buscar.
+     */
+    private volatile ControlBusqueda ultimaBusqueda;
+    /**
+     * Si es true, las búsquedas no avanzan la generación de la tabla de transposición; la avanza
+     * con {@link #nuevaGeneracion()} quien coordina varias búsquedas simultáneas.
+     */
+    private volatile boolean generacionExterna;
+    /**
+     * Estadísticas acumuladas de todas las búsquedas de esta IA.
+     */
+    private final EstadisticasBusqueda estadisticas = new EstadisticasBusqueda();
 
     /**
-     * Construye un nuevo jugador de IA.
+     * Construye un nuevo jugador de IA con una tabla de transposición del tamaño por defecto.
      *
      * @param esBlanca          El color de las piezas de la IA.
      * @param profundidadMaxima La profundidad de búsqueda del algoritmo Minimax.
      */
     public AIPlayer(boolean esBlanca, int profundidadMaxima) {
+        this(esBlanca, profundidadMaxima, TAMANO_TABLA_TRANSPOSICION_MB);
+    }
+
+    /**
+     * Construye un nuevo jugador de IA que usa un hilo por procesador en Lazy SMP.
+     *
+     * @param esBlanca                 El color de las piezas de la IA.
+     * @param profundidadMaxima        La profundidad de búsqueda del algoritmo Minimax.
+     * @param tamanoTablaTransposicion El tamaño de la tabla de transposición en megabytes.
+     */
+    public AIPlayer(boolean esBlanca, int profundidadMaxima, int tamanoTablaTransposicion) {
+        this(esBlanca, profundidadMaxima, tamanoTablaTransposicion, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Construye un nuevo jugador de IA.
+     *
+     * @param esBlanca                 El color de las piezas de la IA.
+     * @param profundidadMaxima        La profundidad de búsqueda del algoritmo Minimax.
+     * @param tamanoTablaTransposicion El tamaño de la tabla de transposición en megabytes.
+     * @param numHilos                 El número de hilos de la búsqueda Lazy SMP.
+     */
+    public AIPlayer(boolean esBlanca, int profundidadMaxima, int tamanoTablaTransposicion, int numHilos) {
+        if (numHilos <= 0) {
+            throw new IllegalArgumentException("El número de hilos debe ser positivo");
+        }
         this.esBlanca = esBlanca;
         this.profundidadMaxima = profundidadMaxima;
+        this.tablaTransposicion = new TablaTransposicion(tamanoTablaTransposicion);
+        this.numHilos = numHilos;
+    }
+
+    /**
+     * Establece la base de finales que consulta la búsqueda. Las posiciones que están en la base se
+     * puntúan con su resultado exacto, sin buscar más, y en la raíz se elige directamente el
+     * movimiento que la base indica.
+     *
+     * @param baseFinales La base de finales, o null para no usarla.
+     */
+    public void setBaseFinales(BaseFinales baseFinales) {
+        this.baseFinales = baseFinales;
+    }
+
+    /**
+     * Establece el libro de aperturas. Si la posición está en el libro, se juega su movimiento sin
+     * buscar.
+     *
+     * @param libroAperturas El libro de aperturas, o null para no usarlo.
+     */
+    public void setLibroAperturas(LibroAperturas libroAperturas) {
+        this.libroAperturas = libroAperturas;
+    }
+
+    /**
+     * Activa o desactiva los términos posicionales de la evaluación (movilidad y estructura), para
+     * comparar evaluadores entre sí.
+     *
+     * @param evaluacionPosicional false para evaluar solo material, avance y centro.
+     */
+    public void setEvaluacionPosicional(boolean evaluacionPosicional) {
+        this.evaluacionPosicional = evaluacionPosicional;
+        limpiarCacheEvaluacion();
+    }
+
+    /**
+     * Cambia el tamaño de la caché de evaluaciones, que se vacía. Debe llamarse entre búsquedas.
+     *
+     * @param tamanoKB El tamaño en kilobytes, o 0 para no usar la caché.
+     */
+    public void setTamanoCacheEvaluacion(int tamanoKB) {
+        if (tamanoKB < 0) {
+            throw new IllegalArgumentException("El tamaño de la caché de evaluación no puede ser negativo");
+        }
+        this.cacheEvaluacion = tamanoKB == 0 ? null : new CacheEvaluacion(tamanoKB);
+    }
+
+    /**
+     * Vacía la caché de evaluaciones, si se usa. Debe llamarse entre búsquedas.
+     */
+    void limpiarCacheEvaluacion() {
+        CacheEvaluacion cache = cacheEvaluacion;
+        if (cache != null) {
+            cache.limpiar();
+        }
+    }
+
+    /**
+     * Hace que las búsquedas dejen de avanzar la generación de la tabla de transposición, para
+     * lanzar varias a la vez con esta IA. Las entradas de la tabla se consideran de la búsqueda
+     * actual hasta la siguiente llamada a {@link #nuevaGeneracion()}.
+     *
+     * @param generacionExterna true para avanzar la generación desde fuera, false para que la
+     *                          avance cada búsqueda.
+     */
+    void setGeneracionExterna(boolean generacionExterna) {
+        this.generacionExterna = generacionExterna;
+    }
+
+    /**
+     * Avanza la generación de la tabla de transposición, para que las entradas anteriores se
+     * reemplacen con preferencia.
+     */
+    void nuevaGeneracion() {
+        tablaTransposicion.nuevaBusqueda();
+    }
+
+    /**
+     * Obtiene los nodos visitados por la última búsqueda, incluidos los de quiescencia.
+     *
+     * @return El número de nodos, o 0 si el último movimiento se eligió sin buscar (movimiento
+     *         único, libro de aperturas o base de finales).
+     */
+    public long getNodosUltimaBusqueda() {
+        ControlBusqueda control = ultimaBusqueda;
+        return control == null ? 0 : control.getNodos();
+    }
+
+    /**
+     * Obtiene las estadísticas acumuladas de las búsquedas de esta IA, que se pueden registrar como
+     * MBean con {@link EstadisticasBusqueda#registrar}.
+     *
+     * @return Las estadísticas.
+     */
+    public EstadisticasBusqueda getEstadisticas() {
+        return estadisticas;
+    }
+
+    /**
+     * Resume la última búsqueda: profundidad, nodos, velocidad, factor de ramificación efectivo,
+     * podas en el primer movimiento, aciertos en la tabla de transposición y tareas paralelas.
+     *
+     * @return El resumen, o null si el último movimiento se eligió sin buscar.
+     */
+    public String getResumenUltimaBusqueda() {
+        ControlBusqueda control = ultimaBusqueda;
+        return control == null ? null : control.resumen();
     }
 
     /**
@@ -53,19 +263,39 @@ public class AIPlayer {
         if (movimientosDisponibles.isEmpty()) {
             return null;
         }
-        if (movimientosDisponibles.size() == 1) {
-            return movimientosDisponibles.getFirst();
+        Movimiento movimientoDirecto = movimientoSinBuscar(tabla, movimientosDisponibles);
+        if (movimientoDirecto != null) {
+            return movimientoDirecto;
         }
 
+        ControlBusqueda control = iniciarBusqueda(0, 0);
+        Movimiento mejorMovimiento = buscarParalelo(tabla, movimientosDisponibles, control);
+        terminarBusqueda(control, profundidadMaxima);
+        return mejorMovimiento;
+    }
+
+    /**
+     * Búsqueda a profundidad fija que reparte los movimientos de la raíz entre los hilos de un
+     * stream paralelo.
+     *
+     * @param tabla                  El estado actual del tablero, que no se modifica.
+     * @param movimientosDisponibles Los movimientos de la raíz, al menos uno.
+     * @param control                El control de la búsqueda.
+     * @return El mejor movimiento encontrado; si el control se detuvo, no es fiable.
+     */
+    private Movimiento buscarParalelo(Tabla tabla, List<Movimiento> movimientosDisponibles, ControlBusqueda control) {
         AtomicReference<Movimiento> mejorMovimiento = new AtomicReference<>(movimientosDisponibles.getFirst());
         AtomicInteger mejorPuntuacion = new AtomicInteger(Integer.MIN_VALUE);
 
         // Evalúa los movimientos en paralelo para acelerar la búsqueda
+        // Cada tarea trabaja sobre su propia copia del tablero, que luego modifica en el sitio
+        control.sumarTareas(movimientosDisponibles.size());
         movimientosDisponibles.parallelStream().forEach(movimiento -> {
-            Tabla tableroSimulado = new Tabla(tabla);
-            tableroSimulado.ejecutarMovimiento(movimiento, esBlanca);
+            ContextoBusqueda contexto = new ContextoBusqueda(tabla, control);
+            contexto.tabla.hacerMovimiento(movimiento, esBlanca);
 
-            int puntuacion = minimax(tableroSimulado, profundidadMaxima - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+            int puntuacion = minimax(contexto, profundidadMaxima - 1, 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+            contexto.finalizar();
 
             // Actualización atómica del mejor movimiento encontrado usando compareAndSet
             // para evitar condiciones de carrera
@@ -99,159 +329,780 @@ public class AIPlayer {
         if (movimientosDisponibles.isEmpty()) {
             return null;
         }
-        if (movimientosDisponibles.size() == 1) {
-            return movimientosDisponibles.getFirst();
+        Movimiento movimientoDirecto = movimientoSinBuscar(tabla, movimientosDisponibles);
+        if (movimientoDirecto != null) {
+            return movimientoDirecto;
         }
 
+        ControlBusqueda control = iniciarBusqueda(0, 0);
+        Movimiento mejorMovimiento = buscarSecuencial(tabla, movimientosDisponibles, control);
+        terminarBusqueda(control, profundidadMaxima);
+        return mejorMovimiento;
+    }
+
+    /**
+     * Búsqueda a profundidad fija que prueba los movimientos de la raíz uno tras otro en el hilo que
+     * llama.
+     *
+     * @param tabla                  El estado actual del tablero, que no se modifica.
+     * @param movimientosDisponibles Los movimientos de la raíz, al menos uno.
+     * @param control                El control de la búsqueda.
+     * @return El mejor movimiento encontrado; si el control se detuvo, no es fiable.
+     */
+    private Movimiento buscarSecuencial(Tabla tabla, List<Movimiento> movimientosDisponibles, ControlBusqueda control) {
         Movimiento mejorMovimiento = movimientosDisponibles.getFirst();
         int mejorPuntuacion = Integer.MIN_VALUE;
 
-        // Evalúa los movimientos de forma secuencial
+        // Evalúa los movimientos de forma secuencial sobre una única copia del tablero
+        ContextoBusqueda contexto = new ContextoBusqueda(tabla, control);
         for (Movimiento movimiento : movimientosDisponibles) {
-            Tabla tableroSimulado = new Tabla(tabla);
-            tableroSimulado.ejecutarMovimiento(movimiento, esBlanca);
-
-            int puntuacion = minimax(tableroSimulado, profundidadMaxima - 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+            contexto.tabla.hacerMovimiento(movimiento, esBlanca);
+            int puntuacion = minimax(contexto, profundidadMaxima - 1, 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+            contexto.tabla.deshacerMovimiento();
 
             if (puntuacion > mejorPuntuacion) {
                 mejorPuntuacion = puntuacion;
                 mejorMovimiento = movimiento;
             }
         }
+        contexto.finalizar();
 
         return mejorMovimiento;
     }
 
 
+    /**
+     * Encuentra el mejor movimiento con la búsqueda paralela "Young Brothers Wait": en cada nodo
+     * interior se busca primero el hermano mayor y luego los menores en paralelo sobre el
+     * {@link java.util.concurrent.ForkJoinPool} común, cancelándolos si uno de ellos produce una poda.
+     *
+     * @param tabla El estado actual del tablero.
+     * @return El mejor movimiento encontrado.
+     */
+    public Movimiento getBestMoveYBW(Tabla tabla) {
+        // Validación de entrada
+        if (tabla == null) {
+            throw new IllegalArgumentException("El tablero no puede ser null");
+        }
+
+        List<Movimiento> movimientosDisponibles = tabla.getMovimientosDisponibles(esBlanca);
+
+        if (movimientosDisponibles.isEmpty()) {
+            return null;
+        }
+        Movimiento movimientoDirecto = movimientoSinBuscar(tabla, movimientosDisponibles);
+        if (movimientoDirecto != null) {
+            return movimientoDirecto;
+        }
+
+        ControlBusqueda control = iniciarBusqueda(0, 0);
+        long entrada = tablaTransposicion.buscar(tabla.getHash(esBlanca));
+        if (entrada != TablaTransposicion.SIN_ENTRADA) {
+            adelantarMovimiento(movimientosDisponibles, TablaTransposicion.movimiento(entrada));
+        }
+        Movimiento mejorMovimiento = new BusquedaYBW(this, control).buscar(tabla, movimientosDisponibles, profundidadMaxima);
+        terminarBusqueda(control, profundidadMaxima);
+        return mejorMovimiento;
+    }
+
+    /**
+     * Encuentra el mejor movimiento mediante profundización iterativa: busca a profundidad 1, 2, 3...
+     * hasta que se agota el tiempo o el número de nodos permitidos, y devuelve el mejor movimiento de
+     * la última iteración completa. Cada iteración ordena los movimientos de la siguiente, tanto en la
+     * raíz (según las puntuaciones obtenidas) como en el resto del árbol (mediante la tabla de
+     * transposición), por lo que las iteraciones tempranas cuestan poco.
+     *
+     * @param tabla          El estado actual del tablero.
+     * @param tiempoMaximoMs El tiempo máximo de búsqueda en milisegundos, o 0 para no limitarlo.
+     * @param nodosMaximos   El número máximo de nodos a visitar, o 0 para no limitarlo.
+     * @return El mejor movimiento encontrado.
+     */
+    public Movimiento getBestMoveIterativo(Tabla tabla, long tiempoMaximoMs, long nodosMaximos) {
+        // Validación de entrada
+        if (tabla == null) {
+            throw new IllegalArgumentException("El tablero no puede ser null");
+        }
+        if (tiempoMaximoMs <= 0 && nodosMaximos <= 0) {
+            throw new IllegalArgumentException("La profundización iterativa necesita un límite de tiempo o de nodos");
+        }
+
+        List<Movimiento> movimientosDisponibles = tabla.getMovimientosDisponibles(esBlanca);
+
+        if (movimientosDisponibles.isEmpty()) {
+            return null;
+        }
+        Movimiento movimientoDirecto = movimientoSinBuscar(tabla, movimientosDisponibles);
+        if (movimientoDirecto != null) {
+            return movimientoDirecto;
+        }
+
+        ControlBusqueda control = iniciarBusqueda(tiempoMaximoMs, nodosMaximos);
+        ContextoBusqueda contexto = new ContextoBusqueda(tabla, control);
+        MejorIteracion resultado = new MejorIteracion(movimientosDisponibles.getFirst());
+        profundizar(contexto, new ArrayList<>(movimientosDisponibles), PROFUNDIDAD_LIMITE, 0, resultado);
+        contexto.finalizar();
+        terminarBusqueda(control, resultado.getProfundidad());
+        return resultado.getMovimiento();
+    }
+
+    /**
+     * Encuentra el mejor movimiento con Lazy SMP: varios hilos ejecutan la misma profundización
+     * iterativa desde la raíz, con profundidades y órdenes de la raíz ligeramente distintos, y solo
+     * se comunican a través de la tabla de transposición compartida. A diferencia de repartir los
+     * movimientos de la raíz, aprovecha todos los hilos aunque la raíz tenga muy pocos movimientos.
+     * <p>
+     * La búsqueda llega como máximo a la profundidad configurada y se detiene antes si se agota el
+     * tiempo o el número de nodos; se devuelve el mejor movimiento de la iteración completa más
+     * profunda de cualquiera de los hilos.
+     *
+     * @param tabla          El estado actual del tablero.
+     * @param tiempoMaximoMs El tiempo máximo de búsqueda en milisegundos, o 0 para no limitarlo.
+     * @param nodosMaximos   El número máximo de nodos a visitar, o 0 para no limitarlo.
+     * @return El mejor movimiento encontrado.
+     */
+    public Movimiento getBestMoveLazySMP(Tabla tabla, long tiempoMaximoMs, long nodosMaximos) {
+        // Validación de entrada
+        if (tabla == null) {
+            throw new IllegalArgumentException("El tablero no puede ser null");
+        }
+
+        List<Movimiento> movimientosDisponibles = tabla.getMovimientosDisponibles(esBlanca);
+
+        if (movimientosDisponibles.isEmpty()) {
+            return null;
+        }
+        Movimiento movimientoDirecto = movimientoSinBuscar(tabla, movimientosDisponibles);
+        if (movimientoDirecto != null) {
+            return movimientoDirecto;
+        }
+
+        ControlBusqueda control = iniciarBusqueda(tiempoMaximoMs, nodosMaximos);
+        MejorIteracion resultado = new MejorIteracion(movimientosDisponibles.getFirst());
+        new BusquedaLazySMP(this, control).buscar(tabla, movimientosDisponibles, profundidadMaxima, resultado);
+        terminarBusqueda(control, resultado.getProfundidad());
+        return resultado.getMovimiento();
+    }
+
+    /**
+     * Lanza una búsqueda asíncrona en el {@link ForkJoinPool} común.
+     *
+     * @see #buscarAsincrono(Tabla, boolean, long, Executor)
+     */
+    public BusquedaAsincrona buscarAsincrono(Tabla tabla, boolean paralelo, long plazoMs) {
+        return buscarAsincrono(tabla, paralelo, plazoMs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Lanza una búsqueda sin bloquear al que llama. Es una profundización iterativa hasta la
+     * profundidad configurada: en un solo hilo con el motor secuencial, o con Lazy SMP (y sus hilos
+     * auxiliares) con el paralelo. El futuro devuelto se completa con el mejor movimiento al terminar
+     * o al agotarse el plazo, y cancelarlo detiene la búsqueda y libera sus hilos.
+     *
+     * @param tabla    El estado actual del tablero; se copia, así que se puede modificar después.
+     * @param paralelo True para buscar con Lazy SMP, false para buscar en un solo hilo.
+     * @param plazoMs  El plazo en milisegundos, contado desde que la búsqueda empieza a ejecutarse en
+     *                 el ejecutor, o 0 para buscar hasta la profundidad configurada.
+     * @param ejecutor El ejecutor en el que corre el hilo principal de la búsqueda.
+     * @return La búsqueda en curso; se completa con null si la IA no tiene movimientos.
+     */
+    public BusquedaAsincrona buscarAsincrono(Tabla tabla, boolean paralelo, long plazoMs, Executor ejecutor) {
+        // Validación de entrada
+        if (tabla == null) {
+            throw new IllegalArgumentException("El tablero no puede ser null");
+        }
+        if (ejecutor == null) {
+            throw new IllegalArgumentException("El ejecutor no puede ser null");
+        }
+        if (plazoMs < 0) {
+            throw new IllegalArgumentException("El plazo no puede ser negativo");
+        }
+
+        Tabla copia = new Tabla(tabla);
+        List<Movimiento> movimientosDisponibles = copia.getMovimientosDisponibles(esBlanca);
+        Movimiento movimientoDirecto = movimientosDisponibles.isEmpty()
+                ? null : movimientoSinBuscar(copia, movimientosDisponibles);
+        if (movimientoDirecto != null || movimientosDisponibles.isEmpty()) {
+            return BusquedaAsincrona.sinBusqueda(movimientoDirecto);
+        }
+
+        MejorIteracion resultado = new MejorIteracion(movimientosDisponibles.getFirst());
+        BusquedaAsincrona busqueda = new BusquedaAsincrona(resultado, plazoMs);
+        try {
+            ejecutor.execute(() -> {
+                try {
+                    if (busqueda.isDone()) {
+                        return; // Cancelada antes de empezar
+                    }
+                    // El plazo y el control empiezan aquí, no al encolar la tarea
+                    ControlBusqueda control = iniciarBusqueda(plazoMs, 0);
+                    busqueda.iniciar(control);
+                    if (paralelo) {
+                        new BusquedaLazySMP(this, control).buscar(copia, movimientosDisponibles, profundidadMaxima, resultado);
+                    } else {
+                        ContextoBusqueda contexto = new ContextoBusqueda(copia, control);
+                        profundizar(contexto, new ArrayList<>(movimientosDisponibles), profundidadMaxima, 0, resultado);
+                        contexto.finalizar();
+                    }
+                    terminarBusqueda(control, resultado.getProfundidad());
+                    busqueda.completarConMejor();
+                } catch (RuntimeException | Error e) {
+                    busqueda.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            busqueda.completeExceptionally(e); // Ejecutor cerrado o saturado
+        }
+        return busqueda;
+    }
+
+    /**
+     * Analiza una posición con profundización iterativa hasta la profundidad configurada, en el hilo
+     * que llama y sin consultar el libro ni la base de finales, para obtener también la puntuación.
+     * Varios hilos pueden analizar a la vez posiciones distintas con la misma IA si la generación se
+     * avanza desde fuera ({@link #setGeneracionExterna}).
+     *
+     * @param tabla          La posición, con turno de la IA; no se modifica.
+     * @param tiempoMaximoMs El tiempo máximo en milisegundos, o 0 para no limitarlo.
+     * @return La iteración completa más profunda, o null si la IA no tiene movimientos.
+     */
+    MejorIteracion analizar(Tabla tabla, long tiempoMaximoMs) {
+        List<Movimiento> movimientosDisponibles = tabla.getMovimientosDisponibles(esBlanca);
+        if (movimientosDisponibles.isEmpty()) {
+            return null;
+        }
+        ControlBusqueda control = iniciarBusqueda(tiempoMaximoMs, 0);
+        ContextoBusqueda contexto = new ContextoBusqueda(tabla, control);
+        MejorIteracion resultado = new MejorIteracion(movimientosDisponibles.getFirst());
+        profundizar(contexto, new ArrayList<>(movimientosDisponibles), profundidadMaxima, 0, resultado);
+        contexto.finalizar();
+        terminarBusqueda(control, resultado.getProfundidad());
+        return resultado;
+    }
+
+    /**
+     * Busca el movimiento de la IA en una posición hipotética, para reflexionar durante el turno del
+     * rival. Usa el mismo motor a profundidad fija que {@link #getBestMove} o
+     * {@link #getBestMoveSequential}, pero con un control propio que se puede detener en cualquier
+     * momento, y no cuenta como la última búsqueda ni suma a las estadísticas. Lo que aprende queda
+     * en la tabla de transposición.
+     *
+     * @param tabla     La posición, con turno de la IA; no se modifica.
+     * @param paralelo  True para usar el motor paralelo.
+     * @param control   El control de la búsqueda.
+     * @return El movimiento elegido, o null si no hay movimientos o el control se detuvo antes de
+     *         terminar.
+     */
+    Movimiento reflexionar(Tabla tabla, boolean paralelo, ControlBusqueda control) {
+        List<Movimiento> movimientosDisponibles = tabla.getMovimientosDisponibles(esBlanca);
+        if (movimientosDisponibles.isEmpty()) {
+            return null;
+        }
+        Movimiento movimiento = movimientoDirecto(tabla, movimientosDisponibles);
+        if (movimiento == null) {
+            movimiento = paralelo
+                    ? buscarParalelo(tabla, movimientosDisponibles, control)
+                    : buscarSecuencial(tabla, movimientosDisponibles, control);
+        }
+        return control.estaDetenida() ? null : movimiento;
+    }
+
+    /**
+     * Predice la respuesta del rival en una posición: el mejor movimiento que la tabla de
+     * transposición guarda para ella, normalmente el de la variante principal de la última búsqueda.
+     *
+     * @param tabla El estado del tablero, con turno del rival.
+     * @return La respuesta esperada, o null si la posición no está en la tabla.
+     */
+    Movimiento predecirRespuesta(Tabla tabla) {
+        long entrada = tablaTransposicion.buscar(tabla.getHash(!esBlanca));
+        if (entrada == TablaTransposicion.SIN_ENTRADA) {
+            return null;
+        }
+        int codigo = TablaTransposicion.movimiento(entrada);
+        for (Movimiento movimiento : tabla.getMovimientosDisponibles(!esBlanca)) {
+            if ((Tabla.codificar(movimiento) & Tabla.MASCARA_ORIGEN_DESTINO) == codigo) {
+                return movimiento;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Prepara una búsqueda desde la raíz: avanza la generación de la tabla de transposición, salvo
+     * que la avance quien coordina las búsquedas, y crea el control que comparten los hilos de la
+     * búsqueda.
+     */
+    private ControlBusqueda iniciarBusqueda(long tiempoMaximoMs, long nodosMaximos) {
+        if (!generacionExterna) {
+            tablaTransposicion.nuevaBusqueda();
+        }
+        ControlBusqueda control = new ControlBusqueda(tiempoMaximoMs, nodosMaximos);
+        ultimaBusqueda = control;
+        return control;
+    }
+
+    /**
+     * Cierra una búsqueda desde la raíz, cuando todos sus hilos ya terminaron, y suma sus
+     * estadísticas a las acumuladas.
+     */
+    private void terminarBusqueda(ControlBusqueda control, int profundidadAlcanzada) {
+        control.terminar(profundidadAlcanzada);
+        estadisticas.acumular(control);
+    }
+
+    /**
+     * Obtiene el ejecutor de los hilos auxiliares de Lazy SMP, creándolo la primera vez.
+     * Sus hilos son demonios para no impedir que termine el programa.
+     */
+    synchronized ExecutorService getHilosAuxiliares() {
+        if (hilosAuxiliares == null) {
+            hilosAuxiliares = Executors.newFixedThreadPool(Math.max(1, numHilos - 1), tarea -> {
+                Thread hilo = new Thread(tarea, "lazy-smp-" + (esBlanca ? "blancas" : "negras"));
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+        return hilosAuxiliares;
+    }
+
+    /**
+     * Bucle de profundización iterativa de un hilo: busca la raíz a profundidad 1, 2, 3... hasta el
+     * límite, reordenando la raíz con las puntuaciones de cada iteración, y publica en el resultado
+     * cada iteración que completa.
+     *
+     * @param contexto          El contexto del hilo que busca.
+     * @param orden             Los movimientos de la raíz en el orden inicial; la lista se reemplaza
+     *                          por una nueva en cada iteración.
+     * @param profundidadLimite La profundidad máxima a alcanzar.
+     * @param desfase           Profundidad adicional que busca este hilo en cada iteración.
+     * @param resultado         Donde se publica el mejor movimiento de cada iteración completa.
+     */
+    void profundizar(ContextoBusqueda contexto, List<Movimiento> orden, int profundidadLimite, int desfase,
+                     MejorIteracion resultado) {
+        for (int profundidad = 1; profundidad <= profundidadLimite; profundidad++) {
+            int profundidadHilo = Math.min(profundidadLimite, profundidad + desfase);
+            int[] puntuaciones = new int[orden.size()];
+            int indiceMejor = buscarRaiz(contexto, orden, puntuaciones, profundidadHilo);
+            if (indiceMejor < 0) {
+                break; // Iteración incompleta: se conserva el resultado de la anterior
+            }
+            resultado.actualizar(profundidadHilo, orden.get(indiceMejor), puntuaciones[indiceMejor]);
+            if (Math.abs(puntuaciones[indiceMejor]) >= PUNTUACION_VICTORIA) {
+                break; // Resultado decidido, buscar más profundo no lo cambia
+            }
+            orden = ordenarPorPuntuacion(orden, puntuaciones);
+        }
+    }
+
+    /**
+     * Busca todos los movimientos de la raíz a la profundidad indicada con poda alfa-beta entre
+     * ellos.
+     *
+     * @param contexto     El contexto del hilo que busca.
+     * @param movimientos  Los movimientos de la raíz, en el orden en que se probarán.
+     * @param puntuaciones Arreglo donde se guarda la puntuación (o cota) de cada movimiento.
+     * @param profundidad  La profundidad de la iteración.
+     * @return El índice del mejor movimiento, o -1 si la búsqueda se detuvo antes de terminar.
+     */
+    private int buscarRaiz(ContextoBusqueda contexto, List<Movimiento> movimientos, int[] puntuaciones, int profundidad) {
+        int indiceMejor = 0;
+        int alpha = Integer.MIN_VALUE;
+        for (int i = 0; i < movimientos.size(); i++) {
+            contexto.tabla.hacerMovimiento(movimientos.get(i), esBlanca);
+            puntuaciones[i] = minimax(contexto, profundidad - 1, 1, alpha, Integer.MAX_VALUE, false);
+            contexto.tabla.deshacerMovimiento();
+
+            if (contexto.estaDetenido()) {
+                return -1;
+            }
+            if (puntuaciones[i] > alpha) {
+                alpha = puntuaciones[i];
+                indiceMejor = i;
+            }
+        }
+        return indiceMejor;
+    }
+
+    /**
+     * Reordena los movimientos de mayor a menor puntuación, conservando el orden previo en empates.
+     */
+    private static List<Movimiento> ordenarPorPuntuacion(List<Movimiento> movimientos, int[] puntuaciones) {
+        List<Integer> indices = new ArrayList<>(movimientos.size());
+        for (int i = 0; i < movimientos.size(); i++) {
+            indices.add(i);
+        }
+        indices.sort(Comparator.comparingInt((Integer i) -> puntuaciones[i]).reversed());
+
+        List<Movimiento> ordenados = new ArrayList<>(movimientos.size());
+        for (int indice : indices) {
+            ordenados.add(movimientos.get(indice));
+        }
+        return ordenados;
+    }
+
     /**
      * Implementación del algoritmo Minimax con poda Alfa-Beta.
+     * Los movimientos se aplican y revierten sobre el mismo tablero, que queda en su estado
+     * original al terminar. Al agotar la profundidad se continúa con {@link #quiescencia}. Los
+     * resultados se guardan en la tabla de transposición para no volver a buscar posiciones
+     * alcanzadas por distintos órdenes de movimientos.
      *
-     * @param tabla             El estado del tablero a evaluar.
+     * @param contexto          El contexto del hilo, con el tablero a evaluar.
      * @param profundidad       La profundidad restante de búsqueda.
+     * @param ply               La distancia a la raíz, usada para los movimientos asesinos.
      * @param alpha             El valor alfa para la poda.
      * @param beta              El valor beta para la poda.
      * @param esJugadorMaximizador True si el jugador actual busca maximizar la puntuación.
      * @return La puntuación evaluada para el estado del tablero.
      */
-    private int minimax(Tabla tabla, int profundidad, int alpha, int beta, boolean esJugadorMaximizador) {
-        if (profundidad == 0 || tabla.haTerminado()) {
-            return evaluarTablero(tabla);
+    int minimax(ContextoBusqueda contexto, int profundidad, int ply, int alpha, int beta, boolean esJugadorMaximizador) {
+        if (profundidad == 0) {
+            return quiescencia(contexto, ply, alpha, beta, esJugadorMaximizador);
+        }
+        if (contexto.visitarNodo()) {
+            return 0; // Búsqueda detenida: el resultado se descarta
+        }
+        Tabla tabla = contexto.tabla;
+        if (ply >= OrdenadorMovimientos.PLY_MAXIMO || tabla.haTerminado()) {
+            return evaluarTablero(tabla, contexto);
         }
 
         boolean turnoActual = esJugadorMaximizador == esBlanca;
-        List<Movimiento> movimientos = tabla.getMovimientosDisponibles(turnoActual);
+        int puntuacionFinales = puntuacionFinales(tabla, turnoActual);
+        if (puntuacionFinales != SIN_FINALES) {
+            return puntuacionFinales;
+        }
+        long clave = tabla.getHash(turnoActual);
+        int alphaOriginal = alpha;
+        int betaOriginal = beta;
+
+        // Reutiliza el resultado de la tabla de transposición si se buscó con suficiente profundidad
+        long entrada = tablaTransposicion.buscar(clave);
+        contexto.contarConsultaTabla(entrada != TablaTransposicion.SIN_ENTRADA);
+        if (entrada != TablaTransposicion.SIN_ENTRADA && TablaTransposicion.profundidad(entrada) >= profundidad) {
+            int puntuacion = TablaTransposicion.puntuacion(entrada);
+            switch (TablaTransposicion.tipo(entrada)) {
+                case TablaTransposicion.EXACTA -> {
+                    return puntuacion;
+                }
+                case TablaTransposicion.INFERIOR -> alpha = Math.max(alpha, puntuacion);
+                case TablaTransposicion.SUPERIOR -> beta = Math.min(beta, puntuacion);
+                default -> { }
+            }
+            if (beta <= alpha) {
+                return puntuacion;
+            }
+        }
+
+        // Los movimientos se generan en el tramo de la pila que corresponde a este ply, y se
+        // ordenan con el de la tabla de transposición primero, luego asesinos e historia
+        long[] movimientos = contexto.movimientos;
+        int inicio = ply * Tabla.MAX_MOVIMIENTOS;
+        int cantidad = tabla.generarMovimientos(turnoActual, movimientos, inicio);
+        contexto.ordenador.ordenar(movimientos, inicio, cantidad, ply, movimientoHash(entrada), turnoActual);
+        long mejorMovimiento = movimientos[inicio];
+        int mejorEval;
 
         if (esJugadorMaximizador) {
-            int maxEval = Integer.MIN_VALUE;
-            for (Movimiento movimiento : movimientos) {
-                Tabla tableroSimulado = new Tabla(tabla);
-                tableroSimulado.ejecutarMovimiento(movimiento, turnoActual);
-                int eval = minimax(tableroSimulado, profundidad - 1, alpha, beta, false);
-                maxEval = Math.max(maxEval, eval);
+            mejorEval = Integer.MIN_VALUE;
+            for (int i = inicio; i < inicio + cantidad; i++) {
+                long movimiento = movimientos[i];
+                tabla.hacerMovimiento(movimiento, turnoActual);
+                int eval = minimax(contexto, profundidad - 1, ply + 1, alpha, beta, false);
+                tabla.deshacerMovimiento();
+                if (eval > mejorEval) {
+                    mejorEval = eval;
+                    mejorMovimiento = movimiento;
+                }
                 alpha = Math.max(alpha, eval);
                 if (beta <= alpha) {
+                    contexto.ordenador.registrarCorte(movimiento, ply, profundidad, turnoActual);
+                    contexto.contarCorte(i == inicio);
                     break; // Poda beta
                 }
             }
-            return maxEval;
         } else {
-            int minEval = Integer.MAX_VALUE;
-            for (Movimiento movimiento : movimientos) {
-                Tabla tableroSimulado = new Tabla(tabla);
-                tableroSimulado.ejecutarMovimiento(movimiento, turnoActual);
-                int eval = minimax(tableroSimulado, profundidad - 1, alpha, beta, true);
-                minEval = Math.min(minEval, eval);
+            mejorEval = Integer.MAX_VALUE;
+            for (int i = inicio; i < inicio + cantidad; i++) {
+                long movimiento = movimientos[i];
+                tabla.hacerMovimiento(movimiento, turnoActual);
+                int eval = minimax(contexto, profundidad - 1, ply + 1, alpha, beta, true);
+                tabla.deshacerMovimiento();
+                if (eval < mejorEval) {
+                    mejorEval = eval;
+                    mejorMovimiento = movimiento;
+                }
                 beta = Math.min(beta, eval);
                 if (beta <= alpha) {
+                    contexto.ordenador.registrarCorte(movimiento, ply, profundidad, turnoActual);
+                    contexto.contarCorte(i == inicio);
                     break; // Poda alfa
                 }
             }
-            return minEval;
         }
+
+        if (contexto.estaDetenido()) {
+            return 0; // No se guarda un resultado incompleto en la tabla de transposición
+        }
+
+        int tipo;
+        if (mejorEval <= alphaOriginal) {
+            tipo = TablaTransposicion.SUPERIOR;
+        } else if (mejorEval >= betaOriginal) {
+            tipo = TablaTransposicion.INFERIOR;
+        } else {
+            tipo = TablaTransposicion.EXACTA;
+        }
+        tablaTransposicion.guardar(clave, profundidad, tipo, mejorEval,
+                (int) mejorMovimiento & Tabla.MASCARA_ORIGEN_DESTINO);
+        return mejorEval;
     }
 
     /**
-     * Evalúa la puntuación de un estado del tablero desde la perspectiva de la IA.
+     * Búsqueda de quiescencia: al agotar la profundidad no se evalúa una posición en mitad de un
+     * intercambio de capturas, sino que se siguen buscando solo capturas hasta llegar a una posición
+     * tranquila. Como en las damas capturar es obligatorio, el jugador solo puede "quedarse quieto"
+     * (stand-pat, devolver la evaluación estática) cuando no tiene capturas; si las tiene, debe
+     * elegir una de ellas. La búsqueda siempre termina porque cada captura retira piezas.
      *
-     * @param tabla El tablero a evaluar.
-     * @return La puntuación calculada.
+     * @param contexto          El contexto del hilo, con el tablero a evaluar.
+     * @param ply               La distancia a la raíz.
+     * @param alpha             El valor alfa para la poda.
+     * @param beta              El valor beta para la poda.
+     * @param esJugadorMaximizador True si el jugador actual busca maximizar la puntuación.
+     * @return La puntuación de la posición tranquila alcanzada.
      */
-    private int evaluarTablero(Tabla tabla) {
-        if (tabla.haTerminado()) {
-            String ganador = tabla.getGanador();
-            if (ganador == null) return 0;
-            boolean ganoBlanco = ganador.equals("Blancas");
-            return (ganoBlanco == esBlanca) ? PUNTUACION_VICTORIA : -PUNTUACION_VICTORIA;
+    int quiescencia(ContextoBusqueda contexto, int ply, int alpha, int beta, boolean esJugadorMaximizador) {
+        if (contexto.visitarNodoQuiescencia()) {
+            return 0;
+        }
+        Tabla tabla = contexto.tabla;
+        boolean turnoActual = esJugadorMaximizador == esBlanca;
+        if (ply >= OrdenadorMovimientos.PLY_MAXIMO || tabla.haTerminado()) {
+            return evaluarTablero(tabla, contexto);
         }
+        int puntuacionFinales = puntuacionFinales(tabla, turnoActual);
+        if (puntuacionFinales != SIN_FINALES) {
+            return puntuacionFinales;
+        }
+        if (!tabla.tieneCapturas(turnoActual)) {
+            return evaluarTablero(tabla, contexto); // Stand-pat
+        }
+
+        // Solo hay capturas; se prueban primero las que capturan más piezas
+        long[] movimientos = contexto.movimientos;
+        int inicio = ply * Tabla.MAX_MOVIMIENTOS;
+        int cantidad = tabla.generarMovimientos(turnoActual, movimientos, inicio);
+        ordenarPorCapturas(movimientos, inicio, cantidad);
 
-        return evaluarMaterial(tabla) + evaluarPosicion(tabla) + evaluarMovilidad(tabla) + evaluarEstructura(tabla);
+        int mejorEval = esJugadorMaximizador ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (int i = inicio; i < inicio + cantidad; i++) {
+            tabla.hacerMovimiento(movimientos[i], turnoActual);
+            int eval = quiescencia(contexto, ply + 1, alpha, beta, !esJugadorMaximizador);
+            tabla.deshacerMovimiento();
+            if (esJugadorMaximizador) {
+                mejorEval = Math.max(mejorEval, eval);
+                alpha = Math.max(alpha, eval);
+            } else {
+                mejorEval = Math.min(mejorEval, eval);
+                beta = Math.min(beta, eval);
+            }
+            if (beta <= alpha) {
+                break;
+            }
+        }
+        return mejorEval;
     }
-    
+
     /**
-     * Evalúa el material del tablero (piezas y reyes).
+     * Ordena un tramo de capturas de mayor a menor número de piezas capturadas.
+     */
+    private static void ordenarPorCapturas(long[] movimientos, int inicio, int cantidad) {
+        for (int i = inicio + 1; i < inicio + cantidad; i++) {
+            long movimiento = movimientos[i];
+            int capturas = Long.bitCount(Tabla.capturadasDe(movimiento));
+            int j = i - 1;
+            while (j >= inicio && Long.bitCount(Tabla.capturadasDe(movimientos[j])) < capturas) {
+                movimientos[j + 1] = movimientos[j];
+                j--;
+            }
+            movimientos[j + 1] = movimiento;
+        }
+    }
+
+    /**
+     * Obtiene el mejor movimiento guardado en una entrada de la tabla de transposición.
      *
-     * @param tabla El tablero a evaluar.
-     * @return La puntuación del material.
+     * @return El origen y destino del movimiento, o -1 si no hay entrada.
      */
-    private int evaluarMaterial(Tabla tabla) {
-        int puntuacion = 0;
-        Casillero[][] tablero = tabla.getTablero();
+    static int movimientoHash(long entrada) {
+        return entrada != TablaTransposicion.SIN_ENTRADA ? TablaTransposicion.movimiento(entrada) : -1;
+    }
 
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (tablero[i][j].tienePieza()) {
-                    Pieza pieza = tablero[i][j].getPieza();
-                    int valorPieza = pieza.esRey() ? VALOR_REY : VALOR_PIEZA;
+    /**
+     * Mueve al principio de la lista el movimiento con el origen y destino indicados, si está en ella.
+     */
+    private static void adelantarMovimiento(List<Movimiento> movimientos, int codigo) {
+        for (int i = 1; i < movimientos.size(); i++) {
+            if ((Tabla.codificar(movimientos.get(i)) & Tabla.MASCARA_ORIGEN_DESTINO) == codigo) {
+                movimientos.add(0, movimientos.remove(i));
+                return;
+            }
+        }
+    }
 
-                    if (pieza.esBlanca() == esBlanca) {
-                        puntuacion += valorPieza;
-                    } else {
-                        puntuacion -= valorPieza;
-                    }
-                }
+    /**
+     * Consulta la base de finales y convierte el resultado en una puntuación desde la perspectiva de
+     * la IA. Las victorias valen algo menos que {@link #PUNTUACION_VICTORIA}, y menos cuanto más
+     * lejos está el final, para que la búsqueda prefiera las victorias más cortas.
+     *
+     * @param tabla            La posición, que no debe estar terminada.
+     * @param esTurnoDeBlancas True si mueven las blancas.
+     * @return La puntuación, o {@link #SIN_FINALES} si no hay base o la posición no está en ella.
+     */
+    int puntuacionFinales(Tabla tabla, boolean esTurnoDeBlancas) {
+        BaseFinales base = baseFinales;
+        if (base == null) {
+            return SIN_FINALES;
+        }
+        int consulta = base.consultar(tabla, esTurnoDeBlancas);
+        if (consulta == BaseFinales.DESCONOCIDA) {
+            return SIN_FINALES;
+        }
+        int resultado = BaseFinales.resultado(consulta);
+        if (resultado == BaseFinales.TABLAS) {
+            return 0;
+        }
+        int puntuacion = PUNTUACION_VICTORIA - 1 - BaseFinales.distancia(consulta);
+        boolean ganaIA = (resultado == BaseFinales.GANA) == (esTurnoDeBlancas == esBlanca);
+        return ganaIA ? puntuacion : -puntuacion;
+    }
+
+    /**
+     * Elige el movimiento de la raíz sin buscar, cuando hay un único movimiento o cuando la posición
+     * está en el libro de aperturas o en la base de finales.
+     *
+     * @param tabla       El estado actual del tablero.
+     * @param movimientos Los movimientos disponibles, al menos uno.
+     * @return El movimiento elegido, o null si hay que buscar.
+     */
+    private Movimiento movimientoSinBuscar(Tabla tabla, List<Movimiento> movimientos) {
+        ultimaBusqueda = null;
+        return movimientoDirecto(tabla, movimientos);
+    }
+
+    /**
+     * Igual que {@link #movimientoSinBuscar}, pero sin olvidar la última búsqueda.
+     */
+    private Movimiento movimientoDirecto(Tabla tabla, List<Movimiento> movimientos) {
+        if (movimientos.size() == 1) {
+            return movimientos.getFirst();
+        }
+        Movimiento movimiento = movimientoDeLibro(tabla, movimientos);
+        if (movimiento == null) {
+            movimiento = movimientoDeFinales(tabla, movimientos);
+        }
+        return movimiento;
+    }
+
+    /**
+     * Busca la posición en el libro de aperturas.
+     *
+     * @param tabla       El estado actual del tablero.
+     * @param movimientos Los movimientos disponibles.
+     * @return El movimiento del libro, o null si la posición no está en el libro o su movimiento no
+     *         corresponde a un único movimiento legal.
+     */
+    private Movimiento movimientoDeLibro(Tabla tabla, List<Movimiento> movimientos) {
+        LibroAperturas libro = libroAperturas;
+        return libro == null ? null : libro.consultar(tabla, esBlanca, movimientos);
+    }
+
+    /**
+     * Elige el movimiento de la raíz con la base de finales, si todas las posiciones resultantes
+     * están en ella: el que gana más rápido, o si no se gana, el que empata o pierde más despacio.
+     *
+     * @param tabla        El estado actual del tablero.
+     * @param movimientos  Los movimientos disponibles.
+     * @return El movimiento elegido, o null si alguna posición resultante no está en la base.
+     */
+    private Movimiento movimientoDeFinales(Tabla tabla, List<Movimiento> movimientos) {
+        if (baseFinales == null) {
+            return null;
+        }
+        Tabla copia = new Tabla(tabla);
+        Movimiento mejorMovimiento = null;
+        int mejorPuntuacion = Integer.MIN_VALUE;
+        for (Movimiento movimiento : movimientos) {
+            copia.hacerMovimiento(movimiento, esBlanca);
+            int puntuacion = copia.haTerminado() ? evaluarTablero(copia) : puntuacionFinales(copia, !esBlanca);
+            copia.deshacerMovimiento();
+            if (puntuacion == SIN_FINALES) {
+                return null;
+            }
+            if (puntuacion > mejorPuntuacion) {
+                mejorPuntuacion = puntuacion;
+                mejorMovimiento = movimiento;
             }
         }
+        return mejorMovimiento;
+    }
+
+    /**
+     * Evalúa una hoja de la búsqueda, consultando antes la caché de evaluaciones. Solo se usa la
+     * caché con la evaluación posicional; la que se limita a los términos que mantiene Tabla es más
+     * barata que la consulta.
+     *
+     * @param tabla    El tablero a evaluar.
+     * @param contexto El contexto del hilo, que cuenta la evaluación y el acierto o fallo.
+     * @return La puntuación calculada.
+     */
+    int evaluarTablero(Tabla tabla, ContextoBusqueda contexto) {
+        contexto.contarEvaluacion();
+        CacheEvaluacion cache = cacheEvaluacion;
+        if (cache == null || !evaluacionPosicional) {
+            return evaluarTablero(tabla);
+        }
+        // La evaluación no depende del turno, así que la clave es el hash sin él
+        long hash = tabla.getHash();
+        long guardada = cache.buscar(hash);
+        contexto.contarConsultaCacheEvaluacion(guardada != CacheEvaluacion.SIN_ENTRADA);
+        if (guardada != CacheEvaluacion.SIN_ENTRADA) {
+            return (int) guardada;
+        }
+        int puntuacion = evaluarTablero(tabla);
+        cache.guardar(hash, puntuacion);
         return puntuacion;
     }
-    
+
     /**
-     * Evalúa la posición de las piezas en el tablero.
+     * Evalúa la puntuación de un estado del tablero desde la perspectiva de la IA.
      *
      * @param tabla El tablero a evaluar.
-     * @return La puntuación posicional.
-     */
-    private int evaluarPosicion(Tabla tabla) {
-        int puntuacion = 0;
-        Casillero[][] tablero = tabla.getTablero();
-
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (tablero[i][j].tienePieza()) {
-                    Pieza pieza = tablero[i][j].getPieza();
-                    
-                    // Bonificación por posición para incentivar el avance
-                    int bonificacionPosicion = 0;
-                    if (pieza.esBlanca()) {
-                        bonificacionPosicion = 7 - i; // Más cerca de la coronación
-                    } else {
-                        bonificacionPosicion = i; // Más cerca de la coronación
-                    }
-                    
-                    // Bonificación por control del centro
-                    int bonificacionCentro = 0;
-                    if ((i >= 3 && i <= 4) && (j >= 3 && j <= 4)) {
-                        bonificacionCentro = BONIFICACION_CENTRO;
-                    }
+     * @return La puntuación calculada.
+     */
+    int evaluarTablero(Tabla tabla) {
+        int estado = tabla.estadoTerminal();
+        if (estado != Tabla.EN_JUEGO) {
+            boolean ganoBlanco = estado == Tabla.GANAN_BLANCAS;
+            return (ganoBlanco == esBlanca) ? PUNTUACION_VICTORIA : -PUNTUACION_VICTORIA;
+        }
 
-                    if (pieza.esBlanca() == esBlanca) {
-                        puntuacion += bonificacionPosicion + bonificacionCentro;
-                    } else {
-                        puntuacion -= bonificacionPosicion + bonificacionCentro;
-                    }
-                }
-            }
+        if (!evaluacionPosicional) {
+            return evaluarEstatico(tabla);
         }
-        return puntuacion;
+        return evaluarEstatico(tabla) + evaluarMovilidad(tabla) + evaluarEstructura(tabla);
+    }
+    
+    /**
+     * Evalúa el material, el avance de las piezas y el control del centro. Tabla mantiene la suma
+     * de estos términos al hacer y deshacer movimientos, así que aquí solo se lee.
+     *
+     * @param tabla El tablero a evaluar.
+     * @return La puntuación estática.
+     */
+    private int evaluarEstatico(Tabla tabla) {
+        return esBlanca ? tabla.valorEstatico : -tabla.valorEstatico;
     }
     
     /**
@@ -261,8 +1112,8 @@ public class AIPlayer {
      * @return La puntuación de movilidad.
      */
     private int evaluarMovilidad(Tabla tabla) {
-        int movimientosIA = tabla.getMovimientosDisponibles(esBlanca).size();
-        int movimientosOponente = tabla.getMovimientosDisponibles(!esBlanca).size();
+        int movimientosIA = tabla.contarMovimientos(esBlanca);
+        int movimientosOponente = tabla.contarMovimientos(!esBlanca);
         
         return (movimientosIA - movimientosOponente) * BONIFICACION_MOVILIDAD;
     }
@@ -274,54 +1125,56 @@ public class AIPlayer {
      * @return La puntuación de estructura.
      */
     private int evaluarEstructura(Tabla tabla) {
-        int puntuacion = 0;
-        Casillero[][] tablero = tabla.getTablero();
-        
-        // Evalúa la protección de piezas (piezas que tienen apoyo)
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                if (tablero[i][j].tienePieza()) {
-                    Pieza pieza = tablero[i][j].getPieza();
-                    
-                    // Verifica si la pieza tiene apoyo diagonal
-                    boolean tieneApoyo = false;
-                    if (pieza.esBlanca()) {
-                        // Verifica apoyo desde atrás (fila i+1)
-                        if (i + 1 < 8) {
-                            if (j - 1 >= 0 && tablero[i + 1][j - 1].tienePieza() && 
-                                tablero[i + 1][j - 1].getPieza().esBlanca()) {
-                                tieneApoyo = true;
-                            }
-                            if (j + 1 < 8 && tablero[i + 1][j + 1].tienePieza() && 
-                                tablero[i + 1][j + 1].getPieza().esBlanca()) {
-                                tieneApoyo = true;
-                            }
-                        }
-                    } else {
-                        // Verifica apoyo desde atrás (fila i-1)
-                        if (i - 1 >= 0) {
-                            if (j - 1 >= 0 && tablero[i - 1][j - 1].tienePieza() && 
-                                !tablero[i - 1][j - 1].getPieza().esBlanca()) {
-                                tieneApoyo = true;
-                            }
-                            if (j + 1 < 8 && tablero[i - 1][j + 1].tienePieza() && 
-                                !tablero[i - 1][j + 1].getPieza().esBlanca()) {
-                                tieneApoyo = true;
-                            }
-                        }
-                    }
-                    
-                    if (tieneApoyo) {
-                        if (pieza.esBlanca() == esBlanca) {
-                            puntuacion += 3; // Bonificación por apoyo
-                        } else {
-                            puntuacion -= 3; // Penalización por apoyo del oponente
-                        }
-                    }
-                }
+        // Evalúa la protección de piezas (piezas que tienen apoyo diagonal desde atrás):
+        // las blancas se apoyan en la fila siguiente (+4/+5) y las negras en la anterior (-4/-5)
+        long blancasConApoyo = tabla.blancas & ((tabla.blancas >>> 4) | (tabla.blancas >>> 5));
+        long negrasConApoyo = tabla.negras & ((tabla.negras << 4) | (tabla.negras << 5));
+
+        int diferencia = Long.bitCount(blancasConApoyo) - Long.bitCount(negrasConApoyo);
+        return (esBlanca ? diferencia : -diferencia) * BONIFICACION_APOYO;
+    }
+
+    /**
+     * El mejor movimiento de la iteración completa más profunda y su puntuación, publicados por uno o
+     * varios hilos.
+     */
+    static final class MejorIteracion {
+        private int profundidad;
+        private Movimiento movimiento;
+        private int puntuacion;
+
+        MejorIteracion(Movimiento movimientoInicial) {
+            this.movimiento = movimientoInicial;
+        }
+
+        /**
+         * Publica el resultado de una iteración completa si es más profunda que la conocida.
+         */
+        synchronized void actualizar(int profundidadIteracion, Movimiento mejorMovimiento, int puntuacionMovimiento) {
+            if (profundidadIteracion > profundidad) {
+                profundidad = profundidadIteracion;
+                movimiento = mejorMovimiento;
+                puntuacion = puntuacionMovimiento;
             }
         }
-        
-        return puntuacion;
+
+        synchronized Movimiento getMovimiento() {
+            return movimiento;
+        }
+
+        /**
+         * @return La profundidad de la iteración completa más profunda, o 0 si no se completó ninguna.
+         */
+        synchronized int getProfundidad() {
+            return profundidad;
+        }
+
+        /**
+         * @return La puntuación del movimiento desde la perspectiva de la IA, o 0 si no se completó
+         *         ninguna iteración.
+         */
+        synchronized int getPuntuacion() {
+            return puntuacion;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,1197 @@
+package org.project.game_objects;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static edu.rice.pcdp.PCDP.*;
+
+/**
+ * Almacén de partidas: un registro binario al que solo se añaden partidas y un índice con la
+ * posición de cada una en el registro.
+ * <p>
+ * Todas las partidas empiezan en la posición inicial. Cada una se guarda con una cabecera de versión
+ * del formato (1 byte), resultado (1 byte), número de jugadas (2 bytes) y bytes de las jugadas (4
+ * bytes), seguida del recorrido completo de cada jugada: un byte por casilla con su número de la
+ * notación de PDN (1-32) y el bit alto marcado en la última. Así el registro no depende del orden en
+ * que {@link Tabla#generarMovimientos} produce los movimientos ni de la disposición interna de los
+ * bits; al reproducir una partida cada recorrido se busca entre los movimientos legales, y uno que no
+ * aparezca o una versión desconocida se tratan como una partida dañada. El índice guarda la posición
+ * de cada partida en el registro como un {@code long}.
+ * <p>
+ * Las escrituras se acumulan en búferes y pasan a los {@link FileChannel} por bloques, primero el
+ * registro y después el índice. Al abrir se descartan las entradas del índice cuya partida no esté
+ * completa en el registro, se indexan las partidas completas que falten en el índice y se recorta
+ * lo que sobre al final de ambos archivos.
+ * <p>
+ * La importación de PDN, la exportación y las estadísticas recorren las partidas por bloques,
+ * repartiendo el trabajo de cada bloque o los bloques entre hilos con {@code forallChunked}.
+ */
+public final class AlmacenPartidas implements Closeable {
+    /**
+     * Resultado de una partida sin terminar o abandonada.
+     */
+    public static final int SIN_RESULTADO = 0;
+    public static final int GANAN_BLANCAS = Tabla.GANAN_BLANCAS;
+    public static final int GANAN_NEGRAS = Tabla.GANAN_NEGRAS;
+    public static final int TABLAS = 3;
+    /**
+     * Número máximo de plies de las aperturas de las estadísticas, uno por byte de su clave.
+     */
+    public static final int MAX_PLIES_APERTURA = 8;
+
+    static final String ARCHIVO_REGISTRO = "partidas.bin";
+    static final String ARCHIVO_INDICE = "partidas.idx";
+    /**
+     * Versión del formato de las partidas, el primer byte de cada una. El 0 no se usa para que el
+     * espacio sin escribir al final del registro no parezca una partida.
+     */
+    static final int VERSION_FORMATO = 1;
+    /**
+     * Bytes de la cabecera de cada partida: versión, resultado, número de jugadas y bytes de las
+     * jugadas.
+     */
+    private static final int TAMANO_CABECERA = 8;
+    private static final int MAX_JUGADAS = 0xFFFF;
+    /**
+     * Marca de la última casilla del recorrido de una jugada.
+     */
+    private static final int FIN_JUGADA = 0x80;
+    /**
+     * Casillas del recorrido más largo: el origen y un salto por cada pieza rival.
+     */
+    private static final int MAX_CASILLAS_JUGADA = 13;
+    /**
+     * Tamaño de cada búfer de escritura; las partidas más largas se escriben directamente.
+     */
+    private static final int TAMANO_BUFFER = 1 << 17;
+    /**
+     * Partidas que se leen de una vez al recorrer el almacén y que se importan de una vez.
+     */
+    static final int PARTIDAS_POR_BLOQUE = 4096;
+    /**
+     * Caracteres por línea del texto de las jugadas al exportar.
+     */
+    private static final int ANCHO_LINEA_PDN = 80;
+
+    private final FileChannel registro;
+    private final FileChannel indice;
+    private final ByteBuffer bufferRegistro = ByteBuffer.allocate(TAMANO_BUFFER);
+    private final ByteBuffer bufferIndice = ByteBuffer.allocate(TAMANO_BUFFER);
+    /**
+     * Bytes de cada archivo ya escritos en el canal; lo que hay en los búferes va a continuación.
+     */
+    private long escritoRegistro;
+    private long escritoIndice;
+    /**
+     * Final del registro contando lo que queda en el búfer, donde empieza la siguiente partida.
+     */
+    private long finRegistro;
+    /**
+     * Posición en el registro de cada partida. Solo se añaden entradas al final, así que una copia de
+     * la referencia sigue valiendo para las partidas que ya tenía.
+     */
+    private long[] desplazamientos;
+    private int numeroPartidas;
+
+    private AlmacenPartidas(FileChannel registro, FileChannel indice) {
+        this.registro = registro;
+        this.indice = indice;
+    }
+
+    /**
+     * Abre el almacén de un directorio, creándolo si no existe, y repara lo que haya quedado a medio
+     * escribir.
+     *
+     * @param directorio El directorio del almacén.
+     * @return El almacén abierto.
+     * @throws IOException si no se pueden abrir o reparar los archivos.
+     */
+    public static AlmacenPartidas abrir(Path directorio) throws IOException {
+        Files.createDirectories(directorio);
+        FileChannel registro = FileChannel.open(directorio.resolve(ARCHIVO_REGISTRO),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            FileChannel indice = FileChannel.open(directorio.resolve(ARCHIVO_INDICE),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            AlmacenPartidas almacen = new AlmacenPartidas(registro, indice);
+            try {
+                almacen.recuperar();
+            } catch (IOException | RuntimeException e) {
+                almacen.close();
+                throw e;
+            }
+            return almacen;
+        } catch (IOException | RuntimeException e) {
+            registro.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Lee el índice y lo pone de acuerdo con el registro.
+     */
+    private void recuperar() throws IOException {
+        long tamanoRegistro = registro.size();
+        int enIndice = Math.toIntExact(indice.size() / Long.BYTES);
+        desplazamientos = new long[Math.max(PARTIDAS_POR_BLOQUE, enIndice)];
+        if (enIndice > 0) {
+            indice.map(FileChannel.MapMode.READ_ONLY, 0, (long) enIndice * Long.BYTES).asLongBuffer()
+                    .get(desplazamientos, 0, enIndice);
+        }
+
+        // Se descartan desde el final las entradas que no apuntan a una partida completa
+        numeroPartidas = enIndice;
+        long fin = 0;
+        while (numeroPartidas > 0) {
+            long desplazamiento = desplazamientos[numeroPartidas - 1];
+            int longitud = desplazamiento >= 0 ? leerLongitud(desplazamiento, tamanoRegistro) : -1;
+            if (longitud > 0 && (numeroPartidas == 1 || desplazamientos[numeroPartidas - 2] < desplazamiento)) {
+                fin = desplazamiento + longitud;
+                break;
+            }
+            numeroPartidas--;
+        }
+        escritoIndice = (long) numeroPartidas * Long.BYTES;
+        indice.truncate(escritoIndice);
+
+        // Se indexan las partidas completas que falten en el índice
+        int longitud;
+        while ((longitud = leerLongitud(fin, tamanoRegistro)) > 0) {
+            agregarDesplazamiento(fin);
+            fin += longitud;
+        }
+        registro.truncate(fin);
+        escritoRegistro = fin;
+        finRegistro = fin;
+        vaciar();
+    }
+
+    /**
+     * Lee la longitud de la partida que empieza en una posición del registro.
+     *
+     * @return La longitud en bytes, o -1 si la partida no está completa.
+     * @throws IOException si la partida es de una versión desconocida del formato.
+     */
+    private int leerLongitud(long posicion, long tamanoRegistro) throws IOException {
+        if (posicion + TAMANO_CABECERA > tamanoRegistro) {
+            return -1;
+        }
+        ByteBuffer cabecera = ByteBuffer.allocate(TAMANO_CABECERA);
+        leerCompleto(registro, cabecera, posicion);
+        int version = cabecera.get(0);
+        if (version == 0) {
+            return -1;
+        }
+        if (version != VERSION_FORMATO) {
+            throw new IOException("Versión desconocida del almacén de partidas: " + version);
+        }
+        int bytesJugadas = cabecera.getInt(4);
+        if (bytesJugadas < 0 || bytesJugadas > Integer.MAX_VALUE - TAMANO_CABECERA) {
+            return -1;
+        }
+        int longitud = TAMANO_CABECERA + bytesJugadas;
+        return posicion + longitud <= tamanoRegistro ? longitud : -1;
+    }
+
+    private static void leerCompleto(FileChannel canal, ByteBuffer destino, long posicion) throws IOException {
+        while (destino.hasRemaining()) {
+            int leidos = canal.read(destino, posicion);
+            if (leidos < 0) {
+                throw new EOFException("Almacén de partidas truncado");
+            }
+            posicion += leidos;
+        }
+        destino.flip();
+    }
+
+    /**
+     * Añade una partida que empieza en la posición inicial, con el resultado de su posición final.
+     *
+     * @param movimientos Los movimientos de la partida, empezando por las blancas.
+     * @return El índice de la partida en el almacén, desde 0.
+     * @throws IllegalArgumentException si algún movimiento no es legal.
+     * @throws IOException              si falla la escritura.
+     */
+    public int agregar(List<Movimiento> movimientos) throws IOException {
+        return escribir(codificar(recorridosDe(movimientos), -1));
+    }
+
+    /**
+     * Añade una partida que empieza en la posición inicial.
+     *
+     * @param movimientos Los movimientos de la partida, empezando por las blancas.
+     * @param resultado   {@link #GANAN_BLANCAS}, {@link #GANAN_NEGRAS}, {@link #TABLAS} o
+     *                    {@link #SIN_RESULTADO}.
+     * @return El índice de la partida en el almacén, desde 0.
+     * @throws IllegalArgumentException si algún movimiento no es legal o el resultado no es válido.
+     * @throws IOException              si falla la escritura.
+     */
+    public int agregar(List<Movimiento> movimientos, int resultado) throws IOException {
+        if (resultado < SIN_RESULTADO || resultado > TABLAS) {
+            throw new IllegalArgumentException("Resultado inválido: " + resultado);
+        }
+        return escribir(codificar(recorridosDe(movimientos), resultado));
+    }
+
+    private static List<int[]> recorridosDe(List<Movimiento> movimientos) {
+        List<int[]> recorridos = new ArrayList<>(movimientos.size());
+        for (Movimiento movimiento : movimientos) {
+            int[] recorrido = new int[movimiento.getNumeroCasillas()];
+            for (int i = 0; i < recorrido.length; i++) {
+                int fila = movimiento.getFila(i);
+                int columna = movimiento.getColumna(i);
+                if (fila < 0 || fila > 7 || columna < 0 || columna > 7 || Tabla.bitDe(fila, columna) < 0) {
+                    throw new IllegalArgumentException("Movimiento ilegal: " + movimiento);
+                }
+                recorrido[i] = Tabla.bitDe(fila, columna);
+            }
+            recorridos.add(recorrido);
+        }
+        return recorridos;
+    }
+
+    /**
+     * Reproduce una partida desde la posición inicial y la codifica como se guarda en el registro.
+     *
+     * @param recorridos Las casillas (bits de {@link Tabla}) de cada jugada; con solo el origen y el
+     *                   destino basta si no hay otro movimiento legal con los mismos extremos.
+     * @param resultado  El resultado, o -1 para tomarlo de la posición final.
+     */
+    private static byte[] codificar(List<int[]> recorridos, int resultado) {
+        if (recorridos.size() > MAX_JUGADAS) {
+            throw new IllegalArgumentException("Demasiadas jugadas: " + recorridos.size());
+        }
+        ByteBuffer partida = ByteBuffer.allocate(TAMANO_CABECERA + recorridos.size() * MAX_CASILLAS_JUGADA);
+        partida.position(TAMANO_CABECERA);
+        Tabla tabla = new Tabla();
+        long[] disponibles = new long[Tabla.MAX_MOVIMIENTOS];
+        boolean turno = true;
+        for (int i = 0; i < recorridos.size(); i++) {
+            int cantidad = tabla.generarMovimientos(turno, disponibles, 0);
+            int jugada = buscarJugada(disponibles, cantidad, recorridos.get(i));
+            if (jugada < 0) {
+                throw new IllegalArgumentException("Movimiento ilegal en la jugada " + (i + 1));
+            }
+            // Se guarda el recorrido completo del movimiento generado, aunque el dado solo tuviera los extremos
+            Movimiento movimiento = Tabla.decodificar(disponibles[jugada]);
+            int casillas = movimiento.getNumeroCasillas();
+            for (int j = 0; j < casillas; j++) {
+                int numero = CodificadorPosicion.numeroDeBit(Tabla.bitDe(movimiento.getFila(j), movimiento.getColumna(j)));
+                partida.put((byte) (j == casillas - 1 ? numero | FIN_JUGADA : numero));
+            }
+            tabla.hacerMovimiento(disponibles[jugada], turno);
+            turno = !turno;
+        }
+        if (resultado < 0) {
+            resultado = switch (tabla.estadoTerminal()) {
+                case Tabla.GANAN_BLANCAS -> GANAN_BLANCAS;
+                case Tabla.GANAN_NEGRAS -> GANAN_NEGRAS;
+                default -> SIN_RESULTADO;
+            };
+        }
+        partida.put(0, (byte) VERSION_FORMATO);
+        partida.put(1, (byte) resultado);
+        partida.putShort(2, (short) recorridos.size());
+        partida.putInt(4, partida.position() - TAMANO_CABECERA);
+        return Arrays.copyOf(partida.array(), partida.position());
+    }
+
+    /**
+     * Lee el recorrido de una jugada guardada en el registro.
+     *
+     * @param recorrido Donde se escriben los bits de {@link Tabla} de las casillas; con sitio para
+     *                  {@link #MAX_CASILLAS_JUGADA}.
+     * @return El número de casillas, o -1 si la jugada está dañada o no termina antes de {@code hasta}.
+     */
+    private static int leerJugada(ByteBuffer bloque, int desde, int hasta, int[] recorrido) {
+        for (int i = 0; i < MAX_CASILLAS_JUGADA && desde + i < hasta; i++) {
+            int casilla = bloque.get(desde + i) & 0xFF;
+            int numero = casilla & ~FIN_JUGADA;
+            if (numero < 1 || numero > 32) {
+                return -1;
+            }
+            recorrido[i] = CodificadorPosicion.bitDeNumero(numero);
+            if ((casilla & FIN_JUGADA) != 0) {
+                return i >= 1 ? i + 1 : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Busca entre los movimientos generados el que sigue un recorrido.
+     *
+     * @return La posición del movimiento, o -1 si no hay ninguno o, si el recorrido solo da el origen
+     *         y el destino de una cadena de capturas, si hay varios.
+     */
+    private static int buscarJugada(long[] disponibles, int cantidad, int[] recorrido) {
+        int origen = recorrido[0];
+        int destino = recorrido[recorrido.length - 1];
+        // El recorrido está completo si es un paso simple o una sucesión de saltos; en los bits de
+        // Tabla la casilla saltada está a medio camino entre las dos de cada salto
+        boolean completo = true;
+        long capturadas = 0L;
+        for (int i = 1; i < recorrido.length; i++) {
+            int avance = Math.abs(recorrido[i] - recorrido[i - 1]);
+            if (avance == 8 || avance == 10) {
+                capturadas |= 1L << ((recorrido[i - 1] + recorrido[i]) >>> 1);
+            } else if (recorrido.length > 2 || (avance != 4 && avance != 5)) {
+                completo = false;
+            }
+        }
+        int encontrada = -1;
+        for (int i = 0; i < cantidad; i++) {
+            long movimiento = disponibles[i];
+            if (Tabla.origenDe(movimiento) != origen || Tabla.destinoDe(movimiento) != destino) {
+                continue;
+            }
+            if (completo) {
+                if (Tabla.capturadasDe(movimiento) == capturadas) {
+                    return i;
+                }
+            } else if (encontrada >= 0) {
+                return -1;
+            } else {
+                encontrada = i;
+            }
+        }
+        return encontrada;
+    }
+
+    /**
+     * Añade una partida codificada al final del registro y su posición al índice.
+     */
+    private synchronized int escribir(byte[] partida) throws IOException {
+        if (!registro.isOpen()) {
+            throw new IOException("El almacén de partidas está cerrado");
+        }
+        if (partida.length > bufferRegistro.remaining()) {
+            escritoRegistro = escribirBuffer(registro, bufferRegistro, escritoRegistro);
+        }
+        if (partida.length > bufferRegistro.capacity()) {
+            ByteBuffer directa = ByteBuffer.wrap(partida);
+            while (directa.hasRemaining()) {
+                escritoRegistro += registro.write(directa, escritoRegistro);
+            }
+        } else {
+            bufferRegistro.put(partida);
+        }
+        agregarDesplazamiento(finRegistro);
+        finRegistro += partida.length;
+        return numeroPartidas - 1;
+    }
+
+    private void agregarDesplazamiento(long desplazamiento) throws IOException {
+        if (numeroPartidas == desplazamientos.length) {
+            desplazamientos = Arrays.copyOf(desplazamientos, numeroPartidas * 2);
+        }
+        desplazamientos[numeroPartidas++] = desplazamiento;
+        if (!bufferIndice.hasRemaining()) {
+            vaciar();
+        }
+        bufferIndice.putLong(desplazamiento);
+    }
+
+    /**
+     * Escribe el contenido de un búfer en un canal a partir de una posición y lo vacía.
+     *
+     * @return La posición siguiente a lo escrito.
+     */
+    private static long escribirBuffer(FileChannel canal, ByteBuffer buffer, long posicion) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            posicion += canal.write(buffer, posicion);
+        }
+        buffer.clear();
+        return posicion;
+    }
+
+    /**
+     * Escribe en los archivos las partidas que quedan en los búferes, primero en el registro y después
+     * en el índice.
+     *
+     * @throws IOException si falla la escritura.
+     */
+    public synchronized void vaciar() throws IOException {
+        escritoRegistro = escribirBuffer(registro, bufferRegistro, escritoRegistro);
+        escritoIndice = escribirBuffer(indice, bufferIndice, escritoIndice);
+    }
+
+    /**
+     * Obtiene el número de partidas del almacén.
+     *
+     * @return El número de partidas.
+     */
+    public synchronized int getNumeroPartidas() {
+        return numeroPartidas;
+    }
+
+    /**
+     * Lee una partida.
+     *
+     * @param numero El índice de la partida, desde 0.
+     * @return La partida.
+     * @throws IOException si falla la lectura o la partida está dañada.
+     */
+    public Partida leer(int numero) throws IOException {
+        Vista vista = vista();
+        if (numero < 0 || numero >= vista.partidas) {
+            throw new IllegalArgumentException("No existe la partida " + numero);
+        }
+        ByteBuffer bloque = vista.leerBloque(numero, numero + 1);
+        return Partida.decodificar(bloque, 0, bloque.limit());
+    }
+
+    /**
+     * Vacía los búferes y toma las posiciones de las partidas escritas hasta el momento.
+     */
+    private synchronized Vista vista() throws IOException {
+        vaciar();
+        return new Vista(desplazamientos, numeroPartidas, finRegistro);
+    }
+
+    /**
+     * Las partidas del almacén en un momento dado, que se pueden leer sin sincronizar mientras se
+     * añaden otras.
+     */
+    private final class Vista {
+        final long[] desplazamientos;
+        final int partidas;
+        final long fin;
+
+        Vista(long[] desplazamientos, int partidas, long fin) {
+            this.desplazamientos = desplazamientos;
+            this.partidas = partidas;
+            this.fin = fin;
+        }
+
+        long inicio(int partida) {
+            return partida < partidas ? desplazamientos[partida] : fin;
+        }
+
+        /**
+         * Lee del registro las partidas {@code [primera, ultima)} en un búfer, con la primera en la
+         * posición 0.
+         */
+        ByteBuffer leerBloque(int primera, int ultima) throws IOException {
+            long inicio = inicio(primera);
+            ByteBuffer bloque = ByteBuffer.allocate(Math.toIntExact(inicio(ultima) - inicio));
+            leerCompleto(registro, bloque, inicio);
+            return bloque;
+        }
+
+        int bloques() {
+            return (partidas + PARTIDAS_POR_BLOQUE - 1) / PARTIDAS_POR_BLOQUE;
+        }
+    }
+
+    /**
+     * Calcula las estadísticas de todas las partidas, repartiendo los bloques de partidas entre
+     * hilos.
+     *
+     * @param pliesApertura El número de plies que definen la apertura de una partida, hasta
+     *                      {@link #MAX_PLIES_APERTURA}.
+     * @return Las estadísticas.
+     * @throws IOException si falla la lectura o alguna partida está dañada.
+     */
+    public Estadisticas calcularEstadisticas(int pliesApertura) throws IOException {
+        if (pliesApertura < 0 || pliesApertura > MAX_PLIES_APERTURA) {
+            throw new IllegalArgumentException("Los plies de apertura deben estar entre 0 y " + MAX_PLIES_APERTURA);
+        }
+        Vista vista = vista();
+        Estadisticas total = new Estadisticas(pliesApertura);
+        int bloques = vista.bloques();
+        if (bloques == 0) {
+            return total;
+        }
+        Estadisticas[] parciales = new Estadisticas[bloques];
+        try {
+            forallChunked(0, bloques - 1, b -> {
+                Estadisticas parcial = new Estadisticas(pliesApertura);
+                int primera = b * PARTIDAS_POR_BLOQUE;
+                int ultima = Math.min(vista.partidas, primera + PARTIDAS_POR_BLOQUE);
+                try {
+                    ByteBuffer bloque = vista.leerBloque(primera, ultima);
+                    long inicio = vista.inicio(primera);
+                    for (int partida = primera; partida < ultima; partida++) {
+                        parcial.contar(bloque, (int) (vista.inicio(partida) - inicio),
+                                (int) (vista.inicio(partida + 1) - inicio));
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                parciales[b] = parcial;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        for (Estadisticas parcial : parciales) {
+            total.sumar(parcial);
+        }
+        return total;
+    }
+
+    /**
+     * Exporta todas las partidas en PDN. Cada partida lleva la posición inicial en la etiqueta
+     * {@code FEN}, en la notación de {@link CodificadorPosicion}, y las casillas de las jugadas se
+     * numeran igual.
+     *
+     * @param salida La salida; se vacía al terminar, pero no se cierra.
+     * @return El número de partidas exportadas.
+     * @throws IOException si falla la lectura o la escritura.
+     */
+    public int exportarPdn(Writer salida) throws IOException {
+        Vista vista = vista();
+        String inicial = CodificadorPosicion.escribirNotacion(new Tabla(), true);
+        for (int b = 0; b < vista.bloques(); b++) {
+            int primera = b * PARTIDAS_POR_BLOQUE;
+            int ultima = Math.min(vista.partidas, primera + PARTIDAS_POR_BLOQUE);
+            ByteBuffer bloque = vista.leerBloque(primera, ultima);
+            long inicio = vista.inicio(primera);
+            // El texto de las partidas del bloque se prepara en paralelo y se escribe en orden
+            String[] textos = new String[ultima - primera];
+            try {
+                forallChunked(0, textos.length - 1, i -> {
+                    int desde = (int) (vista.inicio(primera + i) - inicio);
+                    int hasta = (int) (vista.inicio(primera + i + 1) - inicio);
+                    try {
+                        textos[i] = Partida.decodificar(bloque, desde, hasta).escribirPdn(primera + i + 1, inicial);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            for (String texto : textos) {
+                salida.write(texto);
+            }
+        }
+        salida.flush();
+        return vista.partidas;
+    }
+
+    /**
+     * Importa las partidas de un archivo PDN. Se aceptan las partidas que empiezan en la posición
+     * inicial: las de PDN estándar de damas inglesas, sin etiqueta {@code FEN} o con
+     * {@code FEN "B:W21-32:B1-12"}, en las que empiezan las negras desde las casillas 1-12 y que se
+     * giran y cambian de color; y las que lleven la etiqueta {@code FEN} de
+     * {@link CodificadorPosicion} con las blancas en el turno, como las que escribe
+     * {@link #exportarPdn}. Las jugadas pueden llevar solo origen y destino; se ignoran comentarios,
+     * variantes y anotaciones.
+     * <p>
+     * Las partidas se leen por bloques; las de cada bloque se reproducen y codifican en paralelo y se
+     * añaden en el orden del archivo.
+     *
+     * @param entrada La entrada.
+     * @return Las partidas importadas y descartadas.
+     * @throws IOException si falla la lectura o la escritura.
+     */
+    public Importacion importarPdn(BufferedReader entrada) throws IOException {
+        LectorPdn lector = new LectorPdn(entrada);
+        Importacion importacion = new Importacion();
+        List<PartidaPdn> lote = new ArrayList<>(PARTIDAS_POR_BLOQUE);
+        boolean quedan = true;
+        while (quedan) {
+            PartidaPdn leida;
+            while (lote.size() < PARTIDAS_POR_BLOQUE && (leida = lector.leer()) != null) {
+                lote.add(leida);
+            }
+            quedan = lote.size() == PARTIDAS_POR_BLOQUE;
+            if (lote.isEmpty()) {
+                break;
+            }
+            byte[][] codificadas = new byte[lote.size()][];
+            forallChunked(0, lote.size() - 1, i -> codificadas[i] = lote.get(i).codificar());
+            for (byte[] partida : codificadas) {
+                if (partida == null) {
+                    importacion.descartadas++;
+                } else {
+                    escribir(partida);
+                    importacion.importadas++;
+                }
+            }
+            lote.clear();
+        }
+        vaciar();
+        return importacion;
+    }
+
+    /**
+     * Escribe lo que quede en los búferes, lo lleva al disco y cierra los archivos.
+     *
+     * @throws IOException si falla la escritura.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!registro.isOpen()) {
+            return;
+        }
+        try (registro; indice) {
+            vaciar();
+            registro.force(false);
+            indice.force(false);
+        }
+    }
+
+    /**
+     * Una partida leída del almacén.
+     */
+    public static final class Partida {
+        private final int resultado;
+        private final long[] jugadas;
+
+        private Partida(int resultado, long[] jugadas) {
+            this.resultado = resultado;
+            this.jugadas = jugadas;
+        }
+
+        /**
+         * Reproduce una partida codificada desde la posición inicial.
+         *
+         * @throws IOException si la cabecera no es válida o alguna jugada no corresponde a un
+         *                     movimiento legal.
+         */
+        static Partida decodificar(ByteBuffer bloque, int desde, int hasta) throws IOException {
+            int numeroJugadas = leerCabecera(bloque, desde, hasta);
+            long[] jugadas = new long[numeroJugadas];
+            Tabla tabla = new Tabla();
+            long[] disponibles = new long[Tabla.MAX_MOVIMIENTOS];
+            int[] recorrido = new int[MAX_CASILLAS_JUGADA];
+            boolean turno = true;
+            int posicion = desde + TAMANO_CABECERA;
+            for (int i = 0; i < numeroJugadas; i++) {
+                int casillas = leerJugada(bloque, posicion, hasta, recorrido);
+                int jugada = casillas < 0 ? -1
+                        : buscarJugada(disponibles, tabla.generarMovimientos(turno, disponibles, 0),
+                                Arrays.copyOf(recorrido, casillas));
+                if (jugada < 0) {
+                    throw new IOException("Partida dañada en el almacén");
+                }
+                posicion += casillas;
+                jugadas[i] = disponibles[jugada];
+                tabla.hacerMovimiento(jugadas[i], turno);
+                turno = !turno;
+            }
+            if (posicion != hasta) {
+                throw new IOException("Partida dañada en el almacén");
+            }
+            return new Partida(bloque.get(desde + 1), jugadas);
+        }
+
+        /**
+         * Comprueba la cabecera de una partida codificada.
+         *
+         * @return El número de jugadas.
+         * @throws IOException si la versión, el resultado o la longitud no son válidos.
+         */
+        static int leerCabecera(ByteBuffer bloque, int desde, int hasta) throws IOException {
+            int version = bloque.get(desde);
+            if (version != VERSION_FORMATO) {
+                throw new IOException("Versión desconocida del almacén de partidas: " + version);
+            }
+            int resultado = bloque.get(desde + 1);
+            int numeroJugadas = Short.toUnsignedInt(bloque.getShort(desde + 2));
+            int bytesJugadas = bloque.getInt(desde + 4);
+            if (resultado < SIN_RESULTADO || resultado > TABLAS || bytesJugadas != hasta - desde - TAMANO_CABECERA
+                    || bytesJugadas < 2 * numeroJugadas) {
+                throw new IOException("Partida dañada en el almacén");
+            }
+            return numeroJugadas;
+        }
+
+        /**
+         * Obtiene el resultado de la partida.
+         *
+         * @return {@link #GANAN_BLANCAS}, {@link #GANAN_NEGRAS}, {@link #TABLAS} o
+         *         {@link #SIN_RESULTADO}.
+         */
+        public int getResultado() {
+            return resultado;
+        }
+
+        /**
+         * Obtiene los movimientos de la partida, empezando por las blancas.
+         *
+         * @return Una lista nueva con los movimientos.
+         */
+        public List<Movimiento> getMovimientos() {
+            List<Movimiento> movimientos = new ArrayList<>(jugadas.length);
+            for (long jugada : jugadas) {
+                movimientos.add(Tabla.decodificar(jugada));
+            }
+            return movimientos;
+        }
+
+        /**
+         * Escribe la partida en PDN.
+         */
+        String escribirPdn(int numero, String posicionInicial) {
+            String resultadoPdn = switch (resultado) {
+                case GANAN_BLANCAS -> "1-0";
+                case GANAN_NEGRAS -> "0-1";
+                case TABLAS -> "1/2-1/2";
+                default -> "*";
+            };
+            StringBuilder texto = new StringBuilder(64 + jugadas.length * 8);
+            texto.append("[Event \"Partida ").append(numero).append("\"]\n");
+            texto.append("[FEN \"").append(posicionInicial).append("\"]\n");
+            texto.append("[Result \"").append(resultadoPdn).append("\"]\n\n");
+            int inicioLinea = texto.length();
+            for (int i = 0; i < jugadas.length; i++) {
+                int inicioJugada = texto.length();
+                if (i % 2 == 0) {
+                    texto.append(i / 2 + 1).append(". ");
+                }
+                Movimiento movimiento = Tabla.decodificar(jugadas[i]);
+                char separador = movimiento.esCaptura() ? 'x' : '-';
+                for (int j = 0; j < movimiento.getNumeroCasillas(); j++) {
+                    if (j > 0) {
+                        texto.append(separador);
+                    }
+                    texto.append(CodificadorPosicion.numeroDeBit(Tabla.bitDe(movimiento.getFila(j), movimiento.getColumna(j))));
+                }
+                texto.append(' ');
+                if (texto.length() - inicioLinea > ANCHO_LINEA_PDN && inicioJugada > inicioLinea) {
+                    texto.setCharAt(inicioJugada - 1, '\n');
+                    inicioLinea = inicioJugada;
+                }
+            }
+            return texto.append(resultadoPdn).append("\n\n").toString();
+        }
+    }
+
+    /**
+     * Estadísticas de un conjunto de partidas: resultados, longitud media y resultados por apertura.
+     */
+    public static final class Estadisticas {
+        private final int pliesApertura;
+        private long partidas;
+        private long jugadas;
+        private final long[] resultados = new long[TABLAS + 1];
+        /**
+         * Partidas por resultado de cada apertura. La clave son los bytes de las jugadas de la
+         * apertura tal como están en el registro, uno por carácter; una partida más corta que la
+         * apertura tiene una clave más corta.
+         */
+        private final Map<String, long[]> aperturas = new HashMap<>();
+
+        Estadisticas(int pliesApertura) {
+            this.pliesApertura = pliesApertura;
+        }
+
+        /**
+         * Cuenta la partida codificada que ocupa {@code [desde, hasta)} en el bloque, sin
+         * reproducirla.
+         *
+         * @throws IOException si la cabecera o las jugadas de la apertura están dañadas.
+         */
+        void contar(ByteBuffer bloque, int desde, int hasta) throws IOException {
+            int numeroJugadas = Partida.leerCabecera(bloque, desde, hasta);
+            int resultado = bloque.get(desde + 1);
+            partidas++;
+            jugadas += numeroJugadas;
+            resultados[resultado]++;
+            if (pliesApertura > 0) {
+                int inicio = desde + TAMANO_CABECERA;
+                int fin = inicio;
+                int[] recorrido = new int[MAX_CASILLAS_JUGADA];
+                for (int i = 0; i < Math.min(pliesApertura, numeroJugadas); i++) {
+                    int casillas = leerJugada(bloque, fin, hasta, recorrido);
+                    if (casillas < 0) {
+                        throw new IOException("Partida dañada en el almacén");
+                    }
+                    fin += casillas;
+                }
+                char[] clave = new char[fin - inicio];
+                for (int i = 0; i < clave.length; i++) {
+                    clave[i] = (char) (bloque.get(inicio + i) & 0xFF);
+                }
+                aperturas.computeIfAbsent(new String(clave), k -> new long[TABLAS + 1])[resultado]++;
+            }
+        }
+
+        void sumar(Estadisticas otras) {
+            partidas += otras.partidas;
+            jugadas += otras.jugadas;
+            for (int i = 0; i < resultados.length; i++) {
+                resultados[i] += otras.resultados[i];
+            }
+            for (Map.Entry<String, long[]> apertura : otras.aperturas.entrySet()) {
+                long[] recuento = aperturas.computeIfAbsent(apertura.getKey(), k -> new long[TABLAS + 1]);
+                for (int i = 0; i < recuento.length; i++) {
+                    recuento[i] += apertura.getValue()[i];
+                }
+            }
+        }
+
+        public long getPartidas() {
+            return partidas;
+        }
+
+        /**
+         * Obtiene el número de partidas con un resultado.
+         *
+         * @param resultado {@link #GANAN_BLANCAS}, {@link #GANAN_NEGRAS}, {@link #TABLAS} o
+         *                  {@link #SIN_RESULTADO}.
+         * @return El número de partidas.
+         */
+        public long getPartidas(int resultado) {
+            return resultados[resultado];
+        }
+
+        /**
+         * Obtiene la longitud media de las partidas.
+         *
+         * @return La media de jugadas (plies) por partida, o 0 si no hay partidas.
+         */
+        public double getLongitudMedia() {
+            return partidas == 0 ? 0 : (double) jugadas / partidas;
+        }
+
+        /**
+         * Obtiene los resultados de cada apertura.
+         *
+         * @return Para cada apertura, con sus movimientos separados por espacios, el número de
+         *         partidas por resultado (indexado por {@link #GANAN_BLANCAS}, etc.).
+         */
+        public Map<String, long[]> getAperturas() {
+            Map<String, long[]> resultado = new HashMap<>();
+            for (Map.Entry<String, long[]> apertura : aperturas.entrySet()) {
+                resultado.put(describirApertura(apertura.getKey()), apertura.getValue().clone());
+            }
+            return resultado;
+        }
+
+        private static String describirApertura(String clave) {
+            StringBuilder texto = new StringBuilder();
+            for (int i = 0; i < clave.length(); i++) {
+                int casilla = clave.charAt(i);
+                int bit = CodificadorPosicion.bitDeNumero(casilla & ~FIN_JUGADA);
+                if (i > 0) {
+                    texto.append((clave.charAt(i - 1) & FIN_JUGADA) != 0 ? ' ' : '-');
+                }
+                texto.append((char) ('h' - Tabla.filaDe(bit))).append(Tabla.columnaDe(bit) + 1);
+            }
+            return texto.toString();
+        }
+
+        /**
+         * Resume las estadísticas en texto.
+         *
+         * @param maxAperturas El número de aperturas más jugadas que se muestran.
+         * @return Varias líneas con los totales y las aperturas.
+         */
+        public String resumen(int maxAperturas) {
+            StringBuilder texto = new StringBuilder();
+            texto.append(String.format("%d partidas, longitud media %.1f jugadas%n", partidas, getLongitudMedia()));
+            texto.append(describirResultados(resultados)).append(System.lineSeparator());
+            if (pliesApertura > 0 && maxAperturas > 0) {
+                texto.append(String.format("Aperturas más jugadas (%d plies):%n", pliesApertura));
+                aperturas.entrySet().stream()
+                        .sorted((a, b) -> Long.compare(total(b.getValue()), total(a.getValue())))
+                        .limit(maxAperturas)
+                        .forEach(apertura -> texto.append(String.format("  %-40s %s%n",
+                                describirApertura(apertura.getKey()), describirResultados(apertura.getValue()))));
+            }
+            return texto.toString();
+        }
+
+        private static long total(long[] recuento) {
+            return Arrays.stream(recuento).sum();
+        }
+
+        private static String describirResultados(long[] recuento) {
+            double partidas = Math.max(1, total(recuento));
+            return String.format("%d partidas: blancas %.1f %%, negras %.1f %%, tablas %.1f %%, sin resultado %.1f %%",
+                    total(recuento), 100 * recuento[GANAN_BLANCAS] / partidas, 100 * recuento[GANAN_NEGRAS] / partidas,
+                    100 * recuento[TABLAS] / partidas, 100 * recuento[SIN_RESULTADO] / partidas);
+        }
+    }
+
+    /**
+     * Resultado de una importación.
+     */
+    public static final class Importacion {
+        private long importadas;
+        private long descartadas;
+
+        public long getImportadas() {
+            return importadas;
+        }
+
+        /**
+         * Obtiene las partidas descartadas por tener jugadas ilegales o una posición inicial no
+         * admitida.
+         */
+        public long getDescartadas() {
+            return descartadas;
+        }
+    }
+
+    /**
+     * Una partida tal como aparece en el PDN, antes de reproducirla.
+     */
+    private static final class PartidaPdn {
+        final List<String> jugadas = new ArrayList<>();
+        String posicionInicial;
+        int resultado = SIN_RESULTADO;
+
+        /**
+         * Reproduce y codifica la partida.
+         *
+         * @return La partida codificada, o null si no se puede importar.
+         */
+        byte[] codificar() {
+            try {
+                // Sin etiqueta FEN la partida empieza en la posición inicial del PDN estándar, con las negras
+                boolean girar = true;
+                if (posicionInicial != null) {
+                    Tabla tabla = new Tabla();
+                    boolean turno = CodificadorPosicion.leerNotacion(posicionInicial, tabla);
+                    Tabla inicial = new Tabla();
+                    if (tabla.blancas != inicial.blancas || tabla.negras != inicial.negras || tabla.reyes != 0) {
+                        return null;
+                    }
+                    girar = !turno;
+                }
+                List<int[]> recorridos = new ArrayList<>(jugadas.size());
+                for (String jugada : jugadas) {
+                    recorridos.add(leerRecorrido(jugada, girar));
+                }
+                int resultadoPartida = resultado;
+                if (girar && (resultado == GANAN_BLANCAS || resultado == GANAN_NEGRAS)) {
+                    resultadoPartida = resultado == GANAN_BLANCAS ? GANAN_NEGRAS : GANAN_BLANCAS;
+                }
+                return AlmacenPartidas.codificar(recorridos, resultadoPartida);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Convierte una jugada como {@code 22-18} o {@code 9x18x27} en los bits de sus casillas.
+         *
+         * @param girar True para girar el tablero: la casilla {@code n} pasa a ser la {@code 33 - n}.
+         */
+        private static int[] leerRecorrido(String jugada, boolean girar) {
+            int[] recorrido = new int[jugada.length() / 2 + 1];
+            int casillas = 0;
+            int numero = 0;
+            for (int i = 0; i <= jugada.length(); i++) {
+                char c = i < jugada.length() ? jugada.charAt(i) : '-';
+                if (c >= '0' && c <= '9' && numero <= 32) {
+                    numero = numero * 10 + (c - '0');
+                } else if ((c == '-' || c == 'x') && numero >= 1 && numero <= 32) {
+                    recorrido[casillas++] = CodificadorPosicion.bitDeNumero(girar ? 33 - numero : numero);
+                    numero = 0;
+                } else {
+                    throw new IllegalArgumentException("Jugada inválida: " + jugada);
+                }
+            }
+            if (casillas < 2) {
+                throw new IllegalArgumentException("Jugada inválida: " + jugada);
+            }
+            return Arrays.copyOf(recorrido, casillas);
+        }
+    }
+
+    /**
+     * Lector de partidas PDN que recorre cada línea carácter a carácter, sin expresiones regulares.
+     */
+    private static final class LectorPdn {
+        private final BufferedReader entrada;
+        private String linea = "";
+        /**
+         * Posición del siguiente carácter de la línea; la longitud de la línea es su salto de línea.
+         */
+        private int posicion = 1;
+
+        LectorPdn(BufferedReader entrada) {
+            this.entrada = entrada;
+        }
+
+        /**
+         * Lee el siguiente carácter.
+         *
+         * @return El carácter, {@code '\n'} al final de cada línea o -1 al final de la entrada.
+         */
+        private int leerCaracter() throws IOException {
+            if (posicion > linea.length()) {
+                String siguiente = entrada.readLine();
+                if (siguiente == null) {
+                    return -1;
+                }
+                linea = siguiente;
+                posicion = 0;
+            }
+            if (posicion == linea.length()) {
+                posicion++;
+                return '\n';
+            }
+            return linea.charAt(posicion++);
+        }
+
+        /**
+         * Devuelve el último carácter leído para que lo lea la siguiente lectura.
+         */
+        private void devolver(int c) {
+            if (c >= 0) {
+                posicion--;
+            }
+        }
+
+        /**
+         * Lee la siguiente partida, que termina en su resultado, en la etiqueta de la siguiente o al
+         * final de la entrada.
+         *
+         * @return La partida, o null si no quedan.
+         */
+        PartidaPdn leer() throws IOException {
+            PartidaPdn partida = null;
+            StringBuilder texto = new StringBuilder();
+            int c;
+            while ((c = leerCaracter()) >= 0) {
+                if (Character.isWhitespace(c)) {
+                    continue;
+                }
+                switch (c) {
+                    case '[' -> {
+                        if (partida != null && !partida.jugadas.isEmpty()) {
+                            devolver(c);
+                            return partida;
+                        }
+                        if (partida == null) {
+                            partida = new PartidaPdn();
+                        }
+                        leerEtiqueta(partida, texto);
+                    }
+                    case '{' -> saltarHasta('}');
+                    case ';' -> saltarHasta('\n');
+                    case '(' -> saltarVariante();
+                    default -> {
+                        // Los tokens no pasan de una línea, así que se toman de ella sin copiarlos uno a uno
+                        int inicio = posicion - 1;
+                        while (posicion < linea.length() && !Character.isWhitespace(linea.charAt(posicion))
+                                && "[{(;".indexOf(linea.charAt(posicion)) < 0) {
+                            posicion++;
+                        }
+                        String token = linea.substring(inicio, posicion);
+                        if (partida == null) {
+                            partida = new PartidaPdn();
+                        }
+                        if (leerToken(partida, token)) {
+                            return partida;
+                        }
+                    }
+                }
+            }
+            return partida;
+        }
+
+        /**
+         * Interpreta un token del texto de las jugadas.
+         *
+         * @return true si el token es el resultado, que termina la partida.
+         */
+        private static boolean leerToken(PartidaPdn partida, String token) {
+            int resultado = leerResultado(token);
+            if (resultado >= 0) {
+                partida.resultado = resultado;
+                return true;
+            }
+            // Número de jugada ("12." o "12...") delante de la jugada o suelto, y anotaciones detrás
+            int inicio = 0;
+            while (inicio < token.length() && Character.isDigit(token.charAt(inicio))) {
+                inicio++;
+            }
+            if (inicio < token.length() && token.charAt(inicio) == '.') {
+                while (inicio < token.length() && token.charAt(inicio) == '.') {
+                    inicio++;
+                }
+            } else {
+                inicio = 0;
+            }
+            int fin = token.length();
+            while (fin > inicio && "!?*+#".indexOf(token.charAt(fin - 1)) >= 0) {
+                fin--;
+            }
+            if (fin > inicio && token.charAt(inicio) != '$') {
+                partida.jugadas.add(token.substring(inicio, fin));
+            }
+            return false;
+        }
+
+        private static int leerResultado(String texto) {
+            return switch (texto) {
+                case "1-0", "2-0" -> GANAN_BLANCAS;
+                case "0-1", "0-2" -> GANAN_NEGRAS;
+                case "1/2-1/2", "1-1" -> TABLAS;
+                case "*" -> SIN_RESULTADO;
+                default -> -1;
+            };
+        }
+
+        /**
+         * Lee una etiqueta {@code [Nombre "valor"]} y se queda con la posición inicial y el resultado.
+         */
+        private void leerEtiqueta(PartidaPdn partida, StringBuilder texto) throws IOException {
+            texto.setLength(0);
+            int c;
+            boolean entreComillas = false;
+            while ((c = leerCaracter()) >= 0 && (c != ']' || entreComillas)) {
+                if (c == '"') {
+                    entreComillas = !entreComillas;
+                }
+                texto.append((char) c);
+            }
+            int comilla = texto.indexOf("\"");
+            int ultimaComilla = texto.lastIndexOf("\"");
+            if (comilla < 0 || ultimaComilla == comilla) {
+                return;
+            }
+            String nombre = texto.substring(0, comilla).strip();
+            String valor = texto.substring(comilla + 1, ultimaComilla);
+            if (nombre.equals("FEN")) {
+                partida.posicionInicial = valor;
+            } else if (nombre.equals("Result")) {
+                partida.resultado = Math.max(SIN_RESULTADO, leerResultado(valor));
+            }
+        }
+
+        private void saltarHasta(char fin) throws IOException {
+            int c;
+            do {
+                c = leerCaracter();
+            } while (c >= 0 && c != fin);
+        }
+
+        private void saltarVariante() throws IOException {
+            int nivel = 1;
+            int c;
+            while (nivel > 0 && (c = leerCaracter()) >= 0) {
+                if (c == '(') {
+                    nivel++;
+                } else if (c == ')') {
+                    nivel--;
+                } else if (c == '{') {
+                    saltarHasta('}');
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package org.project.game_objects;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Análisis por lotes de un archivo de posiciones, sin cargarlo entero en memoria.
+ * <p>
+ * Cada línea de la entrada es una posición, en la notación de {@link CodificadorPosicion} o como la
+ * secuencia de movimientos que lleva a ella desde la posición inicial, separados por espacios (una
+ * línea vacía es la posición inicial). Las líneas que empiezan por {@code #} se ignoran. Por cada
+ * posición se escribe una línea con el número de línea de la entrada, el mejor movimiento, su
+ * puntuación desde la perspectiva del bando al que le toca y la profundidad alcanzada, separados por
+ * tabuladores; o {@code ERROR} y el motivo si la línea no es válida. En una posición terminada el
+ * movimiento es {@code -}.
+ * <p>
+ * Las líneas pasan por una tubería acotada: el hilo que llama las lee y las interpreta, un grupo de
+ * hilos las busca en paralelo y un hilo escritor escribe los resultados en el orden de la entrada.
+ * Entre la lectura y la escritura hay como mucho {@link #POSICIONES_EN_VUELO} posiciones por hilo;
+ * cuando la cola se llena, la lectura espera a que la escritura avance.
+ * <p>
+ * Los hilos comparten dos IAs, una por color, y su tabla de transposición. Las posiciones de un lote
+ * se buscan a la vez y son independientes entre sí, así que cada búsqueda no avanza la generación
+ * de la tabla: se avanza una vez al empezar cada lote, y dentro del lote el reemplazo por
+ * profundidad funciona igual que en una búsqueda sola.
+ */
+public final class AnalizadorPosiciones {
+    /**
+     * Posiciones pendientes de escribir, por cada hilo de búsqueda.
+     */
+    static final int POSICIONES_EN_VUELO = 4;
+    /**
+     * Tamaño de la tabla de transposición de cada una de las dos IAs, en megabytes.
+     */
+    private static final int TAMANO_TABLA_MB = 64;
+    /**
+     * Cada cuánto comprueba la lectura, mientras espera sitio en la cola, si el escritor falló.
+     */
+    private static final long ESPERA_COLA_MS = 100;
+
+    private final AIPlayer iaBlancas;
+    private final AIPlayer iaNegras;
+    private final long tiempoMaximoMs;
+    private final int hilos;
+
+    /**
+     * Construye un analizador.
+     *
+     * @param profundidad    La profundidad máxima de búsqueda de cada posición.
+     * @param tiempoMaximoMs El tiempo máximo de búsqueda de cada posición en milisegundos, o 0 para
+     *                       no limitarlo.
+     * @param hilos          El número de posiciones que se buscan a la vez.
+     */
+    public AnalizadorPosiciones(int profundidad, long tiempoMaximoMs, int hilos) {
+        if (profundidad <= 0) {
+            throw new IllegalArgumentException("La profundidad debe ser positiva");
+        }
+        if (tiempoMaximoMs < 0) {
+            throw new IllegalArgumentException("El tiempo máximo no puede ser negativo");
+        }
+        if (hilos <= 0) {
+            throw new IllegalArgumentException("El número de hilos debe ser positivo");
+        }
+        this.iaBlancas = new AIPlayer(true, profundidad, TAMANO_TABLA_MB, 1);
+        this.iaNegras = new AIPlayer(false, profundidad, TAMANO_TABLA_MB, 1);
+        iaBlancas.setGeneracionExterna(true);
+        iaNegras.setGeneracionExterna(true);
+        this.tiempoMaximoMs = tiempoMaximoMs;
+        this.hilos = hilos;
+    }
+
+    /**
+     * Analiza todas las posiciones de la entrada y escribe los resultados en la salida.
+     *
+     * @param entrada La entrada, que se lee línea a línea.
+     * @param salida  La salida; se vacía al terminar, pero no se cierra.
+     * @return El número de posiciones escritas, incluidas las erróneas.
+     * @throws IOException si falla la lectura o la escritura.
+     */
+    public long analizar(BufferedReader entrada, Writer salida) throws IOException {
+        iaBlancas.nuevaGeneracion();
+        iaNegras.nuevaGeneracion();
+        BlockingQueue<Future<String>> pendientes = new ArrayBlockingQueue<>(hilos * POSICIONES_EN_VUELO);
+        ExecutorService buscadores = Executors.newFixedThreadPool(hilos);
+        ExecutorService hiloEscritor = Executors.newSingleThreadExecutor();
+        Future<Long> escritor = hiloEscritor.submit(() -> escribir(pendientes, salida));
+        try {
+            String linea;
+            long numero = 0;
+            while ((linea = entrada.readLine()) != null) {
+                numero++;
+                if (linea.startsWith("#")) {
+                    continue;
+                }
+                long numeroLinea = numero;
+                Future<String> resultado;
+                try {
+                    Posicion posicion = Posicion.leer(linea);
+                    resultado = buscadores.submit(() -> buscar(numeroLinea, posicion));
+                } catch (IllegalArgumentException e) {
+                    resultado = CompletableFuture.completedFuture(numeroLinea + "\tERROR\t" + e.getMessage());
+                }
+                if (!poner(pendientes, resultado, escritor)) {
+                    break; // El escritor terminó por un error, que se lanza abajo
+                }
+            }
+            poner(pendientes, CompletableFuture.completedFuture(null), escritor); // Fin de la entrada
+            return escritor.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Análisis interrumpido", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException error) {
+                throw error;
+            }
+            throw new IllegalStateException("Falló el análisis", e.getCause());
+        } finally {
+            buscadores.shutdownNow();
+            hiloEscritor.shutdownNow();
+        }
+    }
+
+    private String buscar(long numero, Posicion posicion) {
+        if (posicion.tabla.haTerminado()) {
+            int ganaQuienMueve = posicion.esTurnoDeBlancas ? Tabla.GANAN_BLANCAS : Tabla.GANAN_NEGRAS;
+            int puntuacion = posicion.tabla.estadoTerminal() == ganaQuienMueve
+                    ? AIPlayer.PUNTUACION_VICTORIA : -AIPlayer.PUNTUACION_VICTORIA;
+            return numero + "\t-\t" + puntuacion + "\t0";
+        }
+        AIPlayer ia = posicion.esTurnoDeBlancas ? iaBlancas : iaNegras;
+        AIPlayer.MejorIteracion resultado = ia.analizar(posicion.tabla, tiempoMaximoMs);
+        return numero + "\t" + resultado.getMovimiento() + "\t" + resultado.getPuntuacion() + "\t" + resultado.getProfundidad();
+    }
+
+    /**
+     * Cuerpo del hilo escritor: espera cada resultado en el orden de la entrada y lo escribe.
+     */
+    private static long escribir(BlockingQueue<Future<String>> pendientes, Writer salida)
+            throws IOException, InterruptedException, ExecutionException {
+        long escritas = 0;
+        while (true) {
+            String resultado = pendientes.take().get();
+            if (resultado == null) {
+                salida.flush();
+                return escritas;
+            }
+            salida.write(resultado);
+            salida.write('\n');
+            escritas++;
+        }
+    }
+
+    /**
+     * Encola un resultado, esperando mientras la cola esté llena y el escritor siga vivo.
+     *
+     * @return false si el escritor terminó antes de poder encolarlo.
+     */
+    private static boolean poner(BlockingQueue<Future<String>> pendientes, Future<String> resultado,
+                                 Future<Long> escritor) throws InterruptedException {
+        while (!pendientes.offer(resultado, ESPERA_COLA_MS, TimeUnit.MILLISECONDS)) {
+            if (escritor.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Una posición de la entrada y el bando al que le toca.
+     */
+    private static final class Posicion {
+        final Tabla tabla;
+        final boolean esTurnoDeBlancas;
+
+        private Posicion(Tabla tabla, boolean esTurnoDeBlancas) {
+            this.tabla = tabla;
+            this.esTurnoDeBlancas = esTurnoDeBlancas;
+        }
+
+        /**
+         * Lee una posición en notación o reproduce una secuencia de movimientos desde la posición
+         * inicial.
+         *
+         * @throws IllegalArgumentException si la notación no es válida o algún movimiento no es
+         *                                  válido o no es legal.
+         */
+        static Posicion leer(String linea) {
+            Tabla tabla = new Tabla();
+            if (linea.indexOf(':') >= 0) {
+                boolean turno = CodificadorPosicion.leerNotacion(linea, tabla);
+                return new Posicion(tabla, turno);
+            }
+            boolean turno = true;
+            for (String texto : linea.trim().split("\\s+")) {
+                if (texto.isEmpty()) {
+                    continue;
+                }
+                Movimiento movimiento = new Movimiento(texto);
+                if (tabla.haTerminado() || !tabla.getMovimientosDisponibles(turno).contains(movimiento)) {
+                    throw new IllegalArgumentException("movimiento ilegal: " + texto);
+                }
+                tabla.ejecutarMovimiento(movimiento, turno);
+                turno = !turno;
+            }
+            return new Posicion(tabla, turno);
+        }
+    }
+}
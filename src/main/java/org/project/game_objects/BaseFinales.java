@@ -0,0 +1,144 @@
+package org.project.game_objects;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base de datos de finales generada por {@link GeneradorFinales}, con el resultado exacto (victoria,
+ * derrota o tablas para el jugador que mueve) y la distancia al final de cada posición con pocas
+ * piezas.
+ * <p>
+ * Cada material tiene dos archivos: {@code .wld} con el resultado de cada posición en 2 bits y
+ * {@code .dtw} con la distancia en plies en un byte (saturada en 255). Las entradas se ordenan por
+ * {@code indice * 2 + turno}, con el índice de {@link IndiceFinales} y el turno 0 para las blancas.
+ * Los archivos se proyectan en memoria, así que cargar la base no ocupa memoria del heap y las
+ * consultas desde varios hilos no necesitan sincronización.
+ */
+public final class BaseFinales {
+    /**
+     * Valor devuelto por {@link #consultar} cuando la posición no está en la base.
+     */
+    static final int DESCONOCIDA = -1;
+    // Resultados desde la perspectiva del jugador que mueve, tal como se guardan en los archivos
+    static final int TABLAS = 0;
+    static final int GANA = 1;
+    static final int PIERDE = 2;
+    /**
+     * Mayor distancia que se puede guardar; las distancias mayores se guardan con este valor.
+     */
+    static final int DISTANCIA_MAXIMA = 255;
+    /**
+     * Mayor número de piezas por material para el que se generan archivos.
+     */
+    static final int PIEZAS_MAXIMAS = 5;
+
+    static final String EXTENSION_RESULTADOS = ".wld";
+    static final String EXTENSION_DISTANCIAS = ".dtw";
+
+    /**
+     * Segmentos por clave de material ({@link IndiceFinales#getClave()}), o null si falta el material.
+     */
+    private final Segmento[] segmentos = new Segmento[1 << 16];
+    private final int piezasMaximas;
+
+    private BaseFinales(List<Segmento> encontrados) {
+        int maximo = 0;
+        for (Segmento segmento : encontrados) {
+            IndiceFinales indice = segmento.indice;
+            segmentos[indice.getClave()] = segmento;
+            maximo = Math.max(maximo, indice.piezasBlancas + indice.reyesBlancos + indice.piezasNegras + indice.reyesNegros);
+        }
+        this.piezasMaximas = maximo;
+    }
+
+    /**
+     * Abre la base de finales de un directorio, proyectando en memoria los archivos de todos los
+     * materiales presentes.
+     *
+     * @param directorio El directorio con los archivos generados.
+     * @return La base abierta; si el directorio no tiene archivos, una base vacía.
+     * @throws IOException si no se puede leer algún archivo.
+     */
+    public static BaseFinales abrir(Path directorio) throws IOException {
+        List<Segmento> encontrados = new ArrayList<>();
+        for (IndiceFinales indice : GeneradorFinales.materiales(PIEZAS_MAXIMAS)) {
+            Path resultados = directorio.resolve(nombreArchivo(indice) + EXTENSION_RESULTADOS);
+            Path distancias = directorio.resolve(nombreArchivo(indice) + EXTENSION_DISTANCIAS);
+            if (Files.exists(resultados) && Files.exists(distancias)) {
+                encontrados.add(new Segmento(indice, mapear(resultados), mapear(distancias)));
+            }
+        }
+        return new BaseFinales(encontrados);
+    }
+
+    private static MappedByteBuffer mapear(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            return canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+    }
+
+    static String nombreArchivo(IndiceFinales indice) {
+        return "pb" + indice.piezasBlancas + "rb" + indice.reyesBlancos
+                + "pn" + indice.piezasNegras + "rn" + indice.reyesNegros;
+    }
+
+    /**
+     * Obtiene el mayor número de piezas de los materiales de la base.
+     *
+     * @return El número de piezas, o 0 si la base está vacía.
+     */
+    public int getPiezasMaximas() {
+        return piezasMaximas;
+    }
+
+    /**
+     * Consulta una posición. No asigna memoria.
+     *
+     * @param tabla            La posición.
+     * @param esTurnoDeBlancas True si mueven las blancas.
+     * @return El resultado y la distancia empaquetados (ver {@link #resultado} y {@link #distancia}),
+     *         o {@link #DESCONOCIDA} si el material no está en la base.
+     */
+    int consultar(Tabla tabla, boolean esTurnoDeBlancas) {
+        if (Long.bitCount(tabla.blancas | tabla.negras) > piezasMaximas) {
+            return DESCONOCIDA;
+        }
+        Segmento segmento = segmentos[IndiceFinales.claveDe(tabla.blancas, tabla.negras, tabla.reyes)];
+        if (segmento == null) {
+            return DESCONOCIDA;
+        }
+        long entrada = segmento.indice.indice(tabla.blancas, tabla.negras, tabla.reyes) * 2 + (esTurnoDeBlancas ? 0 : 1);
+        int resultado = (segmento.resultados.get((int) (entrada >>> 2)) >>> ((entrada & 3) * 2)) & 3;
+        int distancia = segmento.distancias.get((int) entrada) & 0xFF;
+        return resultado << 8 | distancia;
+    }
+
+    static int resultado(int consulta) {
+        return consulta >>> 8;
+    }
+
+    static int distancia(int consulta) {
+        return consulta & 0xFF;
+    }
+
+    /**
+     * Archivos proyectados de un material.
+     */
+    private static final class Segmento {
+        final IndiceFinales indice;
+        final MappedByteBuffer resultados;
+        final MappedByteBuffer distancias;
+
+        Segmento(IndiceFinales indice, MappedByteBuffer resultados, MappedByteBuffer distancias) {
+            this.indice = indice;
+            this.resultados = resultados;
+            this.distancias = distancias;
+        }
+    }
+}
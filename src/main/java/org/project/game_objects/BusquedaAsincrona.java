@@ -0,0 +1,130 @@
+package org.project.game_objects;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Búsqueda en curso lanzada con {@link AIPlayer#buscarAsincrono}. Es el futuro de su resultado y
+ * además permite consultar el mejor movimiento encontrado hasta el momento.
+ * <p>
+ * La búsqueda es una profundización iterativa hasta la profundidad de la IA, y termina de una de
+ * estas formas:
+ * <ul>
+ *     <li>Completa todas las iteraciones: el futuro se completa con su mejor movimiento.</li>
+ *     <li>Se agota el plazo, que empieza a contar cuando la tarea empieza a ejecutarse y no al
+ *     enviarla, para que una búsqueda que espera en la cola de un ejecutor ocupado no lo gaste
+ *     esperando: el futuro se completa en ese momento con el mejor movimiento de la iteración
+ *     completa más profunda.</li>
+ *     <li>Se cancela, o se completa desde fuera (por ejemplo con {@link #orTimeout}): la búsqueda se
+ *     detiene y sus hilos abandonan el trabajo en cuanto lo notan.</li>
+ * </ul>
+ * Si el futuro se completa sin que se haya completado ninguna iteración, {@link #getProfundidad()}
+ * es 0 y el movimiento no se buscó; {@link #esSinBusqueda()} distingue este caso del de un
+ * movimiento elegido sin buscar a propósito.
+ */
+public final class BusquedaAsincrona extends CompletableFuture<Movimiento> {
+    private final AIPlayer.MejorIteracion resultado;
+    private final long plazoMs;
+    private final boolean sinBusqueda;
+    /**
+     * El control de la búsqueda, o null hasta que la tarea empieza.
+     */
+    private volatile ControlBusqueda control;
+
+    /**
+     * Construye el futuro de una búsqueda que todavía no empezó.
+     *
+     * @param resultado Donde la búsqueda publica cada iteración completa.
+     * @param plazoMs   El plazo en milisegundos, o 0 para no limitarlo.
+     */
+    BusquedaAsincrona(AIPlayer.MejorIteracion resultado, long plazoMs) {
+        this(resultado, plazoMs, false);
+    }
+
+    private BusquedaAsincrona(AIPlayer.MejorIteracion resultado, long plazoMs, boolean sinBusqueda) {
+        this.resultado = resultado;
+        this.plazoMs = plazoMs;
+        this.sinBusqueda = sinBusqueda;
+        whenComplete((movimiento, error) -> {
+            ControlBusqueda actual = control;
+            if (actual != null) {
+                actual.detener();
+            }
+        });
+    }
+
+    /**
+     * Construye el futuro ya completo de un movimiento elegido sin buscar.
+     *
+     * @param movimiento El movimiento, o null si no hay movimientos.
+     * @return La búsqueda completa.
+     */
+    static BusquedaAsincrona sinBusqueda(Movimiento movimiento) {
+        BusquedaAsincrona busqueda = new BusquedaAsincrona(new AIPlayer.MejorIteracion(movimiento), 0, true);
+        busqueda.complete(movimiento);
+        return busqueda;
+    }
+
+    /**
+     * Registra el control de la búsqueda cuando la tarea empieza y programa el plazo desde ese
+     * momento. Si el futuro se completó mientras tanto, el control queda detenido.
+     *
+     * @param control El control de la búsqueda, que se detiene al completar el futuro.
+     */
+    void iniciar(ControlBusqueda control) {
+        this.control = control;
+        if (isDone()) {
+            control.detener();
+        } else if (plazoMs > 0) {
+            CompletableFuture.delayedExecutor(plazoMs, TimeUnit.MILLISECONDS).execute(this::completarConMejor);
+        }
+    }
+
+    /**
+     * Completa el futuro con el mejor movimiento encontrado hasta ahora; no tiene efecto si ya estaba
+     * completo.
+     */
+    void completarConMejor() {
+        complete(resultado.getMovimiento());
+    }
+
+    /**
+     * Obtiene el mejor movimiento encontrado hasta el momento.
+     *
+     * @return El mejor movimiento de la iteración completa más profunda, o el primer movimiento de la
+     *         raíz si todavía no se completó ninguna.
+     */
+    public Movimiento getMejorMovimiento() {
+        return resultado.getMovimiento();
+    }
+
+    /**
+     * Obtiene la profundidad de la iteración completa más profunda.
+     *
+     * @return La profundidad, o 0 si todavía no se completó ninguna.
+     */
+    public int getProfundidad() {
+        return resultado.getProfundidad();
+    }
+
+    /**
+     * Indica si el movimiento se eligió sin buscar: movimiento único, libro de aperturas, base de
+     * finales o ningún movimiento.
+     *
+     * @return true si no hubo búsqueda.
+     */
+    public boolean esSinBusqueda() {
+        return sinBusqueda;
+    }
+
+    /**
+     * Obtiene los nodos visitados hasta el momento. Los hilos los suman por lotes, así que mientras la
+     * búsqueda sigue el valor va algo por detrás.
+     *
+     * @return El número de nodos.
+     */
+    public long getNodos() {
+        ControlBusqueda actual = control;
+        return actual == null ? 0 : actual.getNodos();
+    }
+}
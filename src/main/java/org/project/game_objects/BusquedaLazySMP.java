@@ -0,0 +1,74 @@
+package org.project.game_objects;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Búsqueda paralela Lazy SMP: todos los hilos ejecutan la profundización iterativa completa desde
+ * la raíz y solo comparten la tabla de transposición. Para que no repitan exactamente el mismo
+ * trabajo, los hilos impares buscan un nivel más en cada iteración y cada hilo empieza por un
+ * movimiento distinto de la raíz; así unos rellenan la tabla con resultados que los otros reutilizan.
+ */
+final class BusquedaLazySMP {
+    private final AIPlayer ia;
+    private final ControlBusqueda control;
+
+    /**
+     * Construye una búsqueda para la IA dada.
+     *
+     * @param ia      La IA cuyos hilos auxiliares, evaluación y tabla de transposición se usan.
+     * @param control El control de la búsqueda.
+     */
+    BusquedaLazySMP(AIPlayer ia, ControlBusqueda control) {
+        this.ia = ia;
+        this.control = control;
+    }
+
+    /**
+     * Busca el mejor movimiento de la raíz hasta la profundidad indicada o hasta que se agoten los
+     * límites del control. El hilo que llama actúa como hilo principal; cuando termina, detiene a los
+     * auxiliares y espera a que abandonen su trabajo.
+     *
+     * @param tabla             El estado actual del tablero, que no se modifica.
+     * @param movimientos       Los movimientos de la raíz, con al menos un elemento.
+     * @param profundidadLimite La profundidad máxima de búsqueda.
+     * @param resultado         Donde los hilos publican el mejor movimiento de cada iteración completa.
+     */
+    void buscar(Tabla tabla, List<Movimiento> movimientos, int profundidadLimite, AIPlayer.MejorIteracion resultado) {
+        List<Future<?>> auxiliares = new ArrayList<>(ia.numHilos - 1);
+        for (int hilo = 1; hilo < ia.numHilos; hilo++) {
+            List<Movimiento> orden = new ArrayList<>(movimientos);
+            Collections.rotate(orden, -hilo);
+            int desfase = hilo & 1;
+            auxiliares.add(ia.getHilosAuxiliares().submit(() -> ejecutar(tabla, orden, profundidadLimite, desfase, resultado)));
+        }
+        control.sumarTareas(auxiliares.size());
+
+        ejecutar(tabla, new ArrayList<>(movimientos), profundidadLimite, 0, resultado);
+        control.detener();
+
+        for (Future<?> auxiliar : auxiliares) {
+            try {
+                auxiliar.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Falló un hilo auxiliar de Lazy SMP", e.getCause());
+            }
+        }
+    }
+
+    private void ejecutar(Tabla tabla, List<Movimiento> orden, int profundidadLimite, int desfase,
+                          AIPlayer.MejorIteracion resultado) {
+        ContextoBusqueda contexto = new ContextoBusqueda(tabla, control);
+        try {
+            ia.profundizar(contexto, orden, profundidadLimite, desfase, resultado);
+        } finally {
+            contexto.finalizar();
+        }
+    }
+}
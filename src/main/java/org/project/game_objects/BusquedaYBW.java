@@ -0,0 +1,314 @@
+package org.project.game_objects;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Búsqueda alfa-beta paralela con el esquema "Young Brothers Wait" sobre un {@link ForkJoinPool}.
+ * <p>
+ * En cada nodo se busca primero el hermano mayor (el primer movimiento) en el mismo hilo; con la
+ * ventana que deja, los hermanos menores se lanzan como tareas en paralelo. Si uno de ellos produce
+ * una poda, se cancela la rama y los demás abandonan su trabajo. Los nodos por debajo de
+ * {@link #PROFUNDIDAD_MINIMA_PARALELA} se buscan de forma secuencial con {@link AIPlayer#minimax}.
+ * A diferencia de paralelizar solo la raíz, el paralelismo disponible crece con la profundidad y no
+ * está limitado por el número de movimientos de la raíz.
+ * <p>
+ * Las tareas no crean su propio {@link ContextoBusqueda}: cada hilo del pool guarda los suyos, que
+ * conservan la pila de movimientos y las tablas de ordenación de una tarea a la siguiente, y solo
+ * copian el tablero del padre.
+ */
+final class BusquedaYBW {
+    /**
+     * Profundidad restante a partir de la cual un nodo deja de lanzar tareas paralelas.
+     */
+    static final int PROFUNDIDAD_MINIMA_PARALELA = 3;
+
+    private final AIPlayer ia;
+    private final ControlBusqueda control;
+    private final ForkJoinPool pool = ForkJoinPool.commonPool();
+    /**
+     * Contextos de cada hilo del pool, indexados por {@link ForkJoinWorkerThread#getPoolIndex()}. Cada
+     * posición la usa solo su hilo; el arreglo crece bajo el monitor de la búsqueda.
+     */
+    private volatile ContextosHilo[] contextosPorHilo;
+
+    /**
+     * Construye una búsqueda para la IA dada.
+     *
+     * @param ia      La IA cuya evaluación y tabla de transposición se usan.
+     * @param control El control de la búsqueda.
+     */
+    BusquedaYBW(AIPlayer ia, ControlBusqueda control) {
+        this.ia = ia;
+        this.control = control;
+        this.contextosPorHilo = new ContextosHilo[pool.getParallelism()];
+    }
+
+    /**
+     * Busca el mejor movimiento de la raíz a la profundidad indicada usando el pool común.
+     *
+     * @param tabla       El estado actual del tablero, que no se modifica.
+     * @param movimientos Los movimientos de la raíz, con al menos un elemento.
+     * @param profundidad La profundidad de búsqueda.
+     * @return El mejor movimiento encontrado.
+     */
+    Movimiento buscar(Tabla tabla, List<Movimiento> movimientos, int profundidad) {
+        return pool.invoke(ForkJoinTask.adapt(() -> buscarRaiz(tabla, movimientos, profundidad)));
+    }
+
+    private Movimiento buscarRaiz(Tabla tabla, List<Movimiento> movimientos, int profundidad) {
+        ContextoBusqueda contexto = new ContextoBusqueda(tabla, control);
+
+        // Hermano mayor
+        Movimiento mejorMovimiento = movimientos.getFirst();
+        contexto.tabla.hacerMovimiento(mejorMovimiento, ia.esBlanca);
+        int alpha = buscarNodo(contexto, profundidad - 1, 1, Integer.MIN_VALUE, Integer.MAX_VALUE, false);
+        contexto.tabla.deshacerMovimiento();
+        contexto.finalizar();
+
+        // Hermanos menores en paralelo con la cota del mayor
+        long[] codificados = new long[movimientos.size()];
+        for (int i = 0; i < codificados.length; i++) {
+            codificados[i] = Tabla.codificar(movimientos.get(i));
+        }
+        List<TareaHermano> hermanos = lanzarHermanos(contexto, codificados, 0, codificados.length, ia.esBlanca,
+                profundidad - 1, 1, alpha, Integer.MAX_VALUE, false, new ContextoBusqueda.Rama(null));
+        for (int i = 0; i < hermanos.size(); i++) {
+            int puntuacion = hermanos.get(i).join();
+            if (puntuacion > alpha && !control.estaDetenida()) {
+                alpha = puntuacion;
+                mejorMovimiento = movimientos.get(i + 1);
+            }
+        }
+        contexto.finalizar();
+        return mejorMovimiento;
+    }
+
+    /**
+     * Busca un nodo interior: el hermano mayor en este hilo y los menores en paralelo.
+     */
+    private int buscarNodo(ContextoBusqueda contexto, int profundidad, int ply, int alpha, int beta,
+                           boolean esJugadorMaximizador) {
+        if (profundidad <= PROFUNDIDAD_MINIMA_PARALELA) {
+            return ia.minimax(contexto, profundidad, ply, alpha, beta, esJugadorMaximizador);
+        }
+        if (contexto.visitarNodo()) {
+            return 0;
+        }
+        Tabla tabla = contexto.tabla;
+        if (ply >= OrdenadorMovimientos.PLY_MAXIMO || tabla.haTerminado()) {
+            return ia.evaluarTablero(tabla, contexto);
+        }
+
+        boolean turnoActual = esJugadorMaximizador == ia.esBlanca;
+        int puntuacionFinales = ia.puntuacionFinales(tabla, turnoActual);
+        if (puntuacionFinales != AIPlayer.SIN_FINALES) {
+            return puntuacionFinales;
+        }
+        long clave = tabla.getHash(turnoActual);
+        int alphaOriginal = alpha;
+        int betaOriginal = beta;
+
+        // En los nodos paralelos la tabla de transposición solo se usa para podas directas
+        long entrada = ia.tablaTransposicion.buscar(clave);
+        contexto.contarConsultaTabla(entrada != TablaTransposicion.SIN_ENTRADA);
+        if (entrada != TablaTransposicion.SIN_ENTRADA && TablaTransposicion.profundidad(entrada) >= profundidad) {
+            int puntuacion = TablaTransposicion.puntuacion(entrada);
+            int tipo = TablaTransposicion.tipo(entrada);
+            if (tipo == TablaTransposicion.EXACTA
+                    || (tipo == TablaTransposicion.INFERIOR && puntuacion >= beta)
+                    || (tipo == TablaTransposicion.SUPERIOR && puntuacion <= alpha)) {
+                return puntuacion;
+            }
+        }
+
+        long[] movimientos = contexto.movimientos;
+        int inicio = ply * Tabla.MAX_MOVIMIENTOS;
+        int cantidad = tabla.generarMovimientos(turnoActual, movimientos, inicio);
+        contexto.ordenador.ordenar(movimientos, inicio, cantidad, ply, AIPlayer.movimientoHash(entrada), turnoActual);
+
+        // Hermano mayor
+        long mejorMovimiento = movimientos[inicio];
+        tabla.hacerMovimiento(mejorMovimiento, turnoActual);
+        int mejorEval = buscarNodo(contexto, profundidad - 1, ply + 1, alpha, beta, !esJugadorMaximizador);
+        tabla.deshacerMovimiento();
+        if (contexto.estaDetenido()) {
+            return 0;
+        }
+        if (esJugadorMaximizador) {
+            alpha = Math.max(alpha, mejorEval);
+        } else {
+            beta = Math.min(beta, mejorEval);
+        }
+
+        // Hermanos menores, solo si el mayor no produjo una poda
+        if (beta <= alpha) {
+            contexto.ordenador.registrarCorte(mejorMovimiento, ply, profundidad, turnoActual);
+            contexto.contarCorte(true);
+        } else {
+            ContextoBusqueda.Rama rama = new ContextoBusqueda.Rama(contexto.rama);
+            List<TareaHermano> hermanos = lanzarHermanos(contexto, movimientos, inicio, cantidad, turnoActual,
+                    profundidad - 1, ply + 1, alpha, beta, !esJugadorMaximizador, rama);
+            for (int i = 0; i < hermanos.size(); i++) {
+                int eval = hermanos.get(i).join();
+                if (rama.estaCancelada()) {
+                    continue; // Ya hubo poda o se canceló un ancestro: solo se espera al resto
+                }
+                if (esJugadorMaximizador ? eval > mejorEval : eval < mejorEval) {
+                    mejorEval = eval;
+                    mejorMovimiento = movimientos[inicio + i + 1];
+                }
+                if (esJugadorMaximizador) {
+                    alpha = Math.max(alpha, eval);
+                } else {
+                    beta = Math.min(beta, eval);
+                }
+                if (beta <= alpha) {
+                    contexto.ordenador.registrarCorte(mejorMovimiento, ply, profundidad, turnoActual);
+                    contexto.contarCorte(false);
+                    rama.cancelar(); // Poda: los hermanos que siguen buscando ya no hacen falta
+                }
+            }
+        }
+
+        if (contexto.estaDetenido()) {
+            return 0;
+        }
+
+        int tipo;
+        if (mejorEval <= alphaOriginal) {
+            tipo = TablaTransposicion.SUPERIOR;
+        } else if (mejorEval >= betaOriginal) {
+            tipo = TablaTransposicion.INFERIOR;
+        } else {
+            tipo = TablaTransposicion.EXACTA;
+        }
+        ia.tablaTransposicion.guardar(clave, profundidad, tipo, mejorEval,
+                (int) mejorMovimiento & Tabla.MASCARA_ORIGEN_DESTINO);
+        return mejorEval;
+    }
+
+    /**
+     * Lanza una tarea por cada movimiento del tramo salvo el primero. El tablero del padre no cambia
+     * hasta que terminan todas, así que cada tarea lo copia cuando empieza.
+     */
+    private List<TareaHermano> lanzarHermanos(ContextoBusqueda contexto, long[] movimientos, int inicio, int cantidad,
+                                              boolean turno, int profundidad, int ply, int alpha, int beta,
+                                              boolean esJugadorMaximizador, ContextoBusqueda.Rama rama) {
+        List<TareaHermano> hermanos = new ArrayList<>(Math.max(0, cantidad - 1));
+        for (int i = inicio + 1; i < inicio + cantidad; i++) {
+            TareaHermano tarea = new TareaHermano(contexto.tabla, movimientos[i], turno, rama, profundidad, ply,
+                    alpha, beta, esJugadorMaximizador);
+            tarea.fork();
+            hermanos.add(tarea);
+        }
+        contexto.contarTareas(hermanos.size());
+        return hermanos;
+    }
+
+    /**
+     * Obtiene los contextos del hilo actual.
+     *
+     * @return Los contextos, o null si el hilo no es de {@link #pool}.
+     */
+    private ContextosHilo contextosDelHilo() {
+        if (!(Thread.currentThread() instanceof ForkJoinWorkerThread hilo) || hilo.getPool() != pool) {
+            return null;
+        }
+        int indice = hilo.getPoolIndex();
+        ContextosHilo[] porHilo = contextosPorHilo;
+        if (indice < porHilo.length && porHilo[indice] != null) {
+            return porHilo[indice];
+        }
+        return crearContextosHilo(indice);
+    }
+
+    private synchronized ContextosHilo crearContextosHilo(int indice) {
+        ContextosHilo[] porHilo = contextosPorHilo;
+        if (indice >= porHilo.length) {
+            porHilo = Arrays.copyOf(porHilo, Math.max(indice + 1, 2 * porHilo.length));
+        }
+        if (porHilo[indice] == null) {
+            porHilo[indice] = new ContextosHilo();
+        }
+        contextosPorHilo = porHilo;
+        return porHilo[indice];
+    }
+
+    /**
+     * Los contextos de un hilo del pool. Mientras espera a un hermano, el hilo puede ejecutar otras
+     * tareas, cuyo trabajo termina antes de que siga la que espera; por eso los contextos forman una
+     * pila y cada tarea anidada toma el siguiente.
+     */
+    private final class ContextosHilo {
+        private final List<ContextoBusqueda> contextos = new ArrayList<>();
+        private int enUso;
+
+        ContextoBusqueda tomar(Tabla tabla, ContextoBusqueda.Rama rama) {
+            ContextoBusqueda contexto;
+            if (enUso == contextos.size()) {
+                contexto = new ContextoBusqueda(tabla, control, rama);
+                contextos.add(contexto);
+            } else {
+                contexto = contextos.get(enUso);
+                contexto.reiniciar(tabla, rama);
+            }
+            enUso++;
+            return contexto;
+        }
+
+        void soltar() {
+            enUso--;
+        }
+    }
+
+    /**
+     * Tarea que busca un hermano menor sobre un contexto de su hilo.
+     */
+    @SuppressWarnings("serial")
+    private final class TareaHermano extends RecursiveTask<Integer> {
+        private final Tabla tablaPadre;
+        private final long movimiento;
+        private final boolean turno;
+        private final ContextoBusqueda.Rama rama;
+        private final int profundidad;
+        private final int ply;
+        private final int alpha;
+        private final int beta;
+        private final boolean esJugadorMaximizador;
+
+        TareaHermano(Tabla tablaPadre, long movimiento, boolean turno, ContextoBusqueda.Rama rama, int profundidad,
+                     int ply, int alpha, int beta, boolean esJugadorMaximizador) {
+            this.tablaPadre = tablaPadre;
+            this.movimiento = movimiento;
+            this.turno = turno;
+            this.rama = rama;
+            this.profundidad = profundidad;
+            this.ply = ply;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.esJugadorMaximizador = esJugadorMaximizador;
+        }
+
+        @Override
+        protected Integer compute() {
+            ContextosHilo contextos = contextosDelHilo();
+            ContextoBusqueda contexto = contextos != null ? contextos.tomar(tablaPadre, rama)
+                    : new ContextoBusqueda(tablaPadre, control, rama);
+            try {
+                contexto.tabla.hacerMovimiento(movimiento, turno);
+                return buscarNodo(contexto, profundidad, ply, alpha, beta, esJugadorMaximizador);
+            } finally {
+                contexto.finalizar();
+                if (contextos != null) {
+                    contextos.soltar();
+                }
+            }
+        }
+    }
+}
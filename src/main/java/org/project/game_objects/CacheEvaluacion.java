@@ -0,0 +1,81 @@
+package org.project.game_objects;
+
+import java.util.Arrays;
+
+/**
+ * Caché de evaluaciones estáticas de correspondencia directa, compartida entre los hilos de
+ * búsqueda de una IA. Es independiente de la tabla de transposición y mucho más pequeña, para que
+ * quepa en la caché L2 del procesador.
+ * <p>
+ * Cada posición tiene una sola entrada posible, elegida por los bits bajos de su hash; la entrada
+ * nueva reemplaza siempre a la anterior. Una entrada es un único {@code long}: la puntuación en los
+ * 32 bits bajos y, en los altos, los 32 bits altos del hash combinados por XOR con la puntuación. Si
+ * una escritura concurrente llegara a partirse en dos mitades de entradas distintas, la comprobación
+ * al leer fallaría igual que en {@link TablaTransposicion}, así que no hacen falta cerrojos.
+ * <p>
+ * Las puntuaciones se guardan desde la perspectiva del {@link AIPlayer} que es dueño de la caché.
+ */
+final class CacheEvaluacion {
+    /**
+     * Valor devuelto por {@link #buscar(long)} cuando la posición no está en la caché. Queda fuera
+     * del rango de las puntuaciones.
+     */
+    static final long SIN_ENTRADA = Long.MIN_VALUE;
+
+    private static final int BYTES_POR_ENTRADA = 8;
+
+    private final long[] entradas;
+    /**
+     * Máscara para convertir un hash en el índice de su entrada.
+     */
+    private final int mascara;
+
+    /**
+     * Construye una caché que ocupa como máximo el tamaño indicado. El número de entradas se redondea
+     * hacia abajo a una potencia de dos.
+     *
+     * @param tamanoKB El tamaño de la caché en kilobytes.
+     */
+    CacheEvaluacion(int tamanoKB) {
+        if (tamanoKB <= 0) {
+            throw new IllegalArgumentException("El tamaño de la caché de evaluación debe ser positivo");
+        }
+        long numEntradas = Long.highestOneBit((long) tamanoKB * 1024 / BYTES_POR_ENTRADA);
+        numEntradas = Math.min(Math.max(numEntradas, 1), 1L << 30);
+        this.entradas = new long[(int) numEntradas];
+        this.mascara = (int) numEntradas - 1;
+    }
+
+    /**
+     * Busca la evaluación de una posición.
+     *
+     * @param hash El hash Zobrist de la posición, sin el turno.
+     * @return La puntuación, o {@link #SIN_ENTRADA} si no está.
+     */
+    long buscar(long hash) {
+        long entrada = entradas[(int) hash & mascara];
+        int puntuacion = (int) entrada;
+        // Una entrada vacía solo coincidiría con un hash de 32 bits altos nulos y puntuación 0
+        if (entrada == 0 || ((int) (entrada >>> 32) ^ puntuacion) != (int) (hash >>> 32)) {
+            return SIN_ENTRADA;
+        }
+        return puntuacion;
+    }
+
+    /**
+     * Guarda la evaluación de una posición, reemplazando la entrada que hubiera.
+     *
+     * @param hash       El hash Zobrist de la posición, sin el turno.
+     * @param puntuacion La evaluación estática.
+     */
+    void guardar(long hash, int puntuacion) {
+        entradas[(int) hash & mascara] = (long) ((int) (hash >>> 32) ^ puntuacion) << 32 | (puntuacion & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Vacía la caché.
+     */
+    void limpiar() {
+        Arrays.fill(entradas, 0L);
+    }
+}
@@ -0,0 +1,236 @@
+package org.project.game_objects;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Cliente de carga para {@link ServidorJuegos}: abre muchas conexiones simultáneas, cada una en un
+ * hilo virtual, y en cada una juega partidas en las que las blancas hacen movimientos aleatorios y
+ * las negras piden su movimiento a la IA del servidor. Mide las peticiones por segundo y la latencia
+ * de cada petición, por separado la de los movimientos de la IA. Las respuestas {@code ERROR ocupado}
+ * a un movimiento de la IA se cuentan aparte, como respuestas degradadas, y se vuelve a pedir el
+ * movimiento; su latencia no entra en la de los movimientos de la IA.
+ * <p>
+ * El cliente lleva su propia copia de cada partida para elegir movimientos legales y comprobar las
+ * respuestas del servidor.
+ */
+public final class ClienteCarga {
+    /**
+     * Respuesta del servidor a {@code IA} cuando la búsqueda no completó ninguna iteración.
+     */
+    private static final String OCUPADO = "ERROR ocupado";
+
+    private ClienteCarga() {
+    }
+
+    /**
+     * Lanza la carga y espera a que termine.
+     *
+     * @param direccion  La dirección del servidor.
+     * @param conexiones El número de conexiones simultáneas.
+     * @param duracionMs Cuánto dura la carga en milisegundos; las partidas en curso se abandonan.
+     * @param semilla    La semilla de los movimientos aleatorios.
+     * @return Las latencias medidas.
+     * @throws IOException si alguna conexión falla.
+     */
+    public static Resultado ejecutar(InetSocketAddress direccion, int conexiones, long duracionMs, long semilla)
+            throws IOException {
+        if (conexiones <= 0) {
+            throw new IllegalArgumentException("El número de conexiones debe ser positivo");
+        }
+        if (duracionMs <= 0) {
+            throw new IllegalArgumentException("La duración debe ser positiva");
+        }
+        long inicio = System.nanoTime();
+        long fin = inicio + duracionMs * 1_000_000;
+        SplittableRandom semillas = new SplittableRandom(semilla);
+        List<Future<Latencias[]>> clientes = new ArrayList<>(conexiones);
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < conexiones; i++) {
+                SplittableRandom aleatorio = semillas.split();
+                clientes.add(hilos.submit(() -> jugar(direccion, fin, aleatorio)));
+            }
+
+            Latencias todas = new Latencias();
+            Latencias movimientosIA = new Latencias();
+            Latencias degradadas = new Latencias();
+            for (Future<Latencias[]> cliente : clientes) {
+                Latencias[] latencias = cliente.get();
+                todas.agregar(latencias[0]);
+                movimientosIA.agregar(latencias[1]);
+                degradadas.agregar(latencias[2]);
+            }
+            return new Resultado(todas, movimientosIA, degradadas, System.nanoTime() - inicio);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Carga interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Falló una conexión", e.getCause());
+        }
+    }
+
+    /**
+     * Juega partidas por una conexión hasta el final de la carga.
+     *
+     * @return Las latencias de todas las peticiones, las de los movimientos de la IA y las de las
+     *         respuestas degradadas.
+     */
+    private static Latencias[] jugar(InetSocketAddress direccion, long fin, SplittableRandom aleatorio)
+            throws IOException {
+        Latencias todas = new Latencias();
+        Latencias movimientosIA = new Latencias();
+        Latencias degradadas = new Latencias();
+        try (Socket socket = new Socket(direccion.getAddress(), direccion.getPort());
+             BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter salida = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+            socket.setTcpNoDelay(true);
+            while (System.nanoTime() < fin) {
+                pedir(entrada, salida, "NUEVA", todas);
+                Tabla tabla = new Tabla();
+                boolean turnoDeBlancas = true;
+                while (!tabla.haTerminado() && System.nanoTime() < fin) {
+                    Movimiento movimiento;
+                    if (turnoDeBlancas) {
+                        List<Movimiento> movimientos = tabla.getMovimientosDisponibles(true);
+                        movimiento = movimientos.get(aleatorio.nextInt(movimientos.size()));
+                        pedir(entrada, salida, "MOVER " + movimiento, todas);
+                    } else {
+                        long inicio = System.nanoTime();
+                        String respuesta = pedir(entrada, salida, "IA", todas);
+                        if (respuesta.equals(OCUPADO)) {
+                            degradadas.registrar(System.nanoTime() - inicio);
+                            continue; // El servidor no jugó: se vuelve a pedir
+                        }
+                        movimientosIA.registrar(System.nanoTime() - inicio);
+                        movimiento = new Movimiento(respuesta.split(" ")[1]);
+                    }
+                    tabla.ejecutarMovimiento(movimiento, turnoDeBlancas);
+                    turnoDeBlancas = !turnoDeBlancas;
+                }
+            }
+            pedir(entrada, salida, "SALIR", todas);
+        }
+        return new Latencias[]{todas, movimientosIA, degradadas};
+    }
+
+    /**
+     * Envía un comando y espera su respuesta.
+     *
+     * @throws IOException si la conexión se cierra o el servidor responde con un error distinto de
+     *                     {@code ERROR ocupado}.
+     */
+    private static String pedir(BufferedReader entrada, PrintWriter salida, String comando, Latencias latencias)
+            throws IOException {
+        long inicio = System.nanoTime();
+        salida.println(comando);
+        String respuesta = entrada.readLine();
+        latencias.registrar(System.nanoTime() - inicio);
+        if (respuesta == null) {
+            throw new IOException("El servidor cerró la conexión");
+        }
+        if (!respuesta.startsWith("OK") && !respuesta.equals(OCUPADO)) {
+            throw new IOException(comando + ": " + respuesta);
+        }
+        return respuesta;
+    }
+
+    /**
+     * Latencias en nanosegundos, en un arreglo que crece según hace falta.
+     */
+    static final class Latencias {
+        private long[] valores = new long[256];
+        private int cantidad;
+
+        void registrar(long nanos) {
+            if (cantidad == valores.length) {
+                valores = Arrays.copyOf(valores, cantidad * 2);
+            }
+            valores[cantidad++] = nanos;
+        }
+
+        void agregar(Latencias otras) {
+            for (int i = 0; i < otras.cantidad; i++) {
+                registrar(otras.valores[i]);
+            }
+        }
+
+        int getCantidad() {
+            return cantidad;
+        }
+
+        /**
+         * Calcula un percentil por el método del rango más cercano.
+         *
+         * @param percentil El percentil, entre 0 y 100.
+         * @return La latencia en milisegundos, o 0 si no hay medidas.
+         */
+        double percentilMs(double percentil) {
+            if (cantidad == 0) {
+                return 0;
+            }
+            long[] ordenados = Arrays.copyOf(valores, cantidad);
+            Arrays.sort(ordenados);
+            int indice = (int) Math.ceil(percentil / 100 * cantidad) - 1;
+            return ordenados[Math.max(0, indice)] / 1e6;
+        }
+    }
+
+    /**
+     * Resultado de una carga.
+     */
+    public static final class Resultado {
+        private final Latencias todas;
+        private final Latencias movimientosIA;
+        private final Latencias degradadas;
+        private final long nanos;
+
+        Resultado(Latencias todas, Latencias movimientosIA, Latencias degradadas, long nanos) {
+            this.todas = todas;
+            this.movimientosIA = movimientosIA;
+            this.degradadas = degradadas;
+            this.nanos = nanos;
+        }
+
+        public double getPeticionesPorSegundo() {
+            return todas.getCantidad() * 1e9 / nanos;
+        }
+
+        public double getP99MovimientoIAMs() {
+            return movimientosIA.percentilMs(99);
+        }
+
+        /**
+         * Obtiene el número de respuestas {@code ERROR ocupado} a los movimientos de la IA.
+         *
+         * @return El número de respuestas degradadas.
+         */
+        public int getRespuestasDegradadas() {
+            return degradadas.getCantidad();
+        }
+
+        public String resumen() {
+            return String.format("%d peticiones en %.1f s: %.0f peticiones/s%n", todas.getCantidad(), nanos / 1e9,
+                    getPeticionesPorSegundo())
+                    + String.format("Latencia de las peticiones: p50 %.2f ms, p99 %.2f ms%n",
+                    todas.percentilMs(50), todas.percentilMs(99))
+                    + String.format("Latencia de los movimientos de la IA (%d): p50 %.2f ms, p99 %.2f ms%n",
+                    movimientosIA.getCantidad(), movimientosIA.percentilMs(50), getP99MovimientoIAMs())
+                    + String.format("Respuestas degradadas (ERROR ocupado): %d, %.1f %% de las peticiones a la IA%n",
+                    getRespuestasDegradadas(),
+                    100.0 * getRespuestasDegradadas() / Math.max(1, movimientosIA.getCantidad() + getRespuestasDegradadas()));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.project.game_objects;
+
+/**
+ * Conversión de posiciones (tablero y turno) a texto y a binario, y de vuelta a {@link Tabla}.
+ * <p>
+ * La notación de texto sigue el FEN de PDN: {@code W:W21,22,K3:B1,2,K30}, con el turno, las piezas
+ * blancas y las negras separados por dos puntos, y las casillas numeradas de 1 a 32 por filas desde
+ * la fila 0 (donde empiezan las negras), de izquierda a derecha. Se usan las letras de PDN:
+ * {@code W} para las blancas y {@code B} para las negras; {@code K} marca los reyes. Al leer se
+ * aceptan también rangos de casillas ({@code W:W21-32:B1-12}).
+ * <p>
+ * La codificación binaria ocupa dos {@code long}: el primero lleva las piezas blancas en los 32 bits
+ * bajos y las negras en los altos, y el segundo los reyes en los 32 bits bajos y el turno en el bit
+ * 32. Cada bit es una casilla en el mismo orden que la notación. Como los bitboards de {@link Tabla}
+ * usan casillas fantasma, la conversión es un {@link Long#compress} o {@link Long#expand} por
+ * bitboard, sin recorrer las casillas.
+ */
+public final class CodificadorPosicion {
+    /**
+     * Bit del segundo código que indica que el turno es de las blancas.
+     */
+    private static final long BIT_TURNO_BLANCAS = 1L << 32;
+    private static final long MASCARA_32 = 0xFFFF_FFFFL;
+
+    private CodificadorPosicion() {
+    }
+
+    /**
+     * Escribe la posición en notación de texto.
+     *
+     * @param tabla            El tablero.
+     * @param esTurnoDeBlancas True si mueven las blancas.
+     * @return La notación, por ejemplo {@code W:W21,22,K3:B1,2,K30}.
+     */
+    public static String escribirNotacion(Tabla tabla, boolean esTurnoDeBlancas) {
+        StringBuilder notacion = new StringBuilder(128);
+        notacion.append(esTurnoDeBlancas ? 'W' : 'B').append(":W");
+        escribirCasillas(notacion, tabla.blancas, tabla.reyes);
+        notacion.append(":B");
+        escribirCasillas(notacion, tabla.negras, tabla.reyes);
+        return notacion.toString();
+    }
+
+    private static void escribirCasillas(StringBuilder notacion, long piezas, long reyes) {
+        long compactas = Long.compress(piezas, Tabla.CASILLAS_VALIDAS);
+        long reyesCompactos = Long.compress(reyes, Tabla.CASILLAS_VALIDAS);
+        boolean primera = true;
+        while (compactas != 0) {
+            int casilla = Long.numberOfTrailingZeros(compactas);
+            compactas &= compactas - 1;
+            if (!primera) {
+                notacion.append(',');
+            }
+            primera = false;
+            if ((reyesCompactos & (1L << casilla)) != 0) {
+                notacion.append('K');
+            }
+            notacion.append(casilla + 1);
+        }
+    }
+
+    /**
+     * Coloca en el tablero la posición escrita en notación de texto y vacía su pila de deshacer.
+     *
+     * @param notacion La notación.
+     * @param tabla    El tablero que se modifica.
+     * @return true si el turno es de las blancas.
+     * @throws IllegalArgumentException si la notación no es válida; el tablero no se modifica.
+     */
+    public static boolean leerNotacion(String notacion, Tabla tabla) {
+        String[] partes = notacion.strip().split(":");
+        if (partes.length != 3) {
+            throw new IllegalArgumentException("Notación inválida: " + notacion);
+        }
+        boolean esTurnoDeBlancas = leerColor(partes[0], notacion);
+        long[] piezas = new long[2];
+        boolean[] leido = new boolean[2];
+        long reyes = 0;
+        for (int i = 1; i <= 2; i++) {
+            String parte = partes[i].strip();
+            if (parte.isEmpty()) {
+                throw new IllegalArgumentException("Notación inválida: " + notacion);
+            }
+            int color = leerColor(parte.substring(0, 1), notacion) ? 0 : 1;
+            if (leido[color]) {
+                throw new IllegalArgumentException("Color repetido en la notación: " + notacion);
+            }
+            leido[color] = true;
+            String casillas = parte.substring(1).strip();
+            if (casillas.endsWith(".")) {
+                casillas = casillas.substring(0, casillas.length() - 1);
+            }
+            if (casillas.isEmpty()) {
+                continue;
+            }
+            for (String elemento : casillas.split(",")) {
+                elemento = elemento.strip();
+                boolean esRey = elemento.startsWith("K");
+                if (esRey) {
+                    elemento = elemento.substring(1);
+                }
+                int guion = elemento.indexOf('-');
+                int desde = leerCasilla(guion < 0 ? elemento : elemento.substring(0, guion), notacion);
+                int hasta = guion < 0 ? desde : leerCasilla(elemento.substring(guion + 1), notacion);
+                for (int casilla = desde; casilla <= hasta; casilla++) {
+                    long bit = 1L << (casilla - 1);
+                    if (((piezas[0] | piezas[1]) & bit) != 0) {
+                        throw new IllegalArgumentException("Casilla repetida en la notación: " + casilla);
+                    }
+                    piezas[color] |= bit;
+                    if (esRey) {
+                        reyes |= bit;
+                    }
+                }
+            }
+        }
+        tabla.colocarPiezas(Long.expand(piezas[0], Tabla.CASILLAS_VALIDAS), Long.expand(piezas[1], Tabla.CASILLAS_VALIDAS),
+                Long.expand(reyes, Tabla.CASILLAS_VALIDAS));
+        return esTurnoDeBlancas;
+    }
+
+    private static boolean leerColor(String texto, String notacion) {
+        return switch (texto.strip()) {
+            case "W" -> true;
+            case "B" -> false;
+            default -> throw new IllegalArgumentException("Color inválido en la notación: " + notacion);
+        };
+    }
+
+    private static int leerCasilla(String texto, String notacion) {
+        try {
+            int casilla = Integer.parseInt(texto.strip());
+            if (casilla >= 1 && casilla <= 32) {
+                return casilla;
+            }
+        } catch (NumberFormatException e) {
+            // Se informa abajo
+        }
+        throw new IllegalArgumentException("Casilla inválida en la notación: " + notacion);
+    }
+
+    /**
+     * Obtiene el número de casilla de la notación (1-32) de un bit de {@link Tabla}.
+     */
+    static int numeroDeBit(int bit) {
+        return Long.bitCount(Tabla.CASILLAS_VALIDAS & ((1L << bit) - 1)) + 1;
+    }
+
+    /**
+     * Obtiene el bit de {@link Tabla} de un número de casilla de la notación (1-32).
+     */
+    static int bitDeNumero(int numero) {
+        return Long.numberOfTrailingZeros(Long.expand(1L << (numero - 1), Tabla.CASILLAS_VALIDAS));
+    }
+
+    /**
+     * Codifica las piezas de ambos colores en un {@code long}.
+     *
+     * @param tabla El tablero.
+     * @return Las blancas en los 32 bits bajos y las negras en los altos.
+     */
+    public static long codificarPiezas(Tabla tabla) {
+        return Long.compress(tabla.blancas, Tabla.CASILLAS_VALIDAS)
+                | Long.compress(tabla.negras, Tabla.CASILLAS_VALIDAS) << 32;
+    }
+
+    /**
+     * Codifica los reyes y el turno en un {@code long}.
+     *
+     * @param tabla            El tablero.
+     * @param esTurnoDeBlancas True si mueven las blancas.
+     * @return Los reyes en los 32 bits bajos y el turno en el bit 32.
+     */
+    public static long codificarReyes(Tabla tabla, boolean esTurnoDeBlancas) {
+        return Long.compress(tabla.reyes, Tabla.CASILLAS_VALIDAS) | (esTurnoDeBlancas ? BIT_TURNO_BLANCAS : 0);
+    }
+
+    /**
+     * Coloca en el tablero una posición codificada y vacía su pila de deshacer.
+     *
+     * @param piezas El código de {@link #codificarPiezas}.
+     * @param reyes  El código de {@link #codificarReyes}.
+     * @param tabla  El tablero que se modifica.
+     * @return true si el turno es de las blancas.
+     * @throws IllegalArgumentException si los códigos no corresponden a una posición válida.
+     */
+    public static boolean decodificar(long piezas, long reyes, Tabla tabla) {
+        if ((reyes & ~(MASCARA_32 | BIT_TURNO_BLANCAS)) != 0) {
+            throw new IllegalArgumentException("Código de posición inválido");
+        }
+        tabla.colocarPiezas(Long.expand(piezas & MASCARA_32, Tabla.CASILLAS_VALIDAS),
+                Long.expand(piezas >>> 32, Tabla.CASILLAS_VALIDAS),
+                Long.expand(reyes & MASCARA_32, Tabla.CASILLAS_VALIDAS));
+        return (reyes & BIT_TURNO_BLANCAS) != 0;
+    }
+}
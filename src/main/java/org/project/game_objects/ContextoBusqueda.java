@@ -0,0 +1,215 @@
+package org.project.game_objects;
+
+/**
+ * Estado propio de un hilo de búsqueda: su copia del tablero, sobre la que aplica y revierte
+ * movimientos, su pila de movimientos generados, sus tablas de ordenación, los nodos visitados y
+ * demás contadores que todavía no sumó al {@link ControlBusqueda} compartido y la rama paralela a la
+ * que pertenece, si la hay. Nunca lo usan dos hilos a la vez, así que los contadores son campos
+ * simples que solo se suman al control por lotes; {@link BusquedaYBW} reutiliza el mismo contexto
+ * para las tareas que ejecuta un hilo una tras otra.
+ */
+final class ContextoBusqueda {
+    /**
+     * Cada cuántos nodos se suman los nodos locales al control y se comprueban los límites.
+     */
+    private static final int NODOS_POR_LOTE = 1024;
+
+    /**
+     * La copia del tablero que modifica este hilo.
+     */
+    final Tabla tabla;
+    /**
+     * El control de límites compartido por la búsqueda.
+     */
+    final ControlBusqueda control;
+    /**
+     * La rama paralela en la que trabaja este hilo, o null si depende directamente de la raíz.
+     */
+    Rama rama;
+    /**
+     * Tablas de ordenación de movimientos (asesinos e historia) de este hilo.
+     */
+    final OrdenadorMovimientos ordenador = new OrdenadorMovimientos();
+    /**
+     * Pila de movimientos codificados: el nodo a distancia {@code ply} de la raíz escribe los suyos
+     * a partir de {@code ply * Tabla.MAX_MOVIMIENTOS}, así la búsqueda no asigna memoria por nodo.
+     */
+    final long[] movimientos = new long[OrdenadorMovimientos.PLY_MAXIMO * Tabla.MAX_MOVIMIENTOS];
+    private int nodosPendientes;
+    private int nodosQuiescenciaPendientes;
+    private int evaluacionesPendientes;
+    private int cortesPendientes;
+    private int cortesPrimerMovimientoPendientes;
+    private int consultasTablaPendientes;
+    private int aciertosTablaPendientes;
+    private int consultasCachePendientes;
+    private int aciertosCachePendientes;
+    private int tareasPendientes;
+
+    /**
+     * Construye un contexto sobre una copia del tablero dado.
+     *
+     * @param tabla   El tablero de partida, que no se modifica.
+     * @param control El control de la búsqueda.
+     */
+    ContextoBusqueda(Tabla tabla, ControlBusqueda control) {
+        this(tabla, control, null);
+    }
+
+    /**
+     * Construye un contexto sobre una copia del tablero dado, dentro de una rama paralela.
+     *
+     * @param tabla   El tablero de partida, que no se modifica.
+     * @param control El control de la búsqueda.
+     * @param rama    La rama paralela a la que pertenece el hilo.
+     */
+    ContextoBusqueda(Tabla tabla, ControlBusqueda control, Rama rama) {
+        this.tabla = new Tabla(tabla);
+        this.control = control;
+        this.rama = rama;
+    }
+
+    /**
+     * Prepara el contexto para otra tarea de la misma búsqueda: copia el tablero dado y cambia de
+     * rama, conservando la pila de movimientos y las tablas de ordenación.
+     *
+     * @param tabla El tablero de partida, que no se modifica.
+     * @param rama  La rama paralela a la que pertenece la tarea.
+     */
+    void reiniciar(Tabla tabla, Rama rama) {
+        this.tabla.copiar(tabla);
+        this.rama = rama;
+    }
+
+    /**
+     * Registra la visita de un nodo.
+     *
+     * @return true si la búsqueda debe abandonarse.
+     */
+    boolean visitarNodo() {
+        if (++nodosPendientes >= NODOS_POR_LOTE) {
+            finalizar();
+        }
+        return estaDetenido();
+    }
+
+    /**
+     * Registra la visita de un nodo de la búsqueda de quiescencia, que cuenta para los límites
+     * igual que los demás pero se contabiliza también por separado.
+     *
+     * @return true si la búsqueda debe abandonarse.
+     */
+    boolean visitarNodoQuiescencia() {
+        nodosQuiescenciaPendientes++;
+        return visitarNodo();
+    }
+
+    /**
+     * Registra la evaluación estática de una hoja.
+     */
+    void contarEvaluacion() {
+        evaluacionesPendientes++;
+    }
+
+    /**
+     * Registra una poda beta.
+     *
+     * @param primerMovimiento true si la produjo el primer movimiento probado en el nodo.
+     */
+    void contarCorte(boolean primerMovimiento) {
+        cortesPendientes++;
+        if (primerMovimiento) {
+            cortesPrimerMovimientoPendientes++;
+        }
+    }
+
+    /**
+     * Registra una consulta a la tabla de transposición.
+     *
+     * @param acierto true si la posición estaba en la tabla.
+     */
+    void contarConsultaTabla(boolean acierto) {
+        consultasTablaPendientes++;
+        if (acierto) {
+            aciertosTablaPendientes++;
+        }
+    }
+
+    /**
+     * Registra una consulta a la caché de evaluaciones.
+     *
+     * @param acierto true si la evaluación estaba en la caché.
+     */
+    void contarConsultaCacheEvaluacion(boolean acierto) {
+        consultasCachePendientes++;
+        if (acierto) {
+            aciertosCachePendientes++;
+        }
+    }
+
+    /**
+     * Registra tareas paralelas lanzadas desde este hilo.
+     *
+     * @param cantidad El número de tareas.
+     */
+    void contarTareas(int cantidad) {
+        tareasPendientes += cantidad;
+    }
+
+    /**
+     * Verifica si este hilo debe abandonar su trabajo, porque la búsqueda se detuvo o porque se
+     * canceló su rama o alguna rama que la contiene.
+     *
+     * @return true si el resultado del hilo ya no se usará.
+     */
+    boolean estaDetenido() {
+        return control.estaDetenida() || (rama != null && rama.estaCancelada());
+    }
+
+    /**
+     * Suma al control los nodos y contadores pendientes de este hilo.
+     */
+    void finalizar() {
+        control.sumarContadores(evaluacionesPendientes, cortesPendientes, cortesPrimerMovimientoPendientes,
+                consultasTablaPendientes, aciertosTablaPendientes, consultasCachePendientes, aciertosCachePendientes,
+                tareasPendientes);
+        evaluacionesPendientes = 0;
+        cortesPendientes = 0;
+        cortesPrimerMovimientoPendientes = 0;
+        consultasTablaPendientes = 0;
+        aciertosTablaPendientes = 0;
+        consultasCachePendientes = 0;
+        aciertosCachePendientes = 0;
+        tareasPendientes = 0;
+        control.sumarNodos(nodosPendientes, nodosQuiescenciaPendientes);
+        nodosPendientes = 0;
+        nodosQuiescenciaPendientes = 0;
+    }
+
+    /**
+     * Conjunto de búsquedas hermanas lanzadas en paralelo desde un mismo nodo. Cuando una de ellas
+     * produce una poda, el nodo cancela la rama y todas las búsquedas que cuelgan de ella, incluidas
+     * las ramas anidadas, abandonan su trabajo.
+     */
+    static final class Rama {
+        private final Rama padre;
+        private volatile boolean cancelada;
+
+        Rama(Rama padre) {
+            this.padre = padre;
+        }
+
+        void cancelar() {
+            cancelada = true;
+        }
+
+        boolean estaCancelada() {
+            for (Rama r = this; r != null; r = r.padre) {
+                if (r.cancelada) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
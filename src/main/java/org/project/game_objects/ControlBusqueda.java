@@ -0,0 +1,236 @@
+package org.project.game_objects;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Controla los límites de una búsqueda: un tiempo máximo y un número máximo de nodos.
+ * Es compartido por todos los hilos que participan en la misma búsqueda; cuando se agota alguno
+ * de los límites, la búsqueda queda detenida y los hilos abandonan su trabajo en cuanto lo notan.
+ * <p>
+ * También reúne las estadísticas de la búsqueda (evaluaciones, podas, consultas a la tabla de
+ * transposición y a la caché de evaluaciones y tareas paralelas). Cada hilo las cuenta en su
+ * {@link ContextoBusqueda} y las suma aquí por lotes; como no se usan para los límites, se guardan
+ * en {@link LongAdder}s, que no compiten por la misma línea de caché cuando varios hilos suman a
+ * la vez.
+ */
+final class ControlBusqueda {
+    /**
+     * Instante (en {@link System#nanoTime()}) en el que se agota el tiempo.
+     */
+    private final long limiteTiempoNanos;
+    /**
+     * Número máximo de nodos que se pueden visitar.
+     */
+    private final long limiteNodos;
+    /**
+     * Nodos visitados por todos los hilos. Cada hilo los acumula localmente y los suma por lotes.
+     */
+    private final AtomicLong nodos = new AtomicLong();
+    /**
+     * De los nodos visitados, los que pertenecen a la búsqueda de quiescencia.
+     */
+    private final AtomicLong nodosQuiescencia = new AtomicLong();
+    private final LongAdder evaluaciones = new LongAdder();
+    private final LongAdder cortes = new LongAdder();
+    private final LongAdder cortesPrimerMovimiento = new LongAdder();
+    private final LongAdder consultasTabla = new LongAdder();
+    private final LongAdder aciertosTabla = new LongAdder();
+    private final LongAdder consultasCacheEvaluacion = new LongAdder();
+    private final LongAdder aciertosCacheEvaluacion = new LongAdder();
+    private final LongAdder tareas = new LongAdder();
+    private final long inicioNanos = System.nanoTime();
+    private volatile long duracionNanos = -1;
+    private volatile int profundidad;
+    private volatile boolean detenida;
+
+    /**
+     * Construye un control sin límites, para las búsquedas a profundidad fija.
+     */
+    ControlBusqueda() {
+        this(0, 0);
+    }
+
+    /**
+     * Construye un control con los límites indicados.
+     *
+     * @param tiempoMaximoMs El tiempo máximo en milisegundos, o 0 para no limitar el tiempo.
+     * @param nodosMaximos   El número máximo de nodos, o 0 para no limitar los nodos.
+     */
+    ControlBusqueda(long tiempoMaximoMs, long nodosMaximos) {
+        this.limiteTiempoNanos = tiempoMaximoMs > 0 ? inicioNanos + tiempoMaximoMs * 1_000_000 : Long.MAX_VALUE;
+        this.limiteNodos = nodosMaximos > 0 ? nodosMaximos : Long.MAX_VALUE;
+    }
+
+    /**
+     * Suma un lote de nodos visitados y comprueba si se agotó algún límite.
+     *
+     * @param cantidad             El número de nodos del lote, incluidos los de quiescencia.
+     * @param cantidadQuiescencia  Cuántos de esos nodos son de la búsqueda de quiescencia.
+     */
+    void sumarNodos(long cantidad, long cantidadQuiescencia) {
+        if (cantidadQuiescencia > 0) {
+            nodosQuiescencia.addAndGet(cantidadQuiescencia);
+        }
+        long total = nodos.addAndGet(cantidad);
+        if (total >= limiteNodos || System.nanoTime() >= limiteTiempoNanos) {
+            detenida = true;
+        }
+    }
+
+    /**
+     * Suma un lote de contadores de un hilo.
+     */
+    void sumarContadores(int evaluaciones, int cortes, int cortesPrimerMovimiento, int consultasTabla,
+                         int aciertosTabla, int consultasCache, int aciertosCache, int tareas) {
+        if (evaluaciones > 0) {
+            this.evaluaciones.add(evaluaciones);
+        }
+        if (cortes > 0) {
+            this.cortes.add(cortes);
+            this.cortesPrimerMovimiento.add(cortesPrimerMovimiento);
+        }
+        if (consultasTabla > 0) {
+            this.consultasTabla.add(consultasTabla);
+            this.aciertosTabla.add(aciertosTabla);
+        }
+        if (consultasCache > 0) {
+            this.consultasCacheEvaluacion.add(consultasCache);
+            this.aciertosCacheEvaluacion.add(aciertosCache);
+        }
+        if (tareas > 0) {
+            this.tareas.add(tareas);
+        }
+    }
+
+    /**
+     * Suma tareas paralelas lanzadas fuera de un {@link ContextoBusqueda}, como los hilos de la raíz.
+     */
+    void sumarTareas(int cantidad) {
+        tareas.add(cantidad);
+    }
+
+    /**
+     * Registra el final de la búsqueda, cuando todos los hilos ya sumaron sus contadores.
+     *
+     * @param profundidadAlcanzada La profundidad de la búsqueda, o de la iteración completa más
+     *                             profunda si la búsqueda es iterativa.
+     */
+    void terminar(int profundidadAlcanzada) {
+        profundidad = profundidadAlcanzada;
+        duracionNanos = System.nanoTime() - inicioNanos;
+    }
+
+    /**
+     * Detiene la búsqueda.
+     */
+    void detener() {
+        detenida = true;
+    }
+
+    /**
+     * Verifica si la búsqueda debe abandonarse.
+     *
+     * @return true si se agotó algún límite o se detuvo la búsqueda.
+     */
+    boolean estaDetenida() {
+        return detenida;
+    }
+
+    /**
+     * Obtiene los nodos visitados que ya se sumaron al control.
+     *
+     * @return El número de nodos.
+     */
+    long getNodos() {
+        return nodos.get();
+    }
+
+    /**
+     * Obtiene cuántos de los nodos sumados pertenecen a la búsqueda de quiescencia.
+     *
+     * @return El número de nodos de quiescencia.
+     */
+    long getNodosQuiescencia() {
+        return nodosQuiescencia.get();
+    }
+
+    long getEvaluaciones() {
+        return evaluaciones.sum();
+    }
+
+    long getCortes() {
+        return cortes.sum();
+    }
+
+    long getCortesPrimerMovimiento() {
+        return cortesPrimerMovimiento.sum();
+    }
+
+    long getConsultasTabla() {
+        return consultasTabla.sum();
+    }
+
+    long getAciertosTabla() {
+        return aciertosTabla.sum();
+    }
+
+    long getConsultasCacheEvaluacion() {
+        return consultasCacheEvaluacion.sum();
+    }
+
+    long getAciertosCacheEvaluacion() {
+        return aciertosCacheEvaluacion.sum();
+    }
+
+    long getTareas() {
+        return tareas.sum();
+    }
+
+    int getProfundidad() {
+        return profundidad;
+    }
+
+    /**
+     * Obtiene la duración de la búsqueda.
+     *
+     * @return Los nanosegundos transcurridos hasta {@link #terminar}, o hasta ahora si todavía no
+     *         terminó.
+     */
+    long getDuracionNanos() {
+        long duracion = duracionNanos;
+        return duracion >= 0 ? duracion : System.nanoTime() - inicioNanos;
+    }
+
+    /**
+     * Calcula el factor de ramificación efectivo: el número de hijos por nodo que explicaría los
+     * nodos visitados (sin contar los de quiescencia) a la profundidad alcanzada.
+     *
+     * @return El factor, o 0 si la profundidad es 0.
+     */
+    double getFactorRamificacion() {
+        long nodosPrincipales = getNodos() - getNodosQuiescencia();
+        return profundidad > 0 && nodosPrincipales > 0 ? Math.pow(nodosPrincipales, 1.0 / profundidad) : 0;
+    }
+
+    /**
+     * Resume la búsqueda en una línea: profundidad, nodos, velocidad y calidad de la ordenación.
+     *
+     * @return El resumen.
+     */
+    String resumen() {
+        long nanos = Math.max(1, getDuracionNanos());
+        long nodosTotales = getNodos();
+        long podas = getCortes();
+        long consultas = getConsultasTabla();
+        long consultasCache = getConsultasCacheEvaluacion();
+        return String.format("prof %d, %d nodos (%d de quiescencia), %d evaluaciones, %d ms, %.0f nodos/s, "
+                        + "EBF %.2f, podas en el 1er movimiento %.1f %%, aciertos TT %.1f %%, "
+                        + "aciertos caché eval %.1f %%, %d tareas",
+                profundidad, nodosTotales, getNodosQuiescencia(), getEvaluaciones(), nanos / 1_000_000,
+                nodosTotales * 1e9 / nanos, getFactorRamificacion(),
+                podas > 0 ? 100.0 * getCortesPrimerMovimiento() / podas : 0,
+                consultas > 0 ? 100.0 * getAciertosTabla() / consultas : 0,
+                consultasCache > 0 ? 100.0 * getAciertosCacheEvaluacion() / consultasCache : 0, getTareas());
+    }
+}
@@ -0,0 +1,195 @@
+package org.project.game_objects;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estadísticas acumuladas de las búsquedas de una IA. Cada búsqueda las reúne en su
+ * {@link ControlBusqueda} y, al terminar, las suma aquí; así el coste durante la búsqueda se limita
+ * a los contadores locales de cada hilo. Se puede registrar como MBean para consultarlas con
+ * cualquier cliente JMX (jconsole, VisualVM...).
+ */
+public final class EstadisticasBusqueda implements EstadisticasBusquedaMBean {
+    /**
+     * Dominio de los nombres JMX con los que se registran las estadísticas.
+     */
+    public static final String DOMINIO_JMX = "org.project.game_objects";
+
+    private final LongAdder busquedas = new LongAdder();
+    private final LongAdder nodos = new LongAdder();
+    private final LongAdder nodosQuiescencia = new LongAdder();
+    private final LongAdder evaluaciones = new LongAdder();
+    private final LongAdder cortes = new LongAdder();
+    private final LongAdder cortesPrimerMovimiento = new LongAdder();
+    private final LongAdder consultasTabla = new LongAdder();
+    private final LongAdder aciertosTabla = new LongAdder();
+    private final LongAdder consultasCacheEvaluacion = new LongAdder();
+    private final LongAdder aciertosCacheEvaluacion = new LongAdder();
+    private final LongAdder tareas = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private volatile ControlBusqueda ultimaBusqueda;
+    private ObjectName nombreRegistrado;
+
+    EstadisticasBusqueda() {
+    }
+
+    /**
+     * Suma las estadísticas de una búsqueda terminada.
+     *
+     * @param control El control de la búsqueda, después de {@link ControlBusqueda#terminar}.
+     */
+    void acumular(ControlBusqueda control) {
+        busquedas.increment();
+        nodos.add(control.getNodos());
+        nodosQuiescencia.add(control.getNodosQuiescencia());
+        evaluaciones.add(control.getEvaluaciones());
+        cortes.add(control.getCortes());
+        cortesPrimerMovimiento.add(control.getCortesPrimerMovimiento());
+        consultasTabla.add(control.getConsultasTabla());
+        aciertosTabla.add(control.getAciertosTabla());
+        consultasCacheEvaluacion.add(control.getConsultasCacheEvaluacion());
+        aciertosCacheEvaluacion.add(control.getAciertosCacheEvaluacion());
+        tareas.add(control.getTareas());
+        nanos.add(control.getDuracionNanos());
+        ultimaBusqueda = control;
+    }
+
+    /**
+     * Registra las estadísticas en el servidor de MBeans de la plataforma, con el nombre
+     * {@code org.project.game_objects:type=EstadisticasBusqueda,name=<nombre>}.
+     *
+     * @param nombre El nombre que distingue a esta IA de las demás.
+     * @throws IllegalStateException si ya hay un MBean registrado con ese nombre.
+     */
+    public synchronized void registrar(String nombre) {
+        if (nombreRegistrado != null) {
+            throw new IllegalStateException("Las estadísticas ya están registradas como " + nombreRegistrado);
+        }
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(DOMINIO_JMX + ":type=EstadisticasBusqueda,name=" + ObjectName.quote(nombre));
+            servidor.registerMBean(this, objectName);
+            nombreRegistrado = objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("No se pudieron registrar las estadísticas como " + nombre, e);
+        }
+    }
+
+    /**
+     * Retira las estadísticas del servidor de MBeans, si estaban registradas.
+     */
+    public synchronized void desregistrar() {
+        if (nombreRegistrado == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(nombreRegistrado);
+        } catch (JMException e) {
+            throw new IllegalStateException("No se pudieron desregistrar las estadísticas " + nombreRegistrado, e);
+        } finally {
+            nombreRegistrado = null;
+        }
+    }
+
+    @Override
+    public long getBusquedas() {
+        return busquedas.sum();
+    }
+
+    @Override
+    public long getNodos() {
+        return nodos.sum();
+    }
+
+    @Override
+    public long getNodosQuiescencia() {
+        return nodosQuiescencia.sum();
+    }
+
+    @Override
+    public long getEvaluaciones() {
+        return evaluaciones.sum();
+    }
+
+    @Override
+    public long getCortesBeta() {
+        return cortes.sum();
+    }
+
+    @Override
+    public double getTasaCortePrimerMovimiento() {
+        long total = cortes.sum();
+        return total > 0 ? (double) cortesPrimerMovimiento.sum() / total : 0;
+    }
+
+    @Override
+    public long getAciertosTablaTransposicion() {
+        return aciertosTabla.sum();
+    }
+
+    @Override
+    public double getTasaAciertosTablaTransposicion() {
+        long total = consultasTabla.sum();
+        return total > 0 ? (double) aciertosTabla.sum() / total : 0;
+    }
+
+    @Override
+    public long getAciertosCacheEvaluacion() {
+        return aciertosCacheEvaluacion.sum();
+    }
+
+    @Override
+    public double getTasaAciertosCacheEvaluacion() {
+        long total = consultasCacheEvaluacion.sum();
+        return total > 0 ? (double) aciertosCacheEvaluacion.sum() / total : 0;
+    }
+
+    @Override
+    public long getTareasParalelas() {
+        return tareas.sum();
+    }
+
+    @Override
+    public double getNodosPorSegundo() {
+        long total = nanos.sum();
+        return total > 0 ? nodos.sum() * 1e9 / total : 0;
+    }
+
+    @Override
+    public double getNodosPorSegundoUltimaBusqueda() {
+        ControlBusqueda control = ultimaBusqueda;
+        return control == null ? 0 : control.getNodos() * 1e9 / Math.max(1, control.getDuracionNanos());
+    }
+
+    @Override
+    public double getFactorRamificacionUltimaBusqueda() {
+        ControlBusqueda control = ultimaBusqueda;
+        return control == null ? 0 : control.getFactorRamificacion();
+    }
+
+    @Override
+    public String getResumenUltimaBusqueda() {
+        ControlBusqueda control = ultimaBusqueda;
+        return control == null ? "" : control.resumen();
+    }
+
+    @Override
+    public void reiniciar() {
+        busquedas.reset();
+        nodos.reset();
+        nodosQuiescencia.reset();
+        evaluaciones.reset();
+        cortes.reset();
+        cortesPrimerMovimiento.reset();
+        consultasTabla.reset();
+        aciertosTabla.reset();
+        consultasCacheEvaluacion.reset();
+        aciertosCacheEvaluacion.reset();
+        tareas.reset();
+        nanos.reset();
+        ultimaBusqueda = null;
+    }
+}
@@ -0,0 +1,89 @@
+package org.project.game_objects;
+
+/**
+ * Interfaz de gestión (JMX) de las estadísticas de búsqueda de una IA. Los contadores son
+ * acumulados desde que se creó la IA o desde el último {@link #reiniciar()}; los atributos de la
+ * última búsqueda sirven para vigilar regresiones de velocidad movimiento a movimiento.
+ */
+public interface EstadisticasBusquedaMBean {
+
+    /**
+     * @return El número de búsquedas desde la raíz, sin contar los movimientos elegidos sin buscar.
+     */
+    long getBusquedas();
+
+    /**
+     * @return Los nodos visitados, incluidos los de quiescencia.
+     */
+    long getNodos();
+
+    /**
+     * @return Los nodos visitados por la búsqueda de quiescencia.
+     */
+    long getNodosQuiescencia();
+
+    /**
+     * @return Las evaluaciones estáticas de hojas.
+     */
+    long getEvaluaciones();
+
+    /**
+     * @return Las podas beta de la búsqueda principal.
+     */
+    long getCortesBeta();
+
+    /**
+     * @return La fracción de podas beta producidas por el primer movimiento probado, entre 0 y 1.
+     */
+    double getTasaCortePrimerMovimiento();
+
+    /**
+     * @return Las consultas a la tabla de transposición que encontraron la posición.
+     */
+    long getAciertosTablaTransposicion();
+
+    /**
+     * @return La fracción de consultas a la tabla de transposición que encontraron la posición.
+     */
+    double getTasaAciertosTablaTransposicion();
+
+    /**
+     * @return Las consultas a la caché de evaluaciones que encontraron la evaluación.
+     */
+    long getAciertosCacheEvaluacion();
+
+    /**
+     * @return La fracción de consultas a la caché de evaluaciones que encontraron la evaluación.
+     */
+    double getTasaAciertosCacheEvaluacion();
+
+    /**
+     * @return Las tareas paralelas lanzadas por las búsquedas.
+     */
+    long getTareasParalelas();
+
+    /**
+     * @return Los nodos por segundo del total de las búsquedas.
+     */
+    double getNodosPorSegundo();
+
+    /**
+     * @return Los nodos por segundo de la última búsqueda, o 0 si todavía no hubo ninguna.
+     */
+    double getNodosPorSegundoUltimaBusqueda();
+
+    /**
+     * @return El factor de ramificación efectivo de la última búsqueda, o 0 si todavía no hubo ninguna.
+     */
+    double getFactorRamificacionUltimaBusqueda();
+
+    /**
+     * @return El resumen de la última búsqueda, o una cadena vacía si todavía no hubo ninguna.
+     */
+    String getResumenUltimaBusqueda();
+
+    /**
+     * Pone a cero los contadores acumulados.
+     */
+    void reiniciar();
+}
@@ -0,0 +1,232 @@
+package org.project.game_objects;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static edu.rice.pcdp.PCDP.*;
+
+/**
+ * Genera la base de finales ({@link BaseFinales}) por análisis retrógrado.
+ * <p>
+ * Los materiales se resuelven de menos a más piezas y, con el mismo número de piezas, de menos a
+ * más piezas normales, así que las capturas y coronaciones siempre llevan a materiales ya
+ * guardados. Cada material se resuelve por pasadas: la pasada 0 marca las posiciones terminales y
+ * la pasada {@code k} resuelve las posiciones cuyo resultado se decide con sucesores ya resueltos a
+ * distancia menor que {@code k} (gana si alguno pierde, pierde si todos ganan), de modo que la
+ * distancia guardada es exactamente {@code k}. Las posiciones que quedan sin resolver son tablas.
+ * Cada pasada recorre las posiciones por bloques en paralelo con {@code forallChunked}.
+ */
+public final class GeneradorFinales {
+    /**
+     * Número de piezas por defecto: con 4 piezas la base ocupa unos 20 MB y se genera en poco
+     * tiempo; con 5 ocupa unos 500 MB.
+     */
+    public static final int PIEZAS_POR_DEFECTO = 4;
+    /**
+     * Posiciones que procesa cada tarea de una pasada.
+     */
+    private static final int TAMANO_BLOQUE = 4096;
+
+    // Estado de cada entrada durante la generación: (distancia << 2) | resultado
+    private static final int SIN_RESOLVER = 0;
+    private static final int INVALIDA = 3;
+
+    private GeneradorFinales() {
+    }
+
+    /**
+     * Genera los archivos de todos los materiales de hasta {@code piezasMaximas} piezas que no estén
+     * ya en el directorio.
+     *
+     * @param directorio    El directorio donde se guardan los archivos.
+     * @param piezasMaximas El número máximo de piezas (2 a {@link BaseFinales#PIEZAS_MAXIMAS}).
+     * @throws IOException si no se pueden escribir los archivos.
+     */
+    public static void generar(Path directorio, int piezasMaximas) throws IOException {
+        if (piezasMaximas < 2 || piezasMaximas > BaseFinales.PIEZAS_MAXIMAS) {
+            throw new IllegalArgumentException("El número de piezas debe estar entre 2 y " + BaseFinales.PIEZAS_MAXIMAS);
+        }
+        Files.createDirectories(directorio);
+        for (IndiceFinales material : materiales(piezasMaximas)) {
+            String nombre = BaseFinales.nombreArchivo(material);
+            Path resultados = directorio.resolve(nombre + BaseFinales.EXTENSION_RESULTADOS);
+            Path distancias = directorio.resolve(nombre + BaseFinales.EXTENSION_DISTANCIAS);
+            if (Files.exists(resultados) && Files.exists(distancias)) {
+                continue;
+            }
+            // Se vuelve a abrir para incluir los materiales que se acaban de escribir
+            BaseFinales base = BaseFinales.abrir(directorio);
+            long inicio = System.nanoTime();
+            short[] estado = new short[Math.toIntExact(material.getTamano() * 2)];
+            int pasadas = resolver(material, estado, base);
+            escribir(estado, resultados, distancias);
+            System.out.printf("%s: %d posiciones, %d pasadas, %d ms%n",
+                    nombre, estado.length, pasadas, (System.nanoTime() - inicio) / 1_000_000);
+        }
+    }
+
+    /**
+     * Lista los materiales con hasta {@code piezasMaximas} piezas y al menos una pieza de cada color,
+     * en el orden en que se deben resolver.
+     */
+    static List<IndiceFinales> materiales(int piezasMaximas) {
+        List<IndiceFinales> materiales = new ArrayList<>();
+        for (int total = 2; total <= piezasMaximas; total++) {
+            for (int piezasBlancas = 0; piezasBlancas < total; piezasBlancas++) {
+                for (int reyesBlancos = 0; piezasBlancas + reyesBlancos < total; reyesBlancos++) {
+                    int blancas = piezasBlancas + reyesBlancos;
+                    if (blancas == 0) {
+                        continue;
+                    }
+                    for (int piezasNegras = 0; piezasNegras <= total - blancas; piezasNegras++) {
+                        int reyesNegros = total - blancas - piezasNegras;
+                        materiales.add(new IndiceFinales(piezasBlancas, reyesBlancos, piezasNegras, reyesNegros));
+                    }
+                }
+            }
+        }
+        materiales.sort(Comparator.<IndiceFinales>comparingInt(m -> m.piezasBlancas + m.reyesBlancos + m.piezasNegras + m.reyesNegros)
+                .thenComparingInt(m -> m.piezasBlancas + m.piezasNegras));
+        return materiales;
+    }
+
+    /**
+     * Resuelve todas las posiciones de un material.
+     *
+     * @return El número de pasadas realizadas.
+     */
+    private static int resolver(IndiceFinales material, short[] estado, BaseFinales base) {
+        int posiciones = Math.toIntExact(material.getTamano());
+        int bloques = (posiciones + TAMANO_BLOQUE - 1) / TAMANO_BLOQUE;
+
+        forallChunked(0, bloques - 1, bloque -> {
+            Tabla tabla = new Tabla();
+            int fin = Math.min(posiciones, (bloque + 1) * TAMANO_BLOQUE);
+            for (int indice = bloque * TAMANO_BLOQUE; indice < fin; indice++) {
+                if (!material.colocar(indice, tabla)) {
+                    estado[indice * 2] = INVALIDA;
+                    estado[indice * 2 + 1] = INVALIDA;
+                    continue;
+                }
+                int terminal = tabla.estadoTerminal();
+                if (terminal != Tabla.EN_JUEGO) {
+                    boolean gananBlancas = terminal == Tabla.GANAN_BLANCAS;
+                    estado[indice * 2] = (short) (gananBlancas ? BaseFinales.GANA : BaseFinales.PIERDE);
+                    estado[indice * 2 + 1] = (short) (gananBlancas ? BaseFinales.PIERDE : BaseFinales.GANA);
+                }
+            }
+        });
+
+        // Mayor distancia de los sucesores de otros materiales: hasta superarla, que una pasada no
+        // resuelva nada no significa que las siguientes tampoco lo hagan
+        AtomicInteger distanciaExterna = new AtomicInteger();
+        int pasada = 1;
+        while (true) {
+            int k = pasada;
+            AtomicBoolean hayCambios = new AtomicBoolean();
+            forallChunked(0, bloques - 1, bloque -> {
+                Tabla tabla = new Tabla();
+                long[] movimientos = new long[Tabla.MAX_MOVIMIENTOS];
+                int maximaExterna = 0;
+                boolean cambios = false;
+                int fin = Math.min(posiciones, (bloque + 1) * TAMANO_BLOQUE);
+                for (int indice = bloque * TAMANO_BLOQUE; indice < fin; indice++) {
+                    if (estado[indice * 2] != SIN_RESOLVER && estado[indice * 2 + 1] != SIN_RESOLVER) {
+                        continue;
+                    }
+                    material.colocar(indice, tabla);
+                    for (int turno = 0; turno < 2; turno++) {
+                        int entrada = indice * 2 + turno;
+                        if (estado[entrada] != SIN_RESOLVER) {
+                            continue;
+                        }
+                        int resultado = resolverEntrada(material, estado, base, tabla, turno == 0, movimientos, k);
+                        maximaExterna = Math.max(maximaExterna, resultado >>> 16);
+                        if ((resultado & 0xFFFF) != SIN_RESOLVER) {
+                            estado[entrada] = (short) (resultado & 0xFFFF);
+                            cambios = true;
+                        }
+                    }
+                }
+                if (cambios) {
+                    hayCambios.set(true);
+                }
+                distanciaExterna.accumulateAndGet(maximaExterna, Math::max);
+            });
+            if (!hayCambios.get() && pasada > distanciaExterna.get()) {
+                return pasada;
+            }
+            pasada++;
+        }
+    }
+
+    /**
+     * Intenta resolver una posición en la pasada {@code k}.
+     *
+     * @return En los 16 bits bajos, el nuevo estado de la entrada o {@link #SIN_RESOLVER}; en los
+     *         altos, la mayor distancia de los sucesores de otros materiales.
+     */
+    private static int resolverEntrada(IndiceFinales material, short[] estado, BaseFinales base, Tabla tabla,
+                                       boolean esTurnoDeBlancas, long[] movimientos, int k) {
+        int cantidad = tabla.generarMovimientos(esTurnoDeBlancas, movimientos, 0);
+        boolean todosGanan = true;
+        int maximaExterna = 0;
+        for (int i = 0; i < cantidad; i++) {
+            tabla.hacerMovimiento(movimientos[i], esTurnoDeBlancas);
+            int sucesor;
+            int terminal = tabla.estadoTerminal();
+            if (terminal != Tabla.EN_JUEGO) {
+                // El sucesor se ve desde el rival, que es quien mueve en él
+                boolean ganaRival = (terminal == Tabla.GANAN_BLANCAS) != esTurnoDeBlancas;
+                sucesor = ganaRival ? BaseFinales.GANA : BaseFinales.PIERDE;
+            } else if (IndiceFinales.claveDe(tabla.blancas, tabla.negras, tabla.reyes) == material.getClave()) {
+                int entrada = (int) material.indice(tabla.blancas, tabla.negras, tabla.reyes) * 2 + (esTurnoDeBlancas ? 1 : 0);
+                sucesor = estado[entrada];
+            } else {
+                int consulta = base.consultar(tabla, !esTurnoDeBlancas);
+                if (consulta == BaseFinales.DESCONOCIDA) {
+                    tabla.deshacerMovimiento();
+                    throw new IllegalStateException("Falta un material en la base de finales");
+                }
+                maximaExterna = Math.max(maximaExterna, BaseFinales.distancia(consulta));
+                sucesor = BaseFinales.distancia(consulta) << 2 | BaseFinales.resultado(consulta);
+            }
+            tabla.deshacerMovimiento();
+
+            int resultado = sucesor & 3;
+            boolean resuelto = (resultado == BaseFinales.GANA || resultado == BaseFinales.PIERDE) && (sucesor >>> 2) < k;
+            if (resuelto && resultado == BaseFinales.PIERDE) {
+                return maximaExterna << 16 | k << 2 | BaseFinales.GANA;
+            }
+            if (!resuelto) {
+                todosGanan = false;
+            }
+        }
+        return maximaExterna << 16 | (todosGanan ? k << 2 | BaseFinales.PIERDE : SIN_RESOLVER);
+    }
+
+    /**
+     * Escribe los archivos de un material; las entradas sin resolver y las inválidas se guardan como
+     * tablas a distancia 0.
+     */
+    private static void escribir(short[] estado, Path resultados, Path distancias) throws IOException {
+        byte[] bytesResultados = new byte[(estado.length + 3) / 4];
+        byte[] bytesDistancias = new byte[estado.length];
+        for (int entrada = 0; entrada < estado.length; entrada++) {
+            int resultado = estado[entrada] & 3;
+            if (resultado == BaseFinales.GANA || resultado == BaseFinales.PIERDE) {
+                bytesResultados[entrada >>> 2] |= (byte) (resultado << ((entrada & 3) * 2));
+                bytesDistancias[entrada] = (byte) Math.min(estado[entrada] >>> 2, BaseFinales.DISTANCIA_MAXIMA);
+            }
+        }
+        Files.write(distancias, bytesDistancias);
+        // El archivo de resultados se escribe el último: es el que indica que el material está completo
+        Files.write(resultados, bytesResultados);
+    }
+}
@@ -0,0 +1,122 @@
+package org.project.game_objects;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static edu.rice.pcdp.PCDP.*;
+
+/**
+ * Genera el libro de aperturas ({@link LibroAperturas}) con búsquedas profundas desde la posición
+ * inicial.
+ * <p>
+ * El libro de cada color se construye por niveles de plies, como una partida contra todas las
+ * respuestas posibles: en los plies del color del libro se busca el mejor movimiento de cada
+ * posición y solo se sigue esa línea; en los del rival se siguen todos sus movimientos. Las
+ * posiciones repetidas dentro de un nivel se buscan una sola vez, y las búsquedas de un nivel se
+ * reparten entre hilos con {@code forallChunked}, compartiendo la tabla de transposición de la IA.
+ * Como esas búsquedas son simultáneas, la generación de la tabla avanza una vez por nivel y no en
+ * cada búsqueda.
+ */
+public final class GeneradorLibro {
+    /**
+     * Número de plies por defecto: cinco movimientos de cada color.
+     */
+    public static final int PLIES_POR_DEFECTO = 10;
+    /**
+     * Profundidad de búsqueda por defecto, mayor que la de una partida normal.
+     */
+    public static final int PROFUNDIDAD_POR_DEFECTO = 12;
+
+    private GeneradorLibro() {
+    }
+
+    /**
+     * Genera el libro de aperturas y lo escribe en un archivo.
+     *
+     * @param archivo     El archivo de destino.
+     * @param plies       El número de plies desde la posición inicial que cubre el libro.
+     * @param profundidad La profundidad de las búsquedas.
+     * @throws IOException si no se puede escribir el archivo.
+     */
+    public static void generar(Path archivo, int plies, int profundidad) throws IOException {
+        if (plies <= 0 || profundidad <= 0) {
+            throw new IllegalArgumentException("El número de plies y la profundidad deben ser positivos");
+        }
+        // Posición codificada (piezas, reyes y turno) y movimiento, en el orden del archivo
+        Map<long[], Movimiento> libro = new TreeMap<>(Comparator.<long[]>comparingLong(clave -> clave[0])
+                .thenComparingLong(clave -> clave[1]));
+        generarColor(libro, true, plies, profundidad);
+        generarColor(libro, false, plies, profundidad);
+
+        ByteBuffer bytes = ByteBuffer.allocate(
+                LibroAperturas.TAMANO_CABECERA + libro.size() * LibroAperturas.TAMANO_ENTRADA);
+        bytes.putInt(LibroAperturas.VERSION_FORMATO);
+        for (Map.Entry<long[], Movimiento> entrada : libro.entrySet()) {
+            Movimiento movimiento = entrada.getValue();
+            int ultima = movimiento.getNumeroCasillas() - 1;
+            bytes.putLong(entrada.getKey()[0]).putLong(entrada.getKey()[1])
+                    .put((byte) numeroDeCasilla(movimiento, 0))
+                    .put((byte) numeroDeCasilla(movimiento, ultima));
+        }
+        Files.write(archivo, bytes.array());
+        System.out.printf("Libro de aperturas: %d posiciones%n", libro.size());
+    }
+
+    /**
+     * Añade al libro las posiciones en las que mueve un color.
+     */
+    private static void generarColor(Map<long[], Movimiento> libro, boolean esBlanca, int plies, int profundidad) {
+        AIPlayer ia = new AIPlayer(esBlanca, profundidad);
+        ia.setGeneracionExterna(true);
+        List<Tabla> nivel = List.of(new Tabla());
+        boolean turnoDeBlancas = true;
+        for (int ply = 0; ply < plies && !nivel.isEmpty(); ply++) {
+            long inicio = System.nanoTime();
+            Map<Long, Tabla> siguiente = new LinkedHashMap<>();
+            if (turnoDeBlancas == esBlanca) {
+                List<Tabla> posiciones = nivel;
+                Movimiento[] mejores = new Movimiento[posiciones.size()];
+                ia.nuevaGeneracion();
+                forallChunked(0, posiciones.size() - 1, i -> mejores[i] = ia.getBestMoveSequential(posiciones.get(i)));
+                for (int i = 0; i < mejores.length; i++) {
+                    if (mejores[i] == null) {
+                        continue; // Partida terminada
+                    }
+                    Tabla posicion = posiciones.get(i);
+                    libro.put(new long[]{CodificadorPosicion.codificarPiezas(posicion),
+                            CodificadorPosicion.codificarReyes(posicion, turnoDeBlancas)}, mejores[i]);
+                    agregarSucesor(siguiente, posiciones.get(i), mejores[i], turnoDeBlancas);
+                }
+                System.out.printf("%s, ply %d: %d búsquedas, %d ms%n", esBlanca ? "Blancas" : "Negras",
+                        ply, posiciones.size(), (System.nanoTime() - inicio) / 1_000_000);
+            } else {
+                for (Tabla posicion : nivel) {
+                    for (Movimiento movimiento : posicion.getMovimientosDisponibles(turnoDeBlancas)) {
+                        agregarSucesor(siguiente, posicion, movimiento, turnoDeBlancas);
+                    }
+                }
+            }
+            nivel = new ArrayList<>(siguiente.values());
+            turnoDeBlancas = !turnoDeBlancas;
+        }
+    }
+
+    private static int numeroDeCasilla(Movimiento movimiento, int indice) {
+        return CodificadorPosicion.numeroDeBit(Tabla.bitDe(movimiento.getFila(indice), movimiento.getColumna(indice)));
+    }
+
+    private static void agregarSucesor(Map<Long, Tabla> siguiente, Tabla posicion, Movimiento movimiento,
+                                       boolean turnoDeBlancas) {
+        Tabla sucesor = new Tabla(posicion);
+        sucesor.hacerMovimiento(movimiento, turnoDeBlancas);
+        siguiente.putIfAbsent(sucesor.getHash(!turnoDeBlancas), sucesor);
+    }
+}
@@ -0,0 +1,208 @@
+package org.project.game_objects;
+
+/**
+ * Índice perfecto de las colocaciones de un material concreto (número de piezas normales y reyes de
+ * cada color), usado por la base de finales.
+ * <p>
+ * Las piezas se colocan por grupos: piezas blancas, piezas negras, reyes blancos y reyes negros. Cada
+ * grupo se numera como una combinación de las casillas que dejaron libres los grupos anteriores, y
+ * el índice es el número mixto formado por los cuatro rangos. Así cada colocación tiene un índice
+ * distinto entre 0 y {@link #getTamano()} - 1 sin huecos. Los únicos índices que no corresponden a
+ * posiciones legales son los que ponen piezas normales en su fila de coronación, que
+ * {@link #colocar} rechaza.
+ */
+final class IndiceFinales {
+    /**
+     * Número de casillas oscuras del tablero.
+     */
+    private static final int CASILLAS = 32;
+    /**
+     * Coeficientes binomiales {@code C(n, k)} para n, k ≤ 32.
+     */
+    private static final long[][] COMBINACIONES = new long[CASILLAS + 1][CASILLAS + 1];
+
+    static {
+        for (int n = 0; n <= CASILLAS; n++) {
+            COMBINACIONES[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                COMBINACIONES[n][k] = COMBINACIONES[n - 1][k - 1] + COMBINACIONES[n - 1][k];
+            }
+        }
+    }
+
+    final int piezasBlancas;
+    final int reyesBlancos;
+    final int piezasNegras;
+    final int reyesNegros;
+    // Tamaño de cada grupo en el orden de colocación
+    private final long tamanoPiezasNegras;
+    private final long tamanoReyesBlancos;
+    private final long tamanoReyesNegros;
+    private final long tamano;
+
+    /**
+     * Construye el índice de un material.
+     *
+     * @param piezasBlancas Número de piezas blancas normales.
+     * @param reyesBlancos  Número de reyes blancos.
+     * @param piezasNegras  Número de piezas negras normales.
+     * @param reyesNegros   Número de reyes negros.
+     */
+    IndiceFinales(int piezasBlancas, int reyesBlancos, int piezasNegras, int reyesNegros) {
+        if (piezasBlancas < 0 || reyesBlancos < 0 || piezasNegras < 0 || reyesNegros < 0
+                || piezasBlancas + reyesBlancos + piezasNegras + reyesNegros > CASILLAS) {
+            throw new IllegalArgumentException("Material inválido");
+        }
+        this.piezasBlancas = piezasBlancas;
+        this.reyesBlancos = reyesBlancos;
+        this.piezasNegras = piezasNegras;
+        this.reyesNegros = reyesNegros;
+        this.tamanoPiezasNegras = COMBINACIONES[CASILLAS - piezasBlancas][piezasNegras];
+        this.tamanoReyesBlancos = COMBINACIONES[CASILLAS - piezasBlancas - piezasNegras][reyesBlancos];
+        this.tamanoReyesNegros = COMBINACIONES[CASILLAS - piezasBlancas - piezasNegras - reyesBlancos][reyesNegros];
+        this.tamano = COMBINACIONES[CASILLAS][piezasBlancas] * tamanoPiezasNegras * tamanoReyesBlancos * tamanoReyesNegros;
+    }
+
+    /**
+     * Obtiene el número de colocaciones del material, incluidas las que tienen piezas normales en su
+     * fila de coronación.
+     */
+    long getTamano() {
+        return tamano;
+    }
+
+    /**
+     * Obtiene la clave del material de una posición, con el mismo formato que {@link #getClave()}.
+     * Cada cantidad ocupa 4 bits, así que solo es única para materiales de hasta 15 piezas por tipo.
+     */
+    static int claveDe(long blancas, long negras, long reyes) {
+        return clave(Long.bitCount(blancas & ~reyes), Long.bitCount(blancas & reyes),
+                Long.bitCount(negras & ~reyes), Long.bitCount(negras & reyes));
+    }
+
+    static int clave(int piezasBlancas, int reyesBlancos, int piezasNegras, int reyesNegros) {
+        return piezasBlancas << 12 | reyesBlancos << 8 | piezasNegras << 4 | reyesNegros;
+    }
+
+    int getClave() {
+        return clave(piezasBlancas, reyesBlancos, piezasNegras, reyesNegros);
+    }
+
+    /**
+     * Calcula el índice de una posición con este material.
+     *
+     * @param blancas Bitboard de las piezas blancas.
+     * @param negras  Bitboard de las piezas negras.
+     * @param reyes   Bitboard de los reyes.
+     * @return El índice de la colocación.
+     */
+    long indice(long blancas, long negras, long reyes) {
+        long piezasB = aCasillas(blancas & ~reyes);
+        long piezasN = aCasillas(negras & ~reyes);
+        long reyesB = aCasillas(blancas & reyes);
+        long reyesN = aCasillas(negras & reyes);
+
+        long indice = rango(piezasB, 0L);
+        indice = indice * tamanoPiezasNegras + rango(piezasN, piezasB);
+        indice = indice * tamanoReyesBlancos + rango(reyesB, piezasB | piezasN);
+        return indice * tamanoReyesNegros + rango(reyesN, piezasB | piezasN | reyesB);
+    }
+
+    /**
+     * Coloca en el tablero la posición con el índice dado.
+     *
+     * @param indice El índice de la colocación.
+     * @param tabla  El tablero donde se colocan las piezas.
+     * @return false si la colocación tiene piezas normales en su fila de coronación; en ese caso
+     *         el tablero no se modifica.
+     */
+    boolean colocar(long indice, Tabla tabla) {
+        long rangoReyesN = indice % tamanoReyesNegros;
+        indice /= tamanoReyesNegros;
+        long rangoReyesB = indice % tamanoReyesBlancos;
+        indice /= tamanoReyesBlancos;
+        long rangoPiezasN = indice % tamanoPiezasNegras;
+        long rangoPiezasB = indice / tamanoPiezasNegras;
+
+        long piezasB = combinacion(rangoPiezasB, piezasBlancas, 0L);
+        long piezasN = combinacion(rangoPiezasN, piezasNegras, piezasB);
+        // Las blancas coronan en la fila 0 (casillas 0-3) y las negras en la 7 (casillas 28-31)
+        if ((piezasB & 0xFL) != 0 || (piezasN & 0xF000_0000L) != 0) {
+            return false;
+        }
+        long reyesB = combinacion(rangoReyesB, reyesBlancos, piezasB | piezasN);
+        long reyesN = combinacion(rangoReyesN, reyesNegros, piezasB | piezasN | reyesB);
+
+        long bitsReyesB = aBits(reyesB);
+        long bitsReyesN = aBits(reyesN);
+        tabla.colocarPiezas(aBits(piezasB) | bitsReyesB, aBits(piezasN) | bitsReyesN, bitsReyesB | bitsReyesN);
+        return true;
+    }
+
+    /**
+     * Rango de un conjunto de casillas entre las que no están ocupadas, en el sistema combinatorio:
+     * la suma de {@code C(p_i, i + 1)} para las posiciones libres {@code p_0 < p_1 < ...}.
+     */
+    private static long rango(long casillas, long ocupadas) {
+        long rango = 0;
+        int k = 1;
+        for (long resto = casillas; resto != 0; resto &= resto - 1, k++) {
+            int casilla = Long.numberOfTrailingZeros(resto);
+            int posicion = casilla - Long.bitCount(ocupadas & ((1L << casilla) - 1));
+            rango += COMBINACIONES[posicion][k];
+        }
+        return rango;
+    }
+
+    /**
+     * Inversa de {@link #rango}: el conjunto de {@code k} casillas libres con el rango dado.
+     */
+    private static long combinacion(long rango, int k, long ocupadas) {
+        long casillas = 0L;
+        int posicion = CASILLAS - Long.bitCount(ocupadas);
+        for (; k > 0; k--) {
+            do {
+                posicion--;
+            } while (COMBINACIONES[posicion][k] > rango);
+            rango -= COMBINACIONES[posicion][k];
+            casillas |= 1L << casillaLibre(posicion, ocupadas);
+        }
+        return casillas;
+    }
+
+    /**
+     * Obtiene la casilla que ocupa la posición dada entre las casillas no ocupadas.
+     */
+    private static int casillaLibre(int posicion, long ocupadas) {
+        for (int casilla = 0; casilla < CASILLAS; casilla++) {
+            if ((ocupadas & (1L << casilla)) == 0 && posicion-- == 0) {
+                return casilla;
+            }
+        }
+        throw new IllegalStateException("No hay tantas casillas libres");
+    }
+
+    /**
+     * Convierte un bitboard de {@link Tabla} (con casillas fantasma) en una máscara de casillas 0-31.
+     */
+    private static long aCasillas(long bits) {
+        long casillas = 0L;
+        for (; bits != 0; bits &= bits - 1) {
+            int bit = Long.numberOfTrailingZeros(bits);
+            casillas |= 1L << (bit - bit / 9);
+        }
+        return casillas;
+    }
+
+    /**
+     * Convierte una máscara de casillas 0-31 en un bitboard de {@link Tabla}.
+     */
+    private static long aBits(long casillas) {
+        long bits = 0L;
+        for (; casillas != 0; casillas &= casillas - 1) {
+            int casilla = Long.numberOfTrailingZeros(casillas);
+            bits |= 1L << (casilla + casilla / 8);
+        }
+        return bits;
+    }
+}
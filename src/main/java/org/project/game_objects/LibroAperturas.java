@@ -0,0 +1,132 @@
+package org.project.game_objects;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Libro de aperturas generado por {@link GeneradorLibro}: el mejor movimiento de las posiciones de
+ * los primeros plies de la partida.
+ * <p>
+ * El archivo empieza con la versión del formato (4 bytes) y sigue con entradas de 18 bytes
+ * ordenadas por posición: la posición con el turno en los dos {@code long} de
+ * {@link CodificadorPosicion#codificarPiezas} y {@link CodificadorPosicion#codificarReyes}, y el
+ * origen y el destino del movimiento como números de casilla de la notación (1-32), un byte cada
+ * uno. Nada depende de la disposición interna de los bits de {@link Tabla} ni de sus claves Zobrist;
+ * aun así, el movimiento del libro se busca entre los movimientos legales antes de jugarlo. El
+ * archivo se proyecta en memoria y se consulta por búsqueda binaria, sin ocupar memoria del heap ni
+ * sincronizar entre hilos.
+ */
+public final class LibroAperturas {
+    /**
+     * Versión del formato, al principio del archivo.
+     */
+    static final int VERSION_FORMATO = 1;
+    /**
+     * Bytes de la cabecera: la versión.
+     */
+    static final int TAMANO_CABECERA = 4;
+    /**
+     * Bytes de cada entrada: posición, origen y destino.
+     */
+    static final int TAMANO_ENTRADA = 18;
+
+    private final MappedByteBuffer entradas;
+    private final int numeroPosiciones;
+
+    private LibroAperturas(MappedByteBuffer entradas) {
+        this.entradas = entradas;
+        this.numeroPosiciones = (entradas.capacity() - TAMANO_CABECERA) / TAMANO_ENTRADA;
+    }
+
+    /**
+     * Abre un libro de aperturas, proyectando el archivo en memoria.
+     *
+     * @param archivo El archivo generado.
+     * @return El libro abierto.
+     * @throws IOException si no se puede leer el archivo, está dañado o es de una versión
+     *                     desconocida del formato.
+     */
+    public static LibroAperturas abrir(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano < TAMANO_CABECERA || (tamano - TAMANO_CABECERA) % TAMANO_ENTRADA != 0) {
+                throw new IOException("Libro de aperturas dañado: " + archivo);
+            }
+            MappedByteBuffer entradas = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamano);
+            int version = entradas.getInt(0);
+            if (version != VERSION_FORMATO) {
+                throw new IOException("Versión desconocida del libro de aperturas: " + version);
+            }
+            return new LibroAperturas(entradas);
+        }
+    }
+
+    /**
+     * Obtiene el número de posiciones del libro.
+     *
+     * @return El número de entradas.
+     */
+    public int getNumeroPosiciones() {
+        return numeroPosiciones;
+    }
+
+    /**
+     * Busca el movimiento de una posición entre sus movimientos legales.
+     *
+     * @param tabla            El tablero.
+     * @param esTurnoDeBlancas True si mueven las blancas.
+     * @param movimientos      Los movimientos legales de la posición.
+     * @return El movimiento del libro, o null si la posición no está en el libro o ningún movimiento
+     *         legal, o más de uno, va del origen al destino guardados.
+     */
+    Movimiento consultar(Tabla tabla, boolean esTurnoDeBlancas, List<Movimiento> movimientos) {
+        long piezas = CodificadorPosicion.codificarPiezas(tabla);
+        long reyes = CodificadorPosicion.codificarReyes(tabla, esTurnoDeBlancas);
+        int inferior = 0;
+        int superior = numeroPosiciones - 1;
+        while (inferior <= superior) {
+            int medio = (inferior + superior) >>> 1;
+            int posicion = TAMANO_CABECERA + medio * TAMANO_ENTRADA;
+            int comparacion = comparar(entradas.getLong(posicion), entradas.getLong(posicion + 8), piezas, reyes);
+            if (comparacion < 0) {
+                inferior = medio + 1;
+            } else if (comparacion > 0) {
+                superior = medio - 1;
+            } else {
+                return buscarMovimiento(movimientos, entradas.get(posicion + 16), entradas.get(posicion + 17));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compara dos posiciones codificadas en el orden del archivo.
+     */
+    static int comparar(long piezas, long reyes, long otrasPiezas, long otrosReyes) {
+        int comparacion = Long.compare(piezas, otrasPiezas);
+        return comparacion != 0 ? comparacion : Long.compare(reyes, otrosReyes);
+    }
+
+    private static Movimiento buscarMovimiento(List<Movimiento> movimientos, int origen, int destino) {
+        if (origen < 1 || origen > 32 || destino < 1 || destino > 32) {
+            return null;
+        }
+        int bitOrigen = CodificadorPosicion.bitDeNumero(origen);
+        int bitDestino = CodificadorPosicion.bitDeNumero(destino);
+        Movimiento encontrado = null;
+        for (Movimiento movimiento : movimientos) {
+            long codigo = Tabla.codificar(movimiento);
+            if (Tabla.origenDe(codigo) == bitOrigen && Tabla.destinoDe(codigo) == bitDestino) {
+                if (encontrado != null) {
+                    return null; // Capturas distintas con los mismos extremos: se busca
+                }
+                encontrado = movimiento;
+            }
+        }
+        return encontrado;
+    }
+}
@@ -1,12 +1,19 @@
 package org.project.game_objects;
 
-import java.util.regex.Matcher;
+import java.util.Arrays;
 import java.util.regex.Pattern;
 
 /**
  * Representa un movimiento en el juego de damas, desde una casilla de origen a una de destino.
+ * Una captura múltiple es un único movimiento que además recorre las casillas intermedias en las
+ * que cae la pieza entre salto y salto.
  */
 public class Movimiento {
+    /**
+     * Formato de la notación de un movimiento: casillas separadas por guiones.
+     */
+    private static final Pattern FORMATO = Pattern.compile("^[a-h][1-8](-[a-h][1-8])+$", Pattern.CASE_INSENSITIVE);
+
     /**
      * Fila de origen del movimiento (0-7).
      */
@@ -23,26 +30,39 @@ public class Movimiento {
      * Columna de destino del movimiento (0-7).
      */
     public final int columnaDestino;
+    /**
+     * Filas de todas las casillas del recorrido, desde el origen hasta el destino.
+     */
+    private final int[] filas;
+    /**
+     * Columnas de todas las casillas del recorrido, desde el origen hasta el destino.
+     */
+    private final int[] columnas;
 
     /**
-     * Construye un movimiento a partir de una cadena en notación de damas (ej. "a3-b4").
+     * Construye un movimiento a partir de una cadena en notación de damas (ej. "a3-b4"). Las
+     * capturas múltiples indican cada casilla en la que cae la pieza (ej. "c3-e5-g7").
      *
      * @param entrada La cadena que representa el movimiento.
      * @throws IllegalArgumentException si la cadena no tiene el formato esperado.
      */
     public Movimiento(String entrada) {
-        Pattern patron = Pattern.compile("^([a-h])([1-8])-([a-h])([1-8])$", Pattern.CASE_INSENSITIVE);
-        Matcher matcher = patron.matcher(entrada);
-
-        if (matcher.find()) {
-            // Convierte la notación de tablero (ej. 'a', '1') a índices de matriz (0-7)
-            this.filaOrigen = 'h' - matcher.group(1).toLowerCase().charAt(0);
-            this.columnaOrigen = Integer.parseInt(matcher.group(2)) - 1;
-            this.filaDestino = 'h' - matcher.group(3).toLowerCase().charAt(0);
-            this.columnaDestino = Integer.parseInt(matcher.group(4)) - 1;
-        } else {
+        if (!FORMATO.matcher(entrada).matches()) {
             throw new IllegalArgumentException("Formato de movimiento ilegal: " + entrada);
         }
+
+        // Convierte la notación de tablero (ej. 'a', '1') a índices de matriz (0-7)
+        String[] casillas = entrada.toLowerCase().split("-");
+        this.filas = new int[casillas.length];
+        this.columnas = new int[casillas.length];
+        for (int i = 0; i < casillas.length; i++) {
+            filas[i] = 'h' - casillas[i].charAt(0);
+            columnas[i] = casillas[i].charAt(1) - '1';
+        }
+        this.filaOrigen = filas[0];
+        this.columnaOrigen = columnas[0];
+        this.filaDestino = filas[filas.length - 1];
+        this.columnaDestino = columnas[columnas.length - 1];
     }
 
     /**
@@ -54,10 +74,28 @@ public class Movimiento {
      * @param columnaDestino Columna de destino (0-7).
      */
     public Movimiento(int filaOrigen, int columnaOrigen, int filaDestino, int columnaDestino) {
-        this.filaOrigen = filaOrigen;
-        this.columnaOrigen = columnaOrigen;
-        this.filaDestino = filaDestino;
-        this.columnaDestino = columnaDestino;
+        this(new int[]{filaOrigen, filaDestino}, new int[]{columnaOrigen, columnaDestino});
+    }
+
+    /**
+     * Construye un movimiento que recorre las casillas indicadas, en orden desde el origen hasta
+     * el destino.
+     *
+     * @param filas    Filas del recorrido (0-7).
+     * @param columnas Columnas del recorrido (0-7).
+     * @throws IllegalArgumentException si los arreglos no tienen la misma longitud o tienen menos de
+     *                                  dos casillas.
+     */
+    public Movimiento(int[] filas, int[] columnas) {
+        if (filas.length != columnas.length || filas.length < 2) {
+            throw new IllegalArgumentException("Un movimiento necesita al menos un origen y un destino");
+        }
+        this.filas = filas.clone();
+        this.columnas = columnas.clone();
+        this.filaOrigen = filas[0];
+        this.columnaOrigen = columnas[0];
+        this.filaDestino = filas[filas.length - 1];
+        this.columnaDestino = columnas[columnas.length - 1];
     }
 
     /**
@@ -66,51 +104,134 @@ public class Movimiento {
      * @return true si es un movimiento de captura.
      */
     public boolean esCaptura() {
-        return Math.abs(filaOrigen - filaDestino) == 2 && Math.abs(columnaOrigen - columnaDestino) == 2;
+        return Math.abs(filas[0] - filas[1]) == 2 && Math.abs(columnas[0] - columnas[1]) == 2;
     }
 
     /**
-     * Verifica si el movimiento es una captura (salto de 2 casillas en diagonal).
+     * Verifica si el movimiento es un avance simple (1 casilla en diagonal).
      *
-     * @return true si es un movimiento de captura.
+     * @return true si es un movimiento regular.
      */
     public boolean esRegular() {
-        return Math.abs(filaOrigen - filaDestino) == 1 && Math.abs(columnaOrigen - columnaDestino) == 1;
+        return filas.length == 2
+                && Math.abs(filaOrigen - filaDestino) == 1 && Math.abs(columnaOrigen - columnaDestino) == 1;
+    }
+
+    /**
+     * Obtiene el número de casillas del recorrido, incluyendo el origen y el destino.
+     *
+     * @return 2 para un movimiento simple o una captura sencilla, más para una captura múltiple.
+     */
+    public int getNumeroCasillas() {
+        return filas.length;
+    }
+
+    /**
+     * Obtiene la fila de una casilla del recorrido.
+     *
+     * @param indice La posición en el recorrido, 0 para el origen.
+     * @return La fila de la casilla (0-7).
+     */
+    public int getFila(int indice) {
+        return filas[indice];
+    }
+
+    /**
+     * Obtiene la columna de una casilla del recorrido.
+     *
+     * @param indice La posición en el recorrido, 0 para el origen.
+     * @return La columna de la casilla (0-7).
+     */
+    public int getColumna(int indice) {
+        return columnas[indice];
+    }
+
+    /**
+     * Obtiene el número de piezas que captura el movimiento.
+     *
+     * @return El número de saltos, o 0 si no es un movimiento de captura.
+     */
+    public int getNumeroCapturas() {
+        return esCaptura() ? filas.length - 1 : 0;
     }
 
     /**
-     * Obtiene la fila de la pieza que sería capturada en este movimiento.
+     * Obtiene la fila de la primera pieza que sería capturada en este movimiento.
      *
      * @return La fila de la pieza capturada, o -1 si no es un movimiento de captura.
      */
     public int getFilaPiezaCapturada() {
+        return getFilaPiezaCapturada(0);
+    }
+
+    /**
+     * Obtiene la columna de la primera pieza que sería capturada en este movimiento.
+     *
+     * @return La columna de la pieza capturada, o -1 si no es un movimiento de captura.
+     */
+    public int getColumnaPiezaCapturada() {
+        return getColumnaPiezaCapturada(0);
+    }
+
+    /**
+     * Obtiene la fila de la pieza capturada en el salto indicado.
+     *
+     * @param salto El número de salto, desde 0.
+     * @return La fila de la pieza capturada, o -1 si no es un movimiento de captura.
+     */
+    public int getFilaPiezaCapturada(int salto) {
         if (esCaptura()) {
-            return (filaOrigen + filaDestino) / 2;
+            return (filas[salto] + filas[salto + 1]) / 2;
         }
         return -1;
     }
 
     /**
-     * Obtiene la columna de la pieza que sería capturada en este movimiento.
+     * Obtiene la columna de la pieza capturada en el salto indicado.
      *
+     * @param salto El número de salto, desde 0.
      * @return La columna de la pieza capturada, o -1 si no es un movimiento de captura.
      */
-    public int getColumnaPiezaCapturada() {
+    public int getColumnaPiezaCapturada(int salto) {
         if (esCaptura()) {
-            return (columnaOrigen + columnaDestino) / 2;
+            return (columnas[salto] + columnas[salto + 1]) / 2;
         }
         return -1;
     }
 
+    /**
+     * Dos movimientos son iguales si recorren las mismas casillas.
+     */
+    @Override
+    public boolean equals(Object otro) {
+        if (this == otro) {
+            return true;
+        }
+        if (!(otro instanceof Movimiento movimiento)) {
+            return false;
+        }
+        return Arrays.equals(filas, movimiento.filas) && Arrays.equals(columnas, movimiento.columnas);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(filas) + Arrays.hashCode(columnas);
+    }
+
     /**
      * Devuelve la representación del movimiento en notación estándar de damas.
      *
-     * @return Una cadena como "a3-b4".
+     * @return Una cadena como "a3-b4", o "c3-e5-g7" para una captura múltiple.
      */
     @Override
     public String toString() {
-        char fromLetter = (char) ('h' - filaOrigen);
-        char toLetter = (char) ('h' - filaDestino);
-        return fromLetter + "" + (columnaOrigen + 1) + "-" + toLetter + "" + (columnaDestino + 1);
+        StringBuilder resultado = new StringBuilder();
+        for (int i = 0; i < filas.length; i++) {
+            if (i > 0) {
+                resultado.append('-');
+            }
+            resultado.append((char) ('h' - filas[i])).append(columnas[i] + 1);
+        }
+        return resultado.toString();
     }
 }
@@ -0,0 +1,121 @@
+package org.project.game_objects;
+
+/**
+ * Ordena los movimientos de cada nodo para que la poda alfa-beta corte lo antes posible.
+ * Primero se prueba el movimiento de la tabla de transposición, luego los dos movimientos "asesinos"
+ * del ply (los últimos que produjeron una poda a esa distancia de la raíz) y el resto según la
+ * heurística de historia, que acumula cuántas podas produjo cada par origen-destino.
+ * <p>
+ * Las tablas son propias de un hilo, por eso cada {@link ContextoBusqueda} tiene su ordenador.
+ */
+final class OrdenadorMovimientos {
+    /**
+     * Número máximo de plies para los que se guardan movimientos asesinos.
+     */
+    static final int PLY_MAXIMO = 128;
+
+    private static final int PRIORIDAD_HASH = Integer.MAX_VALUE;
+    private static final int PRIORIDAD_ASESINO = Integer.MAX_VALUE - 2;
+    private static final long SIN_MOVIMIENTO = Tabla.MOVIMIENTO_INVALIDO;
+    /**
+     * Valor a partir del cual se reducen todos los contadores de historia a la mitad.
+     */
+    private static final int HISTORIA_MAXIMA = 1 << 24;
+
+    /**
+     * Dos movimientos asesinos por ply, codificados como en {@link Tabla#generarMovimientos}.
+     */
+    private final long[][] asesinos = new long[PLY_MAXIMO][2];
+    /**
+     * Contadores de historia por color y par (origen, destino).
+     */
+    private final int[][] historia = new int[2][Tabla.NUM_BITS * Tabla.NUM_BITS];
+    /**
+     * Prioridades de la lista que se está ordenando, reutilizadas entre llamadas.
+     */
+    private final int[] prioridades = new int[Tabla.MAX_MOVIMIENTOS];
+
+    OrdenadorMovimientos() {
+        for (long[] asesinosPly : asesinos) {
+            asesinosPly[0] = SIN_MOVIMIENTO;
+            asesinosPly[1] = SIN_MOVIMIENTO;
+        }
+    }
+
+    /**
+     * Ordena en el sitio un tramo de movimientos codificados: movimiento de la tabla de
+     * transposición, asesinos e historia.
+     *
+     * @param movimientos      El arreglo con los movimientos del nodo.
+     * @param inicio           La posición del primer movimiento del nodo.
+     * @param cantidad         El número de movimientos del nodo.
+     * @param ply              La distancia a la raíz.
+     * @param movimientoHash   El origen y destino del movimiento de la tabla de transposición, o -1.
+     * @param esTurnoDeBlancas El color que mueve.
+     */
+    void ordenar(long[] movimientos, int inicio, int cantidad, int ply, int movimientoHash, boolean esTurnoDeBlancas) {
+        if (cantidad < 2) {
+            return;
+        }
+
+        long[] asesinosPly = ply < PLY_MAXIMO ? asesinos[ply] : null;
+        int[] historiaColor = historia[esTurnoDeBlancas ? 0 : 1];
+        for (int i = 0; i < cantidad; i++) {
+            long movimiento = movimientos[inicio + i];
+            int prioridad;
+            if ((movimiento & Tabla.MASCARA_ORIGEN_DESTINO) == movimientoHash) {
+                prioridad = PRIORIDAD_HASH;
+            } else if (asesinosPly != null && movimiento == asesinosPly[0]) {
+                prioridad = PRIORIDAD_ASESINO;
+            } else if (asesinosPly != null && movimiento == asesinosPly[1]) {
+                prioridad = PRIORIDAD_ASESINO - 1;
+            } else {
+                prioridad = historiaColor[indiceHistoria(movimiento)];
+            }
+            prioridades[i] = prioridad;
+        }
+
+        // Ordenación por inserción estable: las listas son cortas y suelen estar casi ordenadas
+        for (int i = 1; i < cantidad; i++) {
+            int prioridad = prioridades[i];
+            long movimiento = movimientos[inicio + i];
+            int j = i - 1;
+            while (j >= 0 && prioridades[j] < prioridad) {
+                prioridades[j + 1] = prioridades[j];
+                movimientos[inicio + j + 1] = movimientos[inicio + j];
+                j--;
+            }
+            prioridades[j + 1] = prioridad;
+            movimientos[inicio + j + 1] = movimiento;
+        }
+    }
+
+    /**
+     * Registra que un movimiento produjo una poda: pasa a ser el primer asesino de su ply y suma
+     * a su historia un valor que crece con la profundidad restante.
+     *
+     * @param movimiento       El movimiento codificado que produjo la poda.
+     * @param ply              La distancia a la raíz.
+     * @param profundidad      La profundidad restante del nodo.
+     * @param esTurnoDeBlancas El color que movió.
+     */
+    void registrarCorte(long movimiento, int ply, int profundidad, boolean esTurnoDeBlancas) {
+        if (ply < PLY_MAXIMO && asesinos[ply][0] != movimiento) {
+            asesinos[ply][1] = asesinos[ply][0];
+            asesinos[ply][0] = movimiento;
+        }
+
+        int[] historiaColor = historia[esTurnoDeBlancas ? 0 : 1];
+        int indice = indiceHistoria(movimiento);
+        historiaColor[indice] += profundidad * profundidad;
+        if (historiaColor[indice] >= HISTORIA_MAXIMA) {
+            for (int i = 0; i < historiaColor.length; i++) {
+                historiaColor[i] >>= 1;
+            }
+        }
+    }
+
+    private static int indiceHistoria(long movimiento) {
+        return Tabla.origenDe(movimiento) * Tabla.NUM_BITS + Tabla.destinoDe(movimiento);
+    }
+}
@@ -0,0 +1,141 @@
+package org.project.game_objects;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reflexión durante el turno del rival ("pondering"): mientras el humano piensa su movimiento, un
+ * hilo en segundo plano busca la respuesta de la IA a cada una de sus jugadas posibles, empezando
+ * por la que predice la tabla de transposición. Las respuestas terminadas se guardan por hash de la
+ * posición; lo que se aprende de las demás queda en la tabla de transposición y abarata la búsqueda
+ * normal.
+ * <p>
+ * Cuando llega el movimiento del humano, {@link #obtener} devuelve la respuesta si ya está
+ * calculada; si es la posición que se está buscando en ese momento, deja terminar esa búsqueda y
+ * devuelve su resultado; y si no, detiene la búsqueda en curso y devuelve null para que se busque
+ * como siempre.
+ */
+public final class Reflexion {
+    private final AIPlayer ia;
+    private final boolean paralelo;
+    /**
+     * Respuestas terminadas, por hash de la posición con turno de la IA.
+     */
+    private final Map<Long, Movimiento> respuestas = new ConcurrentHashMap<>();
+    private Thread hilo;
+    /**
+     * Estado de la reflexión en curso, protegido por el monitor de esta instancia.
+     */
+    private boolean terminada = true;
+    private long claveActual;
+    private ControlBusqueda controlActual;
+
+    /**
+     * Construye la reflexión de una IA.
+     *
+     * @param ia       La IA que reflexiona; comparte su tabla de transposición.
+     * @param paralelo True si la IA busca con el motor paralelo, para reflexionar con el mismo.
+     */
+    public Reflexion(AIPlayer ia, boolean paralelo) {
+        if (ia == null) {
+            throw new IllegalArgumentException("La IA no puede ser null");
+        }
+        this.ia = ia;
+        this.paralelo = paralelo;
+    }
+
+    /**
+     * Empieza a reflexionar sobre una posición con turno del rival, deteniendo la reflexión anterior
+     * si la hay.
+     *
+     * @param tabla La posición actual, que se copia.
+     */
+    public void iniciar(Tabla tabla) {
+        detener();
+        Tabla copia = new Tabla(tabla);
+        synchronized (this) {
+            respuestas.clear();
+            terminada = false;
+            controlActual = null;
+        }
+        hilo = new Thread(() -> reflexionar(copia), "reflexion-" + (ia.esBlanca ? "blancas" : "negras"));
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Termina la reflexión y obtiene la respuesta a la posición alcanzada por el movimiento del rival.
+     *
+     * @param tabla La posición tras el movimiento del rival, con turno de la IA.
+     * @return La respuesta de la IA, o null si no se llegó a calcular y hay que buscarla.
+     */
+    public Movimiento obtener(Tabla tabla) {
+        long clave = tabla.getHash(ia.esBlanca);
+        synchronized (this) {
+            terminada = true;
+            if (controlActual != null && claveActual != clave) {
+                controlActual.detener();
+            }
+        }
+        esperar();
+        return respuestas.get(clave);
+    }
+
+    /**
+     * Detiene la reflexión en curso, si la hay, y espera a que el hilo termine.
+     */
+    public void detener() {
+        synchronized (this) {
+            terminada = true;
+            if (controlActual != null) {
+                controlActual.detener();
+            }
+        }
+        esperar();
+    }
+
+    private void esperar() {
+        Thread actual = hilo;
+        if (actual == null) {
+            return;
+        }
+        try {
+            actual.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        hilo = null;
+    }
+
+    /**
+     * Cuerpo del hilo: busca la respuesta a cada jugada del rival, la prevista primero.
+     */
+    private void reflexionar(Tabla tabla) {
+        boolean turnoRival = !ia.esBlanca;
+        List<Movimiento> jugadas = tabla.getMovimientosDisponibles(turnoRival);
+        Movimiento prevista = ia.predecirRespuesta(tabla);
+        if (prevista != null) {
+            jugadas.remove(prevista);
+            jugadas.addFirst(prevista);
+        }
+
+        for (Movimiento jugada : jugadas) {
+            tabla.hacerMovimiento(jugada, turnoRival);
+            long clave = tabla.getHash(ia.esBlanca);
+            ControlBusqueda control = new ControlBusqueda();
+            synchronized (this) {
+                if (terminada) {
+                    return;
+                }
+                claveActual = clave;
+                controlActual = control;
+            }
+            Movimiento respuesta = ia.reflexionar(tabla, paralelo, control);
+            if (respuesta != null) {
+                respuestas.put(clave, respuesta);
+            }
+            tabla.deshacerMovimiento();
+        }
+    }
+}
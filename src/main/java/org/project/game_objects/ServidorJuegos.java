@@ -0,0 +1,462 @@
+package org.project.game_objects;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor sin interfaz que aloja muchas partidas simultáneas sobre un protocolo TCP de líneas.
+ * <p>
+ * Un único hilo atiende todas las conexiones con un {@link Selector} de NIO: acepta, lee líneas y
+ * escribe respuestas sin bloquearse. Cada conexión es una sesión con su propia partida, cuyos
+ * comandos procesa en orden un hilo virtual; así una sesión que espera a su cliente o a la IA no
+ * ocupa un hilo de plataforma. Las búsquedas de la IA se envían a un grupo acotado de hilos de
+ * CPU, de modo que miles de sesiones ociosas no compiten con los hilos que buscan.
+ * <p>
+ * Todas las partidas comparten dos IAs, una por color, y con ellas su tabla de transposición: las
+ * posiciones son las mismas en cualquier partida, así que lo que aprende una búsqueda aprovecha a
+ * las demás, y la memoria no crece con el número de sesiones. Como buscan varias partidas a la vez,
+ * las búsquedas no avanzan la generación de la tabla: la avanza el servidor cada
+ * {@link #PERIODO_GENERACION_MS}, y las entradas de ese periodo cuentan como actuales para el
+ * reemplazo. Por lo mismo, el resumen de la última búsqueda de cada IA no corresponde a ninguna
+ * partida concreta; las estadísticas acumuladas sí suman todas las búsquedas.
+ * <p>
+ * Comandos (una línea cada uno; la respuesta también es una línea, que empieza por {@code OK} o
+ * {@code ERROR}):
+ * <ul>
+ *     <li>{@code NUEVA}: empieza una partida nueva en la posición inicial.</li>
+ *     <li>{@code MOVER <movimiento>}: juega un movimiento del bando al que le toca, por ejemplo
+ *     {@code MOVER c3-d4}.</li>
+ *     <li>{@code IA}: la IA juega por el bando al que le toca; responde {@code OK <movimiento>}. Si el
+ *     plazo se agota antes de completar ninguna iteración de la búsqueda, porque el servidor está
+ *     saturado, responde {@code ERROR ocupado} sin jugar, y el cliente puede volver a pedirlo.</li>
+ *     <li>{@code TABLERO}: responde {@code OK <notación>}, con la posición en la notación de
+ *     {@link CodificadorPosicion}.</li>
+ *     <li>{@code SALIR}: cierra la conexión.</li>
+ * </ul>
+ * Cuando un movimiento termina la partida, la respuesta acaba en {@code FIN BLANCAS} o
+ * {@code FIN NEGRAS}.
+ */
+public final class ServidorJuegos implements Closeable {
+    public static final int PUERTO_POR_DEFECTO = 7070;
+    public static final int PROFUNDIDAD_POR_DEFECTO = 6;
+    /**
+     * Plazo por defecto de cada búsqueda de la IA, en milisegundos.
+     */
+    public static final long PLAZO_POR_DEFECTO_MS = 2000;
+    /**
+     * Cada cuánto avanza el servidor la generación de las tablas de transposición, en milisegundos.
+     */
+    static final long PERIODO_GENERACION_MS = 1000;
+    /**
+     * Tamaño de la tabla de transposición de cada una de las dos IAs, en megabytes.
+     */
+    private static final int TAMANO_TABLA_MB = 64;
+    private static final int LONGITUD_MAXIMA_LINEA = 256;
+    /**
+     * Marca que recibe el hilo de una sesión cuando se cierra su conexión.
+     */
+    private static final String FIN_SESION = "\u0000";
+
+    private final ServerSocketChannel canal;
+    private final Selector selector;
+    private final ExecutorService hilosCPU;
+    private final ExecutorService hilosSesion = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService reloj;
+    private final AIPlayer iaBlancas;
+    private final AIPlayer iaNegras;
+    private final long plazoMs;
+    /**
+     * Sesiones con respuestas pendientes de escribir, que el hilo del selector debe atender.
+     */
+    private final Queue<Sesion> pendientesEscritura = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger sesionesActivas = new AtomicInteger();
+    private volatile boolean cerrado;
+    private volatile boolean enEjecucion;
+
+    /**
+     * Abre el servidor en el puerto indicado; no atiende conexiones hasta llamar a {@link #ejecutar}.
+     *
+     * @param puerto      El puerto TCP, o 0 para elegir uno libre.
+     * @param profundidad La profundidad de búsqueda de la IA.
+     * @param hilosCPU    El número de hilos que buscan a la vez.
+     * @param plazoMs     El plazo de cada búsqueda en milisegundos, o 0 para no limitarlo.
+     * @throws IOException si no se puede abrir el puerto.
+     */
+    public ServidorJuegos(int puerto, int profundidad, int hilosCPU, long plazoMs) throws IOException {
+        if (profundidad <= 0) {
+            throw new IllegalArgumentException("La profundidad debe ser positiva");
+        }
+        if (hilosCPU <= 0) {
+            throw new IllegalArgumentException("El número de hilos debe ser positivo");
+        }
+        if (plazoMs < 0) {
+            throw new IllegalArgumentException("El plazo no puede ser negativo");
+        }
+        this.iaBlancas = new AIPlayer(true, profundidad, TAMANO_TABLA_MB, 1);
+        this.iaNegras = new AIPlayer(false, profundidad, TAMANO_TABLA_MB, 1);
+        iaBlancas.setGeneracionExterna(true);
+        iaNegras.setGeneracionExterna(true);
+        this.reloj = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "servidor-generacion");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.plazoMs = plazoMs;
+        this.hilosCPU = Executors.newFixedThreadPool(hilosCPU, tarea -> {
+            Thread hilo = new Thread(tarea, "servidor-busqueda");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.selector = Selector.open();
+        this.canal = ServerSocketChannel.open();
+        canal.bind(new InetSocketAddress(puerto));
+        canal.configureBlocking(false);
+        canal.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Obtiene el puerto en el que escucha el servidor.
+     *
+     * @return El puerto.
+     * @throws IOException si el canal está cerrado.
+     */
+    public int getPuerto() throws IOException {
+        return ((InetSocketAddress) canal.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Obtiene el número de conexiones abiertas.
+     *
+     * @return El número de sesiones.
+     */
+    public int getSesionesActivas() {
+        return sesionesActivas.get();
+    }
+
+    /**
+     * Obtiene las estadísticas de búsqueda de la IA de un color, compartida por todas las partidas.
+     *
+     * @param blancas True para la IA que juega con blancas.
+     * @return Las estadísticas.
+     */
+    public EstadisticasBusqueda getEstadisticas(boolean blancas) {
+        return (blancas ? iaBlancas : iaNegras).getEstadisticas();
+    }
+
+    /**
+     * Atiende conexiones en el hilo que llama hasta que se cierra el servidor.
+     *
+     * @throws IOException si falla el selector.
+     */
+    public void ejecutar() throws IOException {
+        enEjecucion = true;
+        reloj.scheduleAtFixedRate(() -> {
+            iaBlancas.nuevaGeneracion();
+            iaNegras.nuevaGeneracion();
+        }, 0, PERIODO_GENERACION_MS, TimeUnit.MILLISECONDS);
+        try {
+            atenderConexiones();
+        } finally {
+            liberar();
+        }
+    }
+
+    private void atenderConexiones() throws IOException {
+        while (!cerrado) {
+            selector.select();
+            Sesion pendiente;
+            while ((pendiente = pendientesEscritura.poll()) != null) {
+                pendiente.activarEscritura();
+            }
+            Iterator<SelectionKey> claves = selector.selectedKeys().iterator();
+            while (claves.hasNext()) {
+                SelectionKey clave = claves.next();
+                claves.remove();
+                if (!clave.isValid()) {
+                    continue;
+                }
+                if (clave.isAcceptable()) {
+                    aceptar();
+                    continue;
+                }
+                Sesion sesion = (Sesion) clave.attachment();
+                try {
+                    if (clave.isReadable()) {
+                        sesion.leer();
+                    }
+                    if (clave.isValid() && clave.isWritable()) {
+                        sesion.escribir();
+                    }
+                } catch (IOException e) {
+                    sesion.cerrar();
+                }
+            }
+        }
+    }
+
+    /**
+     * Cierra el servidor: deja de aceptar conexiones, cierra las abiertas y detiene los hilos.
+     */
+    @Override
+    public void close() throws IOException {
+        cerrado = true;
+        selector.wakeup();
+        if (!enEjecucion) {
+            liberar();
+        }
+    }
+
+    /**
+     * Libera los recursos del servidor; lo hace el hilo del selector al salir de su bucle.
+     */
+    private void liberar() throws IOException {
+        for (SelectionKey clave : selector.keys()) {
+            if (clave.attachment() instanceof Sesion sesion) {
+                sesion.cerrar();
+            }
+        }
+        canal.close();
+        selector.close();
+        hilosSesion.shutdownNow();
+        hilosCPU.shutdownNow();
+        reloj.shutdownNow();
+    }
+
+    private void aceptar() throws IOException {
+        SocketChannel conexion = canal.accept();
+        if (conexion == null) {
+            return;
+        }
+        conexion.configureBlocking(false);
+        Sesion sesion = new Sesion(conexion);
+        sesion.clave = conexion.register(selector, SelectionKey.OP_READ, sesion);
+        sesionesActivas.incrementAndGet();
+        hilosSesion.execute(sesion::atender);
+    }
+
+    /**
+     * Una conexión con su partida. La lectura y la escritura las hace el hilo del selector; los
+     * comandos, el hilo virtual de la sesión, que se comunica con él mediante colas.
+     */
+    private final class Sesion {
+        private final SocketChannel conexion;
+        private SelectionKey clave;
+        private final ByteBuffer lectura = ByteBuffer.allocate(LONGITUD_MAXIMA_LINEA);
+        private final BlockingQueue<String> entradas = new LinkedBlockingQueue<>();
+        private final Queue<ByteBuffer> salidas = new ConcurrentLinkedQueue<>();
+        private volatile boolean cerrarTrasEscribir;
+        private boolean cerrada;
+
+        // Estado de la partida, solo lo toca el hilo de la sesión
+        private Tabla tabla = new Tabla();
+        private boolean turnoDeBlancas = true;
+        private boolean salir;
+
+        Sesion(SocketChannel conexion) {
+            this.conexion = conexion;
+        }
+
+        /**
+         * Lee lo disponible y entrega al hilo de la sesión cada línea completa.
+         */
+        void leer() throws IOException {
+            if (conexion.read(lectura) < 0) {
+                cerrar();
+                return;
+            }
+            lectura.flip();
+            int inicio = 0;
+            for (int i = 0; i < lectura.limit(); i++) {
+                if (lectura.get(i) == '\n') {
+                    String linea = new String(lectura.array(), inicio, i - inicio, StandardCharsets.UTF_8).strip();
+                    if (!linea.isEmpty()) {
+                        entradas.add(linea);
+                    }
+                    inicio = i + 1;
+                }
+            }
+            lectura.position(inicio);
+            lectura.compact();
+            if (!lectura.hasRemaining()) {
+                // Línea demasiado larga: se descarta lo leído
+                lectura.clear();
+                responder("ERROR línea demasiado larga");
+            }
+        }
+
+        /**
+         * Escribe las respuestas pendientes hasta vaciar la cola o llenar el búfer del socket.
+         */
+        void escribir() throws IOException {
+            ByteBuffer salida;
+            while ((salida = salidas.peek()) != null) {
+                conexion.write(salida);
+                if (salida.hasRemaining()) {
+                    return;
+                }
+                salidas.poll();
+            }
+            if (cerrarTrasEscribir) {
+                cerrar();
+            } else {
+                clave.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        /**
+         * Pide al selector que escriba; se llama desde el hilo del selector.
+         */
+        void activarEscritura() {
+            if (clave.isValid()) {
+                clave.interestOps(clave.interestOps() | SelectionKey.OP_WRITE);
+            }
+        }
+
+        /**
+         * Encola una respuesta; se llama desde el hilo de la sesión o desde el del selector.
+         */
+        void responder(String respuesta) {
+            salidas.add(StandardCharsets.UTF_8.encode(respuesta + "\n"));
+            pendientesEscritura.add(this);
+            selector.wakeup();
+        }
+
+        /**
+         * Encola la última respuesta y pide cerrar la conexión cuando se haya escrito. La marca se
+         * pone después de encolar la respuesta, para que el selector no cierre antes de escribirla.
+         */
+        void responderYCerrar(String respuesta) {
+            salidas.add(StandardCharsets.UTF_8.encode(respuesta + "\n"));
+            cerrarTrasEscribir = true;
+            pendientesEscritura.add(this);
+            selector.wakeup();
+        }
+
+        /**
+         * Cierra la conexión y avisa al hilo de la sesión.
+         */
+        void cerrar() {
+            synchronized (this) {
+                if (cerrada) {
+                    return;
+                }
+                cerrada = true;
+            }
+            clave.cancel();
+            try {
+                conexion.close();
+            } catch (IOException e) {
+                // La conexión ya no se usa
+            }
+            sesionesActivas.decrementAndGet();
+            entradas.add(FIN_SESION);
+        }
+
+        /**
+         * Cuerpo del hilo virtual: procesa los comandos en orden hasta que se cierra la conexión.
+         */
+        void atender() {
+            try {
+                while (true) {
+                    String linea = entradas.take();
+                    if (linea == FIN_SESION) {
+                        return;
+                    }
+                    String respuesta = procesar(linea);
+                    if (salir) {
+                        responderYCerrar(respuesta);
+                        return;
+                    }
+                    responder(respuesta);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private String procesar(String linea) {
+            String[] partes = linea.split("\\s+");
+            return switch (partes[0].toUpperCase(Locale.ROOT)) {
+                case "NUEVA" -> {
+                    tabla = new Tabla();
+                    turnoDeBlancas = true;
+                    yield "OK";
+                }
+                case "MOVER" -> partes.length == 2 ? mover(partes[1]) : "ERROR uso: MOVER <movimiento>";
+                case "IA" -> moverIA();
+                case "TABLERO" -> "OK " + CodificadorPosicion.escribirNotacion(tabla, turnoDeBlancas);
+                case "SALIR" -> {
+                    salir = true;
+                    yield "OK";
+                }
+                default -> "ERROR comando desconocido: " + partes[0];
+            };
+        }
+
+        private String mover(String texto) {
+            if (tabla.haTerminado()) {
+                return "ERROR la partida terminó";
+            }
+            Movimiento movimiento;
+            try {
+                movimiento = new Movimiento(texto);
+            } catch (IllegalArgumentException e) {
+                return "ERROR " + e.getMessage();
+            }
+            if (!tabla.getMovimientosDisponibles(turnoDeBlancas).contains(movimiento)) {
+                return "ERROR movimiento ilegal: " + texto;
+            }
+            return jugar(movimiento, "OK");
+        }
+
+        private String moverIA() {
+            if (tabla.haTerminado()) {
+                return "ERROR la partida terminó";
+            }
+            AIPlayer ia = turnoDeBlancas ? iaBlancas : iaNegras;
+            BusquedaAsincrona busqueda = ia.buscarAsincrono(tabla, false, plazoMs, hilosCPU);
+            Movimiento movimiento;
+            try {
+                // El hilo virtual se bloquea sin ocupar un hilo de plataforma mientras busca el grupo de CPU
+                movimiento = busqueda.join();
+            } catch (CompletionException | CancellationException e) {
+                return "ERROR la búsqueda falló: " + (e.getCause() != null ? e.getCause() : e);
+            }
+            if (busqueda.getProfundidad() == 0 && !busqueda.esSinBusqueda()) {
+                // No se completó ninguna iteración: el movimiento sería el primero generado, sin buscar
+                return "ERROR ocupado";
+            }
+            return jugar(movimiento, "OK " + movimiento);
+        }
+
+        private String jugar(Movimiento movimiento, String respuesta) {
+            tabla.ejecutarMovimiento(movimiento, turnoDeBlancas);
+            turnoDeBlancas = !turnoDeBlancas;
+            return switch (tabla.estadoTerminal()) {
+                case Tabla.GANAN_BLANCAS -> respuesta + " FIN BLANCAS";
+                case Tabla.GANAN_NEGRAS -> respuesta + " FIN NEGRAS";
+                default -> respuesta;
+            };
+        }
+    }
+}
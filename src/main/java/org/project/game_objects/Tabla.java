@@ -1,53 +1,195 @@
 package org.project.game_objects;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
-
-import static edu.rice.pcdp.PCDP.*;
+import java.util.SplittableRandom;
 
 /**
  * Representa el tablero de juego de damas.
  * Gestiona el estado del tablero, las piezas y la ejecución de movimientos.
+ * <p>
+ * Internamente el tablero se guarda como tres bitboards ({@code long}) sobre las 32 casillas oscuras.
+ * Se usa la disposición con "casillas fantasma": la casilla oscura {@code s = fila * 4 + columna / 2}
+ * ocupa el bit {@code s + s / 8}, de modo que los bits 8, 17 y 26 nunca son casillas reales.
+ * Con esta disposición cada dirección diagonal es un desplazamiento fijo de bits:
+ * <pre>
+ *   arriba-izquierda  -5    arriba-derecha  -4
+ *   abajo-izquierda   +4    abajo-derecha   +5
+ * </pre>
+ * y los movimientos que saldrían del tablero caen en una casilla fantasma o fuera del rango de 35 bits.
+ * <p>
+ * La búsqueda trabaja con movimientos codificados como {@code long} (bits de origen, destino y
+ * máscara de piezas capturadas) que {@link #generarMovimientos} escribe en arreglos preasignados;
+ * {@link Movimiento} solo se usa en la interfaz pública. Una captura múltiple es un único movimiento
+ * que se aplica y se deshace de una vez. Una tabla no es segura para usarse desde varios hilos a la vez.
  */
 public class Tabla {
     /**
-     * Matriz 8x8 de casillas que representa el tablero.
+     * Número de bits usados por la disposición con casillas fantasma.
+     */
+    static final int NUM_BITS = 35;
+    /**
+     * Máscara con los bits que corresponden a casillas reales del tablero.
+     */
+    static final long CASILLAS_VALIDAS;
+    /**
+     * Casillas de la fila 0, donde coronan las piezas blancas.
+     */
+    static final long FILA_CORONACION_BLANCAS;
+    /**
+     * Casillas de la fila 7, donde coronan las piezas negras.
+     */
+    static final long FILA_CORONACION_NEGRAS;
+    /**
+     * Máscara de casillas por fila (0-7).
+     */
+    static final long[] MASCARA_FILA = new long[8];
+    /**
+     * Número máximo de movimientos que se generan por posición. Los movimientos simples no pasan de
+     * 12 piezas por 4 direcciones; las cadenas de captura distintas que excedan el límite, que en la
+     * práctica no aparecen, se descartan.
+     */
+    static final int MAX_MOVIMIENTOS = 64;
+    /**
+     * Código que no corresponde a ningún movimiento generable.
+     */
+    static final long MOVIMIENTO_INVALIDO = -1L;
+
+    // Codificación de movimientos: origen en los bits 0-5, destino en 6-11 y, desde el bit 12, la
+    // máscara de casillas capturadas (vacía si no es una captura). Los 12 bits bajos identifican
+    // origen y destino.
+    private static final int DESPLAZAMIENTO_DESTINO = 6;
+    private static final int DESPLAZAMIENTO_CAPTURADAS = 12;
+    private static final int MASCARA_BIT = 0x3F;
+    /**
+     * Máscara de los bits de origen y destino de un movimiento codificado.
      */
-    Casillero[][] tablero;
+    static final int MASCARA_ORIGEN_DESTINO = 0xFFF;
+
+    // Estados devueltos por estadoTerminal()
+    static final int EN_JUEGO = 0;
+    static final int GANAN_BLANCAS = 1;
+    static final int GANAN_NEGRAS = 2;
 
     /**
-     * Construye un nuevo tablero y lo inicializa con la disposición estándar de piezas de damas.
+     * Claves Zobrist por tipo de pieza (blanca, rey blanco, negra, rey negro) y bit de casilla.
+     * Se generan con una semilla fija para que los hashes sean estables entre ejecuciones.
      */
-    public Tabla() {
-        this.tablero = new Casillero[8][8];
-
-        // Inicializa las casillas del tablero
-        forall2dChunked(0, 7, 0, 7, (i, j)->{
-            boolean comienzaBlanco = i % 2 == 0;
-            boolean esBlanco;
-            if (comienzaBlanco) {
-                esBlanco = j % 2 == 0;
-            }else{
-                esBlanco = j % 2 == 1;
-            }
-            tablero[i][j] = new Casillero(i, j, esBlanco);
-        });
+    private static final long[][] ZOBRIST = new long[4][NUM_BITS];
+    /**
+     * Clave Zobrist que se combina con el hash cuando el turno es de las blancas.
+     */
+    private static final long ZOBRIST_TURNO_BLANCAS;
+    /**
+     * Valor estático de cada tipo de pieza en cada bit, desde la perspectiva de las blancas
+     * (las piezas negras restan): material, avance hacia la coronación y control del centro.
+     * Se indexa igual que {@link #ZOBRIST}.
+     */
+    private static final int[][] VALOR_CASILLA = new int[4][NUM_BITS];
 
-        // Coloca las piezas negras en las primeras 3 filas
-        forall2dChunked(0, 2, 0, 7, (i, j) -> {
-            if(!this.tablero[i][j].esBlanco) {
-                this.tablero[i][j].setPieza(new Pieza(i, j, false));
+    private static final int[] BIT_DE_CASILLA = new int[64];
+    private static final int[] FILA_DE_BIT = new int[NUM_BITS];
+    private static final int[] COLUMNA_DE_BIT = new int[NUM_BITS];
+    /**
+     * Desplazamientos de bit de las cuatro diagonales, en el orden en que se generan los movimientos.
+     */
+    private static final int[] PASOS = {-5, -4, 4, 5};
+
+    static {
+        long validas = 0L;
+        Arrays.fill(BIT_DE_CASILLA, -1);
+        Arrays.fill(FILA_DE_BIT, -1);
+        Arrays.fill(COLUMNA_DE_BIT, -1);
+        for (int s = 0; s < 32; s++) {
+            int fila = s / 4;
+            int columna = 2 * (s % 4) + (fila % 2 == 0 ? 1 : 0);
+            int bit = s + s / 8;
+            BIT_DE_CASILLA[fila * 8 + columna] = bit;
+            FILA_DE_BIT[bit] = fila;
+            COLUMNA_DE_BIT[bit] = columna;
+            validas |= 1L << bit;
+            MASCARA_FILA[fila] |= 1L << bit;
+        }
+        CASILLAS_VALIDAS = validas;
+        FILA_CORONACION_BLANCAS = MASCARA_FILA[0];
+        FILA_CORONACION_NEGRAS = MASCARA_FILA[7];
+
+        SplittableRandom aleatorio = new SplittableRandom(0x5EED_DA3A5L);
+        for (long[] claves : ZOBRIST) {
+            for (int bit = 0; bit < NUM_BITS; bit++) {
+                claves[bit] = aleatorio.nextLong();
             }
-        });
+        }
+        ZOBRIST_TURNO_BLANCAS = aleatorio.nextLong();
 
-        // Coloca las piezas blancas en las últimas 3 filas
-        forall2dChunked(5, 7, 0, 7, (i, j) -> {
-            if(!this.tablero[i][j].esBlanco) {
-                this.tablero[i][j].setPieza(new Pieza(i, j, true));
+        long centro = (1L << BIT_DE_CASILLA[3 * 8 + 4]) | (1L << BIT_DE_CASILLA[4 * 8 + 3]);
+        for (int bit = 0; bit < NUM_BITS; bit++) {
+            if ((validas & (1L << bit)) == 0) {
+                continue;
             }
-        });
+            int fila = FILA_DE_BIT[bit];
+            int bonificacionCentro = (centro & (1L << bit)) != 0 ? AIPlayer.BONIFICACION_CENTRO : 0;
+            VALOR_CASILLA[0][bit] = AIPlayer.VALOR_PIEZA + (7 - fila) + bonificacionCentro;
+            VALOR_CASILLA[1][bit] = AIPlayer.VALOR_REY + (7 - fila) + bonificacionCentro;
+            VALOR_CASILLA[2][bit] = -(AIPlayer.VALOR_PIEZA + fila + bonificacionCentro);
+            VALOR_CASILLA[3][bit] = -(AIPlayer.VALOR_REY + fila + bonificacionCentro);
+        }
+    }
+
+    /**
+     * Casillas ocupadas por piezas blancas (normales y reyes).
+     */
+    long blancas;
+    /**
+     * Casillas ocupadas por piezas negras (normales y reyes).
+     */
+    long negras;
+    /**
+     * Casillas ocupadas por reyes de cualquier color.
+     */
+    long reyes;
+    /**
+     * Hash Zobrist de la colocación de piezas, mantenido de forma incremental al mover.
+     */
+    long hash;
+    /**
+     * Suma de {@link #VALOR_CASILLA} de todas las piezas, mantenida de forma incremental al mover
+     * igual que el hash.
+     */
+    int valorEstatico;
+    /**
+     * Pila de registros para deshacer los movimientos aplicados con {@link #hacerMovimiento}.
+     * Los registros se reutilizan entre llamadas para no generar basura durante la búsqueda.
+     */
+    private RegistroDeshacer[] pilaDeshacer = new RegistroDeshacer[0];
+    /**
+     * Número de registros ocupados en la pila de deshacer.
+     */
+    private int alturaPila;
+    /**
+     * Posición para la que se calculó {@link #estadoGuardado}. Se inicializa con un valor imposible
+     * (con casillas fantasma) para que la primera consulta lo calcule.
+     */
+    private long blancasEstado = -1L;
+    private long negrasEstado;
+    private long reyesEstado;
+    /**
+     * Estado terminal de la última posición consultada: la búsqueda pregunta varias veces por el
+     * mismo nodo (al entrar, al evaluarlo y al obtener el ganador).
+     */
+    private int estadoGuardado;
+
+    /**
+     * Construye un nuevo tablero y lo inicializa con la disposición estándar de piezas de damas.
+     */
+    public Tabla() {
+        // Las piezas negras ocupan las primeras 3 filas y las blancas las últimas 3
+        this.negras = MASCARA_FILA[0] | MASCARA_FILA[1] | MASCARA_FILA[2];
+        this.blancas = MASCARA_FILA[5] | MASCARA_FILA[6] | MASCARA_FILA[7];
+        this.reyes = 0L;
+        this.hash = calcularHash();
+        this.valorEstatico = calcularValorEstatico();
     }
 
     /**
@@ -55,31 +197,126 @@ public class Tabla {
      * @param original La tabla original a copiar.
      */
     public Tabla(Tabla original) {
-        this.tablero = new Casillero[8][8];
-
-        forall2dChunked(0, 7, 0, 7, (i, j) -> {
-            Casillero originalCasillero = original.tablero[i][j];
-            Casillero nuevoCasillero = new Casillero(i, j, originalCasillero.esBlanco);
-            if (originalCasillero.tienePieza()) {
-                Pieza originalPieza = originalCasillero.getPieza();
-                Pieza nuevaPieza = new Pieza(i, j, originalPieza.esBlanca());
-                if (originalPieza.esRey()) {
-                    nuevaPieza.coronar();
-                }
-                nuevoCasillero.setPieza(nuevaPieza);
-            }
-            this.tablero[i][j] = nuevoCasillero;
-        });
+        this.blancas = original.blancas;
+        this.negras = original.negras;
+        this.reyes = original.reyes;
+        this.hash = original.hash;
+        this.valorEstatico = original.valorEstatico;
     }
 
+    /**
+     * Copia la posición de otro tablero en este y vacía la pila de deshacer, conservando sus
+     * registros para no asignarlos de nuevo.
+     *
+     * @param original La tabla cuya posición se copia.
+     */
+    void copiar(Tabla original) {
+        this.blancas = original.blancas;
+        this.negras = original.negras;
+        this.reyes = original.reyes;
+        this.hash = original.hash;
+        this.valorEstatico = original.valorEstatico;
+        this.alturaPila = 0;
+    }
+
+    /**
+     * Reemplaza la colocación de piezas y vacía la pila de deshacer. No comprueba que la posición
+     * sea alcanzable, solo que las piezas estén en casillas reales y no se superpongan.
+     *
+     * @param blancas Bitboard de las piezas blancas (normales y reyes).
+     * @param negras  Bitboard de las piezas negras (normales y reyes).
+     * @param reyes   Bitboard de los reyes de ambos colores.
+     */
+    void colocarPiezas(long blancas, long negras, long reyes) {
+        if ((blancas & negras) != 0 || ((blancas | negras) & ~CASILLAS_VALIDAS) != 0 || (reyes & ~(blancas | negras)) != 0) {
+            throw new IllegalArgumentException("Colocación de piezas inválida");
+        }
+        this.blancas = blancas;
+        this.negras = negras;
+        this.reyes = reyes;
+        this.hash = calcularHash();
+        this.valorEstatico = calcularValorEstatico();
+        this.alturaPila = 0;
+    }
+
+    /**
+     * Obtiene el hash Zobrist de la colocación de piezas, sin tener en cuenta el turno.
+     *
+     * @return El hash de la posición.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Obtiene el hash Zobrist de la posición incluyendo el jugador que tiene el turno.
+     *
+     * @param esTurnoDeBlancas True si el turno es de las blancas.
+     * @return El hash de la posición con el turno.
+     */
+    public long getHash(boolean esTurnoDeBlancas) {
+        return esTurnoDeBlancas ? hash ^ ZOBRIST_TURNO_BLANCAS : hash;
+    }
+
+    /**
+     * Calcula el hash Zobrist desde cero recorriendo los bitboards.
+     */
+    private long calcularHash() {
+        long resultado = 0L;
+        long ocupadas = blancas | negras;
+        while (ocupadas != 0) {
+            int bit = Long.numberOfTrailingZeros(ocupadas);
+            ocupadas &= ocupadas - 1;
+            resultado ^= ZOBRIST[tipoDePieza(bit)][bit];
+        }
+        return resultado;
+    }
+
+    /**
+     * Calcula el valor estático desde cero recorriendo los bitboards.
+     */
+    private int calcularValorEstatico() {
+        int resultado = 0;
+        long ocupadas = blancas | negras;
+        while (ocupadas != 0) {
+            int bit = Long.numberOfTrailingZeros(ocupadas);
+            ocupadas &= ocupadas - 1;
+            resultado += VALOR_CASILLA[tipoDePieza(bit)][bit];
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene el índice de tipo de pieza usado por las claves Zobrist para la pieza en el bit dado.
+     */
+    private int tipoDePieza(int bit) {
+        int tipo = (blancas & (1L << bit)) != 0 ? 0 : 2;
+        return (reyes & (1L << bit)) != 0 ? tipo + 1 : tipo;
+    }
 
     /**
      * Obtiene la matriz de casillas del tablero.
+     * La matriz se construye a partir de los bitboards en cada llamada, por lo que es una
+     * instantánea: modificarla no altera el estado del tablero.
      *
      * @return La matriz 8x8 de casillas.
      */
     public Casillero[][] getTablero() {
-        return this.tablero;
+        Casillero[][] tablero = new Casillero[8][8];
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                int bit = BIT_DE_CASILLA[i * 8 + j];
+                tablero[i][j] = new Casillero(i, j, bit < 0);
+                if (bit >= 0 && ((blancas | negras) & (1L << bit)) != 0) {
+                    Pieza pieza = new Pieza(i, j, (blancas & (1L << bit)) != 0);
+                    if ((reyes & (1L << bit)) != 0) {
+                        pieza.coronar();
+                    }
+                    tablero[i][j].setPieza(pieza);
+                }
+            }
+        }
+        return tablero;
     }
 
     /**
@@ -92,34 +329,132 @@ public class Tabla {
         if (!esMovimientoValido(movimiento, esTurnoDeBlancas)) {
             return;
         }
+        aplicarMovimiento(codificar(movimiento), esTurnoDeBlancas);
+    }
 
-        Casillero casilleroOrigen = tablero[movimiento.filaOrigen][movimiento.columnaOrigen];
-        Casillero casilleroDestino = tablero[movimiento.filaDestino][movimiento.columnaDestino];
-        Pieza pieza = casilleroOrigen.getPieza();
+    /**
+     * Aplica un movimiento en el tablero guardando lo necesario para revertirlo con
+     * {@link #deshacerMovimiento()}. A diferencia de {@link #ejecutarMovimiento}, no valida el
+     * movimiento: está pensado para la búsqueda, que solo aplica movimientos generados por
+     * {@link #getMovimientosDisponibles}.
+     *
+     * @param movimiento       El movimiento a aplicar.
+     * @param esTurnoDeBlancas True si el jugador que mueve es blanco.
+     */
+    public void hacerMovimiento(Movimiento movimiento, boolean esTurnoDeBlancas) {
+        hacerMovimiento(codificar(movimiento), esTurnoDeBlancas);
+    }
+
+    /**
+     * Aplica un movimiento codificado, guardando lo necesario para revertirlo con
+     * {@link #deshacerMovimiento()}. No valida el movimiento ni asigna memoria.
+     *
+     * @param movimiento       El movimiento codificado, tal como lo escribe {@link #generarMovimientos}.
+     * @param esTurnoDeBlancas True si el jugador que mueve es blanco.
+     */
+    void hacerMovimiento(long movimiento, boolean esTurnoDeBlancas) {
+        if (alturaPila == pilaDeshacer.length) {
+            ampliarPila();
+        }
+        RegistroDeshacer registro = pilaDeshacer[alturaPila++];
+        registro.origen = origenDe(movimiento);
+        registro.destino = destinoDe(movimiento);
+        registro.esBlanca = esTurnoDeBlancas;
+        registro.hashAnterior = hash;
+        registro.valorAnterior = valorEstatico;
+        registro.capturadas = capturadasDe(movimiento);
+        registro.reyesCapturados = reyes & registro.capturadas;
+        registro.eraRey = (reyes & (1L << registro.origen)) != 0;
+
+        aplicarMovimiento(movimiento, esTurnoDeBlancas);
+    }
 
-        // Mueve la pieza
-        casilleroDestino.setPieza(pieza);
-        casilleroOrigen.setPieza(null);
+    /**
+     * Revierte el último movimiento aplicado con {@link #hacerMovimiento}, restaurando las piezas
+     * capturadas y deshaciendo la coronación si la hubo.
+     *
+     * @throws IllegalStateException si no hay movimientos que deshacer.
+     */
+    public void deshacerMovimiento() {
+        if (alturaPila == 0) {
+            throw new IllegalStateException("No hay movimientos que deshacer");
+        }
+        RegistroDeshacer registro = pilaDeshacer[--alturaPila];
+        long origen = 1L << registro.origen;
+        long destino = 1L << registro.destino;
+
+        // Devuelve la pieza a su casilla de origen (en una cadena de un rey pueden coincidir)
+        reyes &= ~destino;
+        if (registro.esBlanca) {
+            blancas = (blancas & ~destino) | origen;
+            negras |= registro.capturadas;
+        } else {
+            negras = (negras & ~destino) | origen;
+            blancas |= registro.capturadas;
+        }
+        if (registro.eraRey) {
+            reyes |= origen;
+        }
 
-        // Actualiza las coordenadas de la pieza
-        pieza.fila = movimiento.filaDestino;
-        pieza.columna = movimiento.columnaDestino;
+        // Restaura las piezas capturadas
+        reyes |= registro.reyesCapturados;
+        hash = registro.hashAnterior;
+        valorEstatico = registro.valorAnterior;
+    }
 
-        // Gestiona la captura de piezas
-        if (movimiento.esCaptura()) {
-            int filaCapturada = movimiento.getFilaPiezaCapturada();
-            int columnaCapturada = movimiento.getColumnaPiezaCapturada();
-            Casillero casilleroCapturado = tablero[filaCapturada][columnaCapturada];
-            casilleroCapturado.setPieza(null);
+    private void ampliarPila() {
+        int tamanoAnterior = pilaDeshacer.length;
+        pilaDeshacer = Arrays.copyOf(pilaDeshacer, Math.max(16, tamanoAnterior * 2));
+        for (int i = tamanoAnterior; i < pilaDeshacer.length; i++) {
+            pilaDeshacer[i] = new RegistroDeshacer();
         }
+    }
 
-        // Promoción a rey
-        if (!pieza.esRey()) {
-            if ((pieza.esBlanca() && movimiento.filaDestino == 0) || (!pieza.esBlanca() && movimiento.filaDestino == 7)) {
-                pieza.coronar();
-            }
+    /**
+     * Mueve la pieza, retira las piezas capturadas y corona si corresponde, sin validar el movimiento.
+     */
+    private void aplicarMovimiento(long movimiento, boolean esTurnoDeBlancas) {
+        int bitOrigen = origenDe(movimiento);
+        int bitDestino = destinoDe(movimiento);
+        long origen = 1L << bitOrigen;
+        long destino = 1L << bitDestino;
+        int tipoOrigen = tipoDePieza(bitOrigen);
+        hash ^= ZOBRIST[tipoOrigen][bitOrigen];
+        valorEstatico -= VALOR_CASILLA[tipoOrigen][bitOrigen];
+
+        // Levanta la pieza; se coloca al final porque un rey puede terminar la cadena en su origen
+        boolean esRey = (reyes & origen) != 0;
+        if (esTurnoDeBlancas) {
+            blancas &= ~origen;
+        } else {
+            negras &= ~origen;
+        }
+        reyes &= ~origen;
+
+        // Retira las piezas capturadas
+        long capturadas = capturadasDe(movimiento);
+        for (long resto = capturadas; resto != 0; resto &= resto - 1) {
+            int bitCapturado = Long.numberOfTrailingZeros(resto);
+            int tipoCapturado = tipoDePieza(bitCapturado);
+            hash ^= ZOBRIST[tipoCapturado][bitCapturado];
+            valorEstatico -= VALOR_CASILLA[tipoCapturado][bitCapturado];
         }
+        blancas &= ~capturadas;
+        negras &= ~capturadas;
+        reyes &= ~capturadas;
 
+        // Coloca la pieza en el destino, con promoción a rey
+        if (esTurnoDeBlancas) {
+            blancas |= destino;
+        } else {
+            negras |= destino;
+        }
+        if (esRey || (destino & (esTurnoDeBlancas ? FILA_CORONACION_BLANCAS : FILA_CORONACION_NEGRAS)) != 0) {
+            reyes |= destino;
+        }
+        int tipoDestino = tipoDePieza(bitDestino);
+        hash ^= ZOBRIST[tipoDestino][bitDestino];
+        valorEstatico += VALOR_CASILLA[tipoDestino][bitDestino];
     }
 
     /**
@@ -130,154 +465,301 @@ public class Tabla {
      * @return Una lista de movimientos válidos.
      */
     public List<Movimiento> getMovimientosDisponibles(boolean esTurnoDeBlancas) {
-        List<Movimiento> movimientosDeCaptura = getTodosMovimientosDeCaptura(esTurnoDeBlancas);
-        if (!movimientosDeCaptura.isEmpty()) {
-            return movimientosDeCaptura;
+        long[] codificados = new long[MAX_MOVIMIENTOS];
+        int cantidad = generarMovimientos(esTurnoDeBlancas, codificados, 0);
+        List<Movimiento> movimientos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            movimientos.add(decodificar(codificados[i]));
+        }
+        return movimientos;
+    }
+
+    /**
+     * Genera los movimientos disponibles para un jugador codificados, sin asignar memoria. Si hay
+     * capturas, solo se generan capturas, cada cadena completa como un único movimiento. Las piezas
+     * se recorren en orden de fila y columna, igual que en {@link #getMovimientosDisponibles}.
+     *
+     * @param esTurnoDeBlancas True si se buscan movimientos para las piezas blancas.
+     * @param destino          Arreglo donde se escriben los movimientos.
+     * @param inicio           Posición del arreglo a partir de la cual se escriben; debe haber
+     *                         espacio para {@link #MAX_MOVIMIENTOS} movimientos.
+     * @return El número de movimientos escritos.
+     */
+    int generarMovimientos(boolean esTurnoDeBlancas, long[] destino, int inicio) {
+        int cantidad = generarCapturas(esTurnoDeBlancas, destino, inicio);
+        if (cantidad > 0) {
+            return cantidad;
         }
-        return getTodosMovimientosRegulares(esTurnoDeBlancas);
+        return generarRegulares(esTurnoDeBlancas, destino, inicio);
     }
 
     // --- Lógica de validación de movimientos (anteriormente en ValidadorMov) ---
 
     /**
-     * Verifica si un movimiento es válido.
+     * Verifica si un movimiento es válido: debe ser uno de los movimientos disponibles, lo que
+     * incluye la obligación de capturar y de completar las capturas múltiples.
      *
      * @param m                  El movimiento a validar.
      * @param esTurnoDeBlancas   True si el turno es de las blancas.
      * @return true si el movimiento es legal.
      */
     public boolean esMovimientoValido(Movimiento m, boolean esTurnoDeBlancas) {
-        if (!estanEnTablero(m.filaOrigen, m.columnaOrigen) || !estanEnTablero(m.filaDestino, m.columnaDestino)) {
+        long codigo = codificar(m);
+        if (codigo == MOVIMIENTO_INVALIDO) {
             return false;
         }
+        long[] disponibles = new long[MAX_MOVIMIENTOS];
+        int cantidad = generarMovimientos(esTurnoDeBlancas, disponibles, 0);
+        for (int i = 0; i < cantidad; i++) {
+            if (disponibles[i] == codigo) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        Casillero origen = tablero[m.filaOrigen][m.columnaOrigen];
-        Casillero destino = tablero[m.filaDestino][m.columnaDestino];
-        Pieza pieza = origen.getPieza();
-
-        if (!origen.tienePieza() || pieza.esBlanca() != esTurnoDeBlancas) {
-            return false;
+    private int generarCapturas(boolean esTurnoDeBlancas, long[] destino, int inicio) {
+        long propias = esTurnoDeBlancas ? blancas : negras;
+        long oponentes = esTurnoDeBlancas ? negras : blancas;
+        long vacias = CASILLAS_VALIDAS & ~(blancas | negras);
+
+        // Piezas con una pieza rival adyacente y la casilla siguiente libre en alguna dirección
+        long todos = (piezasQueMueven(propias, esTurnoDeBlancas, -5) & (oponentes << 5) & (vacias << 10))
+                | (piezasQueMueven(propias, esTurnoDeBlancas, -4) & (oponentes << 4) & (vacias << 8))
+                | (piezasQueMueven(propias, esTurnoDeBlancas, 4) & (oponentes >>> 4) & (vacias >>> 8))
+                | (piezasQueMueven(propias, esTurnoDeBlancas, 5) & (oponentes >>> 5) & (vacias >>> 10));
+
+        int cantidad = 0;
+        for (; todos != 0; todos &= todos - 1) {
+            int bit = Long.numberOfTrailingZeros(todos);
+            boolean esRey = (reyes & (1L << bit)) != 0;
+            // La pieza deja libre su casilla de origen mientras salta
+            cantidad = extenderCaptura(bit, bit, 0L, esRey, esTurnoDeBlancas, oponentes, vacias | (1L << bit),
+                    destino, inicio, cantidad);
         }
+        return cantidad;
+    }
 
-        if (destino.tienePieza() || destino.esBlanco) {
-            return false;
+    /**
+     * Sigue una cadena de capturas desde la casilla actual y escribe un movimiento por cada cadena
+     * completa: la pieza debe seguir saltando mientras pueda. Las piezas capturadas siguen en el
+     * tablero hasta el final del movimiento, así que no se pueden saltar dos veces ni ocupar. Una
+     * pieza normal que llega a la fila de coronación termina ahí, porque solo salta hacia delante.
+     */
+    private int extenderCaptura(int origen, int actual, long capturadas, boolean esRey, boolean esBlanca,
+                                long oponentes, long vacias, long[] destino, int inicio, int cantidad) {
+        boolean siguio = false;
+        for (int paso : PASOS) {
+            if (!esRey && (paso < 0) != esBlanca) {
+                continue;
+            }
+            int llegada = actual + 2 * paso;
+            if (llegada < 0 || llegada >= NUM_BITS) {
+                continue;
+            }
+            long saltada = 1L << (actual + paso);
+            if ((oponentes & ~capturadas & saltada) == 0 || (vacias & (1L << llegada)) == 0) {
+                continue;
+            }
+            siguio = true;
+            cantidad = extenderCaptura(origen, llegada, capturadas | saltada, esRey, esBlanca, oponentes,
+                    (vacias | (1L << actual)) & ~(1L << llegada), destino, inicio, cantidad);
+        }
+        if (siguio || capturadas == 0) {
+            return cantidad;
         }
 
-        if (m.esCaptura()) {
-            return esMovimientoDeCapturaValido(m, pieza);
-        } else {
-            return esMovimientoRegularValido(m, pieza);
+        // Cadena completa. Un rey puede llegar al mismo resultado por dos caminos: solo se guarda uno
+        long movimiento = codificar(origen, actual, capturadas);
+        for (int i = inicio; i < inicio + cantidad; i++) {
+            if (destino[i] == movimiento) {
+                return cantidad;
+            }
+        }
+        if (cantidad == MAX_MOVIMIENTOS) {
+            return cantidad;
         }
+        destino[inicio + cantidad] = movimiento;
+        return cantidad + 1;
     }
 
-    private boolean esMovimientoRegularValido(Movimiento m, Pieza p) {
-        if (!m.esRegular()) {
-            return false;
+    private int generarRegulares(boolean esTurnoDeBlancas, long[] destino, int inicio) {
+        long propias = esTurnoDeBlancas ? blancas : negras;
+        long vacias = CASILLAS_VALIDAS & ~(blancas | negras);
+
+        long origenesNO = piezasQueMueven(propias, esTurnoDeBlancas, -5) & (vacias << 5);
+        long origenesNE = piezasQueMueven(propias, esTurnoDeBlancas, -4) & (vacias << 4);
+        long origenesSO = piezasQueMueven(propias, esTurnoDeBlancas, 4) & (vacias >>> 4);
+        long origenesSE = piezasQueMueven(propias, esTurnoDeBlancas, 5) & (vacias >>> 5);
+
+        int cantidad = 0;
+        long todos = origenesNO | origenesNE | origenesSO | origenesSE;
+        while (todos != 0) {
+            int bit = Long.numberOfTrailingZeros(todos);
+            long mascara = todos & -todos;
+            todos ^= mascara;
+            if ((origenesNO & mascara) != 0) {
+                destino[inicio + cantidad++] = codificar(bit, bit - 5, 0L);
+            }
+            if ((origenesNE & mascara) != 0) {
+                destino[inicio + cantidad++] = codificar(bit, bit - 4, 0L);
+            }
+            if ((origenesSO & mascara) != 0) {
+                destino[inicio + cantidad++] = codificar(bit, bit + 4, 0L);
+            }
+            if ((origenesSE & mascara) != 0) {
+                destino[inicio + cantidad++] = codificar(bit, bit + 5, 0L);
+            }
         }
-        if (p.esRey()) {
-            return true;
+        return cantidad;
+    }
+
+    /**
+     * Filtra las piezas que pueden avanzar en la dirección dada: las piezas normales solo avanzan
+     * hacia la fila de coronación, los reyes en cualquier dirección.
+     */
+    private long piezasQueMueven(long propias, boolean esBlanca, int paso) {
+        boolean haciaArriba = paso < 0;
+        return haciaArriba == esBlanca ? propias : propias & reyes;
+    }
+
+    /**
+     * Codifica un movimiento con su origen, destino y la máscara de las casillas de las piezas que
+     * captura. Los 12 bits bajos ({@link #MASCARA_ORIGEN_DESTINO}) son los que se guardan en la tabla
+     * de transposición.
+     *
+     * @param movimiento El movimiento a codificar.
+     * @return El código del movimiento, o {@link #MOVIMIENTO_INVALIDO} si el recorrido no está formado
+     *         por casillas oscuras unidas por un paso simple o por saltos.
+     */
+    static long codificar(Movimiento movimiento) {
+        int casillas = movimiento.getNumeroCasillas();
+        int origen = bitDeCasilla(movimiento.getFila(0), movimiento.getColumna(0));
+        int actual = origen;
+        long capturadas = 0L;
+        for (int i = 1; i < casillas && actual >= 0; i++) {
+            int fila = movimiento.getFila(i);
+            int columna = movimiento.getColumna(i);
+            int avanceFila = fila - movimiento.getFila(i - 1);
+            int avanceColumna = columna - movimiento.getColumna(i - 1);
+            actual = bitDeCasilla(fila, columna);
+            if (actual < 0) {
+                break;
+            }
+            if (Math.abs(avanceFila) == 2 && Math.abs(avanceColumna) == 2) {
+                capturadas |= 1L << bitDe(fila - avanceFila / 2, columna - avanceColumna / 2);
+            } else if (casillas > 2 || Math.abs(avanceFila) != 1 || Math.abs(avanceColumna) != 1) {
+                return MOVIMIENTO_INVALIDO;
+            }
         }
-        if (p.esBlanca()) {
-            return m.filaOrigen > m.filaDestino;
-        } else {
-            return m.filaOrigen < m.filaDestino;
+        if (actual < 0) {
+            return MOVIMIENTO_INVALIDO;
         }
+        return codificar(origen, actual, capturadas);
     }
 
-    private boolean esMovimientoDeCapturaValido(Movimiento m, Pieza p) {
-        int filaCapturada = m.getFilaPiezaCapturada();
-        int colCapturada = m.getColumnaPiezaCapturada();
-        Casillero casilleroCapturado = tablero[filaCapturada][colCapturada];
+    private static long codificar(int origen, int destino, long capturadas) {
+        return origen | (long) destino << DESPLAZAMIENTO_DESTINO | capturadas << DESPLAZAMIENTO_CAPTURADAS;
+    }
 
-        if (!casilleroCapturado.tienePieza() || casilleroCapturado.getPieza().esBlanca() == p.esBlanca()) {
-            return false;
+    /**
+     * Convierte un movimiento codificado en un {@link Movimiento}, reconstruyendo las casillas
+     * intermedias de las capturas múltiples a partir de las piezas capturadas.
+     */
+    static Movimiento decodificar(long movimiento) {
+        long capturadas = capturadasDe(movimiento);
+        int[] recorrido = new int[Long.bitCount(capturadas) + 2];
+        recorrido[0] = origenDe(movimiento);
+        int longitud;
+        if (capturadas == 0) {
+            recorrido[1] = destinoDe(movimiento);
+            longitud = 2;
+        } else {
+            longitud = reconstruirRecorrido(recorrido, 1, destinoDe(movimiento), capturadas);
         }
 
-        if (!p.esRey()) {
-            if (p.esBlanca()) {
-                return m.filaOrigen > m.filaDestino; // Blancas capturan hacia adelante
-            } else {
-                return m.filaOrigen < m.filaDestino; // Negras capturan hacia adelante
+        int[] filas = new int[longitud];
+        int[] columnas = new int[longitud];
+        for (int i = 0; i < longitud; i++) {
+            filas[i] = filaDe(recorrido[i]);
+            columnas[i] = columnaDe(recorrido[i]);
+        }
+        return new Movimiento(filas, columnas);
+    }
+
+    /**
+     * Busca una secuencia de saltos que capture exactamente las piezas pendientes y termine en el
+     * destino, escribiendo las casillas de llegada en el recorrido.
+     *
+     * @return La longitud del recorrido completo, o -1 si no hay secuencia.
+     */
+    private static int reconstruirRecorrido(int[] recorrido, int longitud, int destino, long pendientes) {
+        int actual = recorrido[longitud - 1];
+        if (pendientes == 0) {
+            return actual == destino ? longitud : -1;
+        }
+        for (int paso : PASOS) {
+            int llegada = actual + 2 * paso;
+            if (llegada < 0 || llegada >= NUM_BITS || (CASILLAS_VALIDAS & (1L << llegada)) == 0
+                    || (pendientes & (1L << (actual + paso))) == 0) {
+                continue;
+            }
+            recorrido[longitud] = llegada;
+            int resultado = reconstruirRecorrido(recorrido, longitud + 1, destino, pendientes & ~(1L << (actual + paso)));
+            if (resultado > 0) {
+                return resultado;
             }
         }
-        return true;
+        return -1;
     }
 
-    private List<Movimiento> getTodosMovimientosDeCaptura(boolean esTurnoDeBlancas) {
-        return IntStream.range(0, 8)
-                .boxed()
-                .flatMap(i -> IntStream.range(0, 8)
-                        .filter(j -> tablero[i][j].tienePieza() && tablero[i][j].getPieza().esBlanca() == esTurnoDeBlancas)
-                        .mapToObj(j -> getMovimientosDeCapturaParaPieza(i, j))
-                        .flatMap(List::stream))
-                .parallel()
-                .collect(Collectors.toList());
+    static int origenDe(long movimiento) {
+        return (int) movimiento & MASCARA_BIT;
     }
 
-    private List<Movimiento> getTodosMovimientosRegulares(boolean esTurnoDeBlancas) {
-        return IntStream.range(0, 8)
-                .boxed()
-                .flatMap(i -> IntStream.range(0, 8)
-                        .filter(j -> tablero[i][j].tienePieza() && tablero[i][j].getPieza().esBlanca() == esTurnoDeBlancas)
-                        .mapToObj(j -> getMovimientosRegularesParaPieza(i, j))
-                        .flatMap(List::stream))
-                .parallel()
-                .collect(Collectors.toList());
+    static int destinoDe(long movimiento) {
+        return (int) (movimiento >>> DESPLAZAMIENTO_DESTINO) & MASCARA_BIT;
     }
 
-    private List<Movimiento> getMovimientosDeCapturaParaPieza(int fila, int col) {
-        List<Movimiento> movimientos = new ArrayList<>();
-        Pieza pieza = tablero[fila][col].getPieza();
-        int[][] direcciones;
+    static long capturadasDe(long movimiento) {
+        return movimiento >>> DESPLAZAMIENTO_CAPTURADAS;
+    }
 
-        if (pieza.esRey()) {
-            direcciones = new int[][]{{-2, -2}, {-2, 2}, {2, -2}, {2, 2}};
-        } else if (pieza.esBlanca()) {
-            direcciones = new int[][]{{-2, -2}, {-2, 2}};
-        } else {
-            direcciones = new int[][]{{2, -2}, {2, 2}};
-        }
+    static boolean esCaptura(long movimiento) {
+        return capturadasDe(movimiento) != 0;
+    }
 
-        for (int[] dir : direcciones) {
-            int filaDestino = fila + dir[0];
-            int colDestino = col + dir[1];
-            if (estanEnTablero(filaDestino, colDestino) && !tablero[filaDestino][colDestino].tienePieza()) {
-                Movimiento mov = new Movimiento(fila, col, filaDestino, colDestino);
-                if (esMovimientoDeCapturaValido(mov, pieza)) {
-                    movimientos.add(mov);
-                }
-            }
-        }
-        return movimientos;
+    /**
+     * Como {@link #bitDe}, pero devuelve -1 también para coordenadas fuera del tablero.
+     */
+    private static int bitDeCasilla(int fila, int columna) {
+        return estanEnTablero(fila, columna) ? bitDe(fila, columna) : -1;
     }
 
-    private List<Movimiento> getMovimientosRegularesParaPieza(int fila, int col) {
-        List<Movimiento> movimientos = new ArrayList<>();
-        Pieza pieza = tablero[fila][col].getPieza();
-        int[][] direcciones;
+    /**
+     * Obtiene el bit asociado a una casilla.
+     *
+     * @return El índice de bit, o -1 si la casilla es clara.
+     */
+    static int bitDe(int fila, int columna) {
+        return BIT_DE_CASILLA[fila * 8 + columna];
+    }
 
-        if (pieza.esRey()) {
-            direcciones = new int[][]{{-1, -1}, {-1, 1}, {1, -1}, {1, 1}};
-        } else if (pieza.esBlanca()) {
-            direcciones = new int[][]{{-1, -1}, {-1, 1}};
-        } else {
-            direcciones = new int[][]{{1, -1}, {1, 1}};
-        }
+    /**
+     * Obtiene la fila (0-7) de un bit de casilla.
+     */
+    static int filaDe(int bit) {
+        return FILA_DE_BIT[bit];
+    }
 
-        for (int[] dir : direcciones) {
-            int filaDestino = fila + dir[0];
-            int colDestino = col + dir[1];
-            if (estanEnTablero(filaDestino, colDestino) && !tablero[filaDestino][colDestino].tienePieza()) {
-                Movimiento mov = new Movimiento(fila, col, filaDestino, colDestino);
-                if (esMovimientoRegularValido(mov, pieza)) {
-                    movimientos.add(mov);
-                }
-            }
-        }
-        return movimientos;
+    /**
+     * Obtiene la columna (0-7) de un bit de casilla.
+     */
+    static int columnaDe(int bit) {
+        return COLUMNA_DE_BIT[bit];
     }
 
-    private boolean estanEnTablero(int fila, int col) {
+    private static boolean estanEnTablero(int fila, int col) {
         return fila >= 0 && fila < 8 && col >= 0 && col < 8;
     }
 
@@ -287,7 +769,7 @@ public class Tabla {
      * @return true si el juego ha concluido.
      */
     public boolean haTerminado() {
-        return !(tieneMovimientosDisponibles(true) && tieneMovimientosDisponibles(false));
+        return estadoTerminal() != EN_JUEGO;
     }
 
     /**
@@ -296,23 +778,100 @@ public class Tabla {
      * @return "Blancas", "Negras", "Empate" o null si el juego no ha terminado.
      */
     public String getGanador() {
-        if (!haTerminado()) {
-            return null;
+        return switch (estadoTerminal()) {
+            case GANAN_BLANCAS -> "Blancas";
+            case GANAN_NEGRAS -> "Negras";
+            default -> null;
+        };
+    }
+
+    /**
+     * Obtiene el estado de la partida sin asignar memoria. El juego termina cuando alguno de los
+     * dos colores se queda sin movimientos; si son las blancas, ganan las negras. El resultado se
+     * guarda para la posición actual, así las consultas repetidas sobre el mismo nodo son gratis.
+     *
+     * @return {@link #EN_JUEGO}, {@link #GANAN_BLANCAS} o {@link #GANAN_NEGRAS}.
+     */
+    int estadoTerminal() {
+        if (blancas != blancasEstado || negras != negrasEstado || reyes != reyesEstado) {
+            if (!tieneMovimientosDisponibles(true)) {
+                estadoGuardado = GANAN_NEGRAS;
+            } else if (!tieneMovimientosDisponibles(false)) {
+                estadoGuardado = GANAN_BLANCAS;
+            } else {
+                estadoGuardado = EN_JUEGO;
+            }
+            blancasEstado = blancas;
+            negrasEstado = negras;
+            reyesEstado = reyes;
         }
+        return estadoGuardado;
+    }
+
+    /**
+     * Comprueba si un jugador tiene algún movimiento, con las mismas máscaras que el generador pero
+     * sin recorrer las piezas: basta con que alguna máscara de origen no esté vacía.
+     */
+    private boolean tieneMovimientosDisponibles(boolean esBlanco) {
+        long propias = esBlanco ? blancas : negras;
+        long vacias = CASILLAS_VALIDAS & ~(blancas | negras);
 
-        if (!tieneMovimientosDisponibles(true)) {
-            return "Negras";
+        // Los movimientos simples son lo más habitual, se comprueban primero
+        long haciaArriba = piezasQueMueven(propias, esBlanco, -5);
+        long haciaAbajo = piezasQueMueven(propias, esBlanco, 5);
+        if (((haciaArriba & ((vacias << 5) | (vacias << 4))) | (haciaAbajo & ((vacias >>> 4) | (vacias >>> 5)))) != 0) {
+            return true;
         }
+        return tieneCapturas(esBlanco);
+    }
 
-        return "Blancas";
+    /**
+     * Comprueba si un jugador tiene alguna captura, es decir, si está obligado a capturar.
+     *
+     * @param esBlanco True si se comprueban las capturas de las blancas.
+     * @return true si hay al menos una captura disponible.
+     */
+    boolean tieneCapturas(boolean esBlanco) {
+        long propias = esBlanco ? blancas : negras;
+        long oponentes = esBlanco ? negras : blancas;
+        long vacias = CASILLAS_VALIDAS & ~(blancas | negras);
+        long haciaArriba = piezasQueMueven(propias, esBlanco, -5);
+        long haciaAbajo = piezasQueMueven(propias, esBlanco, 5);
+        return ((haciaArriba & (((oponentes << 5) & (vacias << 10)) | ((oponentes << 4) & (vacias << 8))))
+                | (haciaAbajo & (((oponentes >>> 4) & (vacias >>> 8)) | ((oponentes >>> 5) & (vacias >>> 10))))) != 0;
     }
 
-    private boolean tieneMovimientosDisponibles(boolean esBlanco) {
-        return !getMovimientosDisponibles(esBlanco).isEmpty();
+    /**
+     * Cuenta los movimientos disponibles para un jugador sin generarlos: el número de movimientos
+     * en cada dirección es el número de bits de su máscara de origen. Si hay capturas, solo se
+     * cuentan los primeros saltos, sin seguir las cadenas; como medida de movilidad es suficiente.
+     *
+     * @param esBlanco True si se cuentan los movimientos de las blancas.
+     * @return El número de movimientos disponibles.
+     */
+    int contarMovimientos(boolean esBlanco) {
+        long propias = esBlanco ? blancas : negras;
+        long oponentes = esBlanco ? negras : blancas;
+        long vacias = CASILLAS_VALIDAS & ~(blancas | negras);
+        long haciaArriba = piezasQueMueven(propias, esBlanco, -5);
+        long haciaAbajo = piezasQueMueven(propias, esBlanco, 5);
+
+        int capturas = Long.bitCount(haciaArriba & (oponentes << 5) & (vacias << 10))
+                + Long.bitCount(haciaArriba & (oponentes << 4) & (vacias << 8))
+                + Long.bitCount(haciaAbajo & (oponentes >>> 4) & (vacias >>> 8))
+                + Long.bitCount(haciaAbajo & (oponentes >>> 5) & (vacias >>> 10));
+        if (capturas > 0) {
+            return capturas;
+        }
+        return Long.bitCount(haciaArriba & (vacias << 5))
+                + Long.bitCount(haciaArriba & (vacias << 4))
+                + Long.bitCount(haciaAbajo & (vacias >>> 4))
+                + Long.bitCount(haciaAbajo & (vacias >>> 5));
     }
 
     @Override
     public String toString() {
+        Casillero[][] tablero = getTablero();
         StringBuilder result = new StringBuilder();
         char[] letras = {'H', 'G', 'F', 'E', 'D', 'C', 'B', 'A'};
         result.append("       [ 1 ] [ 2 ] [ 3 ] [ 4 ] [ 5 ] [ 6 ] [ 7 ] [ 8 ]\n");
@@ -333,4 +892,20 @@ public class Tabla {
         }
         return result.toString();
     }
+
+    /**
+     * Información necesaria para revertir un movimiento: las casillas de origen y destino,
+     * las piezas capturadas y cuáles eran reyes, si la pieza que movió era rey, el hash y el valor
+     * estático previos.
+     */
+    private static final class RegistroDeshacer {
+        int origen;
+        int destino;
+        boolean esBlanca;
+        long hashAnterior;
+        int valorAnterior;
+        long capturadas;
+        long reyesCapturados;
+        boolean eraRey;
+    }
 }
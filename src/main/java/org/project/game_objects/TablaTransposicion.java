@@ -0,0 +1,156 @@
+package org.project.game_objects;
+
+import java.util.Arrays;
+
+/**
+ * Tabla de transposición de tamaño fijo compartida entre los hilos de búsqueda.
+ * <p>
+ * Cada entrada ocupa dos {@code long}: la clave Zobrist combinada por XOR con los datos, y los datos
+ * empaquetados (puntuación, profundidad, tipo de cota, mejor movimiento y generación). Al leer se
+ * comprueba que {@code claveGuardada ^ datos} coincida con la clave buscada, así una escritura
+ * concurrente a medias se detecta como un fallo de búsqueda en lugar de devolver datos mezclados.
+ * Esto permite compartir la tabla entre hilos sin cerrojos.
+ * <p>
+ * Las puntuaciones se guardan desde la perspectiva del {@link AIPlayer} que es dueño de la tabla.
+ */
+public final class TablaTransposicion {
+    /**
+     * Valor devuelto por {@link #buscar(long)} cuando la posición no está en la tabla.
+     */
+    static final long SIN_ENTRADA = 0L;
+    /**
+     * La puntuación guardada es exacta.
+     */
+    static final int EXACTA = 1;
+    /**
+     * La puntuación guardada es una cota inferior (hubo poda beta).
+     */
+    static final int INFERIOR = 2;
+    /**
+     * La puntuación guardada es una cota superior (ningún movimiento superó alfa).
+     */
+    static final int SUPERIOR = 3;
+
+    private static final int BYTES_POR_ENTRADA = 16;
+
+    // Disposición de los campos dentro del long de datos
+    private static final int DESPLAZAMIENTO_PROFUNDIDAD = 32;
+    private static final int DESPLAZAMIENTO_TIPO = 40;
+    private static final int DESPLAZAMIENTO_MOVIMIENTO = 42;
+    private static final int DESPLAZAMIENTO_GENERACION = 58;
+
+    /**
+     * Pares (clave ^ datos, datos) de cada entrada.
+     */
+    private final long[] entradas;
+    /**
+     * Máscara para convertir una clave en el índice de su entrada.
+     */
+    private final int mascara;
+    /**
+     * Generación actual, se incrementa en cada búsqueda para reemplazar primero las entradas viejas.
+     */
+    private volatile int generacion;
+
+    /**
+     * Construye una tabla de transposición que ocupa como máximo el tamaño indicado.
+     * El número de entradas se redondea hacia abajo a una potencia de dos.
+     *
+     * @param tamanoMB El tamaño de la tabla en megabytes.
+     */
+    public TablaTransposicion(int tamanoMB) {
+        if (tamanoMB <= 0) {
+            throw new IllegalArgumentException("El tamaño de la tabla de transposición debe ser positivo");
+        }
+        long numEntradas = Long.highestOneBit((long) tamanoMB * 1024 * 1024 / BYTES_POR_ENTRADA);
+        numEntradas = Math.min(numEntradas, 1L << 29);
+        this.entradas = new long[(int) numEntradas * 2];
+        this.mascara = (int) numEntradas - 1;
+    }
+
+    /**
+     * Marca el comienzo de una nueva búsqueda. Las entradas de búsquedas anteriores se siguen
+     * usando, pero se reemplazan con preferencia. Si hay varias búsquedas a la vez sobre la tabla,
+     * debe llamarlo quien las coordina y no cada una, o la generación cambia continuamente y todas
+     * las entradas parecen viejas.
+     */
+    public synchronized void nuevaBusqueda() {
+        generacion = (generacion + 1) & 0x3F;
+    }
+
+    /**
+     * Vacía la tabla.
+     */
+    public void limpiar() {
+        Arrays.fill(entradas, 0L);
+    }
+
+    /**
+     * Busca una posición en la tabla.
+     *
+     * @param clave El hash Zobrist de la posición, incluyendo el turno.
+     * @return Los datos empaquetados de la entrada, o {@link #SIN_ENTRADA} si no está.
+     */
+    long buscar(long clave) {
+        int indice = indice(clave);
+        long datos = entradas[indice + 1];
+        long claveGuardada = entradas[indice];
+        if ((claveGuardada ^ datos) != clave) {
+            return SIN_ENTRADA;
+        }
+        return datos;
+    }
+
+    /**
+     * Guarda el resultado de buscar una posición. Se reemplaza la entrada existente si pertenece a
+     * otra posición de una búsqueda anterior, o si la nueva búsqueda es al menos igual de profunda.
+     *
+     * @param clave       El hash Zobrist de la posición, incluyendo el turno.
+     * @param profundidad La profundidad restante con la que se buscó la posición.
+     * @param tipo        El tipo de cota: {@link #EXACTA}, {@link #INFERIOR} o {@link #SUPERIOR}.
+     * @param puntuacion  La puntuación obtenida.
+     * @param movimiento  El origen y destino del mejor movimiento ({@link Tabla#MASCARA_ORIGEN_DESTINO}).
+     */
+    void guardar(long clave, int profundidad, int tipo, int puntuacion, int movimiento) {
+        int indice = indice(clave);
+        long datosAnteriores = entradas[indice + 1];
+        boolean mismaPosicion = (entradas[indice] ^ datosAnteriores) == clave;
+        if (datosAnteriores != SIN_ENTRADA
+                && profundidad < profundidad(datosAnteriores)
+                && (mismaPosicion || generacion(datosAnteriores) == generacion)) {
+            return;
+        }
+
+        long datos = (puntuacion & 0xFFFFFFFFL)
+                | (long) Math.min(profundidad, 0xFF) << DESPLAZAMIENTO_PROFUNDIDAD
+                | (long) tipo << DESPLAZAMIENTO_TIPO
+                | (long) (movimiento & 0xFFFF) << DESPLAZAMIENTO_MOVIMIENTO
+                | (long) generacion << DESPLAZAMIENTO_GENERACION;
+        entradas[indice + 1] = datos;
+        entradas[indice] = clave ^ datos;
+    }
+
+    private int indice(long clave) {
+        return ((int) (clave ^ (clave >>> 32)) & mascara) << 1;
+    }
+
+    static int puntuacion(long datos) {
+        return (int) datos;
+    }
+
+    static int profundidad(long datos) {
+        return (int) (datos >>> DESPLAZAMIENTO_PROFUNDIDAD) & 0xFF;
+    }
+
+    static int tipo(long datos) {
+        return (int) (datos >>> DESPLAZAMIENTO_TIPO) & 0x3;
+    }
+
+    static int movimiento(long datos) {
+        return (int) (datos >>> DESPLAZAMIENTO_MOVIMIENTO) & 0xFFFF;
+    }
+
+    private static int generacion(long datos) {
+        return (int) (datos >>> DESPLAZAMIENTO_GENERACION) & 0x3F;
+    }
+}
@@ -0,0 +1,345 @@
+package org.project.game_objects;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Torneo sin interfaz entre dos configuraciones de la IA, con muchas partidas simultáneas.
+ * <p>
+ * Cada apertura se juega dos veces, una con cada configuración llevando las blancas, para que la
+ * ventaja de la apertura se compense. Las aperturas son unos pocos plies aleatorios desde la
+ * posición inicial, generados con una semilla para que el torneo sea reproducible. Una partida que
+ * llega a {@link #PLIES_MAXIMOS} sin terminar cuenta como tablas.
+ * <p>
+ * Solo las partidas entre configuraciones secuenciales se juegan a la vez. Los modos paralelos
+ * buscan en el {@link java.util.concurrent.ForkJoinPool} común; con varias partidas simultáneas se
+ * repartirían los procesadores entre ellas mientras una configuración secuencial tiene uno por
+ * partida, y la latencia, los nodos por segundo y el Elo medirían la contención y no las
+ * configuraciones. Si alguna es paralela, las partidas se juegan de una en una.
+ */
+public final class Torneo {
+    /**
+     * Plies aleatorios de cada apertura; es par para que la partida empiece con las blancas.
+     */
+    static final int PLIES_APERTURA = 4;
+    /**
+     * Plies tras los cuales la partida se declara tablas.
+     */
+    static final int PLIES_MAXIMOS = 200;
+    /**
+     * Tamaño de la tabla de transposición de cada jugador, en megabytes. Es pequeña porque hay dos
+     * jugadores por cada partida simultánea.
+     */
+    private static final int TAMANO_TABLA_MB = 8;
+
+    private Torneo() {
+    }
+
+    /**
+     * Modo de búsqueda de una configuración.
+     */
+    public enum Modo {
+        SECUENCIAL, PARALELO, YBW
+    }
+
+    /**
+     * Configuración de un jugador: modo de búsqueda, profundidad y evaluación.
+     */
+    public static final class Configuracion {
+        final Modo modo;
+        final int profundidad;
+        final boolean evaluacionPosicional;
+
+        public Configuracion(Modo modo, int profundidad, boolean evaluacionPosicional) {
+            if (profundidad <= 0) {
+                throw new IllegalArgumentException("La profundidad debe ser positiva");
+            }
+            this.modo = modo;
+            this.profundidad = profundidad;
+            this.evaluacionPosicional = evaluacionPosicional;
+        }
+
+        /**
+         * Lee una configuración con el formato {@code modo:profundidad[:evaluacion]}, por ejemplo
+         * {@code secuencial:6} o {@code ybw:8:material}. La evaluación es {@code completa} (por
+         * defecto) o {@code material}.
+         *
+         * @param texto La configuración.
+         * @return La configuración leída.
+         * @throws IllegalArgumentException si el texto no tiene el formato esperado.
+         */
+        public static Configuracion leer(String texto) {
+            String[] partes = texto.toLowerCase().split(":");
+            if (partes.length < 2 || partes.length > 3) {
+                throw new IllegalArgumentException("Configuración inválida: " + texto);
+            }
+            Modo modo = switch (partes[0]) {
+                case "secuencial" -> Modo.SECUENCIAL;
+                case "paralelo" -> Modo.PARALELO;
+                case "ybw" -> Modo.YBW;
+                default -> throw new IllegalArgumentException("Modo desconocido: " + partes[0]);
+            };
+            boolean evaluacionPosicional = partes.length < 3 || switch (partes[2]) {
+                case "completa" -> true;
+                case "material" -> false;
+                default -> throw new IllegalArgumentException("Evaluación desconocida: " + partes[2]);
+            };
+            return new Configuracion(modo, Integer.parseInt(partes[1]), evaluacionPosicional);
+        }
+
+        AIPlayer crearJugador(boolean esBlanca) {
+            AIPlayer ia = new AIPlayer(esBlanca, profundidad, TAMANO_TABLA_MB);
+            ia.setEvaluacionPosicional(evaluacionPosicional);
+            return ia;
+        }
+
+        Movimiento mover(AIPlayer ia, Tabla tabla) {
+            return switch (modo) {
+                case SECUENCIAL -> ia.getBestMoveSequential(tabla);
+                case PARALELO -> ia.getBestMove(tabla);
+                case YBW -> ia.getBestMoveYBW(tabla);
+            };
+        }
+
+        @Override
+        public String toString() {
+            return modo.name().toLowerCase() + ":" + profundidad + ":" + (evaluacionPosicional ? "completa" : "material");
+        }
+    }
+
+    /**
+     * Juega un torneo entre dos configuraciones.
+     *
+     * @param a        La primera configuración; los resultados se dan desde su punto de vista.
+     * @param b        La segunda configuración.
+     * @param partidas El número de partidas; se redondea hacia arriba a un número par.
+     * @param hilos    El número de partidas que se juegan a la vez si ambas configuraciones son
+     *                 secuenciales; si alguna es paralela se juega una partida a la vez.
+     * @param semilla  La semilla de las aperturas.
+     * @return El resultado del torneo.
+     */
+    public static Resultado jugar(Configuracion a, Configuracion b, int partidas, int hilos, long semilla) {
+        if (partidas <= 0 || hilos <= 0) {
+            throw new IllegalArgumentException("El número de partidas y de hilos debe ser positivo");
+        }
+        int parejas = (partidas + 1) / 2;
+        int simultaneas = a.modo == Modo.SECUENCIAL && b.modo == Modo.SECUENCIAL ? hilos : 1;
+        ExecutorService ejecutor = Executors.newFixedThreadPool(simultaneas);
+        try {
+            List<Future<Resultado>> pendientes = new ArrayList<>(parejas * 2);
+            for (int i = 0; i < parejas; i++) {
+                Tabla apertura = generarApertura(semilla + i);
+                pendientes.add(ejecutor.submit(() -> jugarPartida(a, b, apertura)));
+                pendientes.add(ejecutor.submit(() -> jugarPartida(b, a, apertura).invertir()));
+            }
+
+            Resultado total = new Resultado();
+            total.partidasSimultaneas = simultaneas;
+            int terminadas = 0;
+            for (Future<Resultado> pendiente : pendientes) {
+                total.sumar(pendiente.get());
+                if (++terminadas % Math.max(1, pendientes.size() / 10) == 0) {
+                    System.out.printf("Partidas jugadas: %d/%d%n", terminadas, pendientes.size());
+                }
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Torneo interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error en una partida del torneo", e.getCause());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Genera una apertura aleatoria que no termina la partida.
+     */
+    static Tabla generarApertura(long semilla) {
+        SplittableRandom aleatorio = new SplittableRandom(semilla);
+        while (true) {
+            Tabla tabla = new Tabla();
+            boolean turnoDeBlancas = true;
+            for (int ply = 0; ply < PLIES_APERTURA && !tabla.haTerminado(); ply++) {
+                List<Movimiento> movimientos = tabla.getMovimientosDisponibles(turnoDeBlancas);
+                tabla.ejecutarMovimiento(movimientos.get(aleatorio.nextInt(movimientos.size())), turnoDeBlancas);
+                turnoDeBlancas = !turnoDeBlancas;
+            }
+            if (!tabla.haTerminado()) {
+                return tabla;
+            }
+        }
+    }
+
+    /**
+     * Juega una partida desde una apertura.
+     *
+     * @return El resultado desde el punto de vista de las blancas.
+     */
+    private static Resultado jugarPartida(Configuracion blancas, Configuracion negras, Tabla apertura) {
+        Tabla tabla = new Tabla(apertura);
+        AIPlayer iaBlancas = blancas.crearJugador(true);
+        AIPlayer iaNegras = negras.crearJugador(false);
+        Resultado resultado = new Resultado();
+
+        boolean turnoDeBlancas = true;
+        for (int ply = 0; ply < PLIES_MAXIMOS && !tabla.haTerminado(); ply++) {
+            AIPlayer ia = turnoDeBlancas ? iaBlancas : iaNegras;
+            long inicio = System.nanoTime();
+            Movimiento movimiento = (turnoDeBlancas ? blancas : negras).mover(ia, tabla);
+            long nanos = System.nanoTime() - inicio;
+            resultado.registrarMovimiento(turnoDeBlancas, nanos, ia.getNodosUltimaBusqueda());
+            tabla.ejecutarMovimiento(movimiento, turnoDeBlancas);
+            turnoDeBlancas = !turnoDeBlancas;
+        }
+
+        int estado = tabla.estadoTerminal();
+        if (estado == Tabla.GANAN_BLANCAS) {
+            resultado.victorias++;
+        } else if (estado == Tabla.GANAN_NEGRAS) {
+            resultado.derrotas++;
+        } else {
+            resultado.tablas++;
+        }
+        return resultado;
+    }
+
+    /**
+     * Resultados acumulados de un torneo, desde el punto de vista de la primera configuración
+     * ("a"). Los tiempos y nodos se separan por configuración.
+     */
+    public static final class Resultado {
+        /**
+         * Valor z del intervalo de confianza del 95 %.
+         */
+        private static final double Z_95 = 1.96;
+
+        int victorias;
+        int tablas;
+        int derrotas;
+        // Movimientos, tiempo total y nodos de cada configuración
+        long movimientosA;
+        long nanosA;
+        long nodosA;
+        long movimientosB;
+        long nanosB;
+        long nodosB;
+        /**
+         * Partidas que se jugaron a la vez, o 0 si no es el total de un torneo.
+         */
+        int partidasSimultaneas;
+
+        void registrarMovimiento(boolean esA, long nanos, long nodos) {
+            if (esA) {
+                movimientosA++;
+                nanosA += nanos;
+                nodosA += nodos;
+            } else {
+                movimientosB++;
+                nanosB += nanos;
+                nodosB += nodos;
+            }
+        }
+
+        void sumar(Resultado otro) {
+            victorias += otro.victorias;
+            tablas += otro.tablas;
+            derrotas += otro.derrotas;
+            movimientosA += otro.movimientosA;
+            nanosA += otro.nanosA;
+            nodosA += otro.nodosA;
+            movimientosB += otro.movimientosB;
+            nanosB += otro.nanosB;
+            nodosB += otro.nodosB;
+        }
+
+        /**
+         * Intercambia los papeles de las dos configuraciones.
+         */
+        Resultado invertir() {
+            Resultado invertido = new Resultado();
+            invertido.victorias = derrotas;
+            invertido.tablas = tablas;
+            invertido.derrotas = victorias;
+            invertido.movimientosA = movimientosB;
+            invertido.nanosA = nanosB;
+            invertido.nodosA = nodosB;
+            invertido.movimientosB = movimientosA;
+            invertido.nanosB = nanosA;
+            invertido.nodosB = nodosA;
+            return invertido;
+        }
+
+        public int getPartidas() {
+            return victorias + tablas + derrotas;
+        }
+
+        /**
+         * Obtiene la puntuación media de "a": 1 por victoria y 0,5 por tablas.
+         */
+        public double getPuntuacion() {
+            return (victorias + 0.5 * tablas) / getPartidas();
+        }
+
+        /**
+         * Obtiene la diferencia de Elo de "a" sobre "b" que corresponde a su puntuación media.
+         *
+         * @return La diferencia, infinita si una configuración ganó todas las partidas.
+         */
+        public double getDiferenciaElo() {
+            return elo(getPuntuacion());
+        }
+
+        /**
+         * Obtiene el margen de error de la diferencia de Elo con un 95 % de confianza, a partir de la
+         * varianza de los resultados de las partidas.
+         *
+         * @return La mitad del ancho del intervalo, infinita si el intervalo llega al 0 % o al 100 %.
+         */
+        public double getErrorElo() {
+            int partidas = getPartidas();
+            double media = getPuntuacion();
+            double varianza = (victorias * Math.pow(1 - media, 2) + tablas * Math.pow(0.5 - media, 2)
+                    + derrotas * Math.pow(media, 2)) / partidas;
+            double margen = Z_95 * Math.sqrt(varianza / partidas);
+            return (elo(media + margen) - elo(media - margen)) / 2;
+        }
+
+        private static double elo(double puntuacion) {
+            if (puntuacion <= 0) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            if (puntuacion >= 1) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return -400 * Math.log10(1 / puntuacion - 1);
+        }
+
+        /**
+         * Describe el resultado: victorias, tablas y derrotas de "a", la diferencia de Elo, cuántas
+         * partidas se jugaron a la vez y, para cada configuración, la latencia media por movimiento y
+         * los nodos por segundo.
+         */
+        public String resumen(Configuracion a, Configuracion b) {
+            boolean paralela = a.modo != Modo.SECUENCIAL || b.modo != Modo.SECUENCIAL;
+            return String.format("%s contra %s: +%d =%d -%d (%.1f %%)%n", a, b, victorias, tablas, derrotas, 100 * getPuntuacion())
+                    + String.format("Diferencia de Elo: %.0f ± %.0f%n", getDiferenciaElo(), getErrorElo())
+                    + String.format("Partidas simultáneas: %d%s%n", partidasSimultaneas,
+                    paralela ? " (hay una configuración paralela, que usa todos los procesadores)" : "")
+                    + rendimiento(a, movimientosA, nanosA, nodosA)
+                    + rendimiento(b, movimientosB, nanosB, nodosB);
+        }
+
+        private static String rendimiento(Configuracion configuracion, long movimientos, long nanos, long nodos) {
+            double latenciaMs = movimientos == 0 ? 0 : nanos / 1e6 / movimientos;
+            double nodosPorSegundo = nanos == 0 ? 0 : nodos * 1e9 / nanos;
+            return String.format("  %s: %.2f ms por movimiento, %.0f nodos/s%n", configuracion, latenciaMs, nodosPorSegundo);
+        }
+    }
+}